@@ -38,6 +38,7 @@ import com.jme3.audio.AudioKey;
 import com.jme3.audio.AudioNode;
 import com.jme3.environment.EnvironmentProbeControl;
 import com.jme3.light.DirectionalLight;
+import com.jme3.light.LightProbe;
 import com.jme3.math.ColorRGBA;
 import com.jme3.math.Vector3f;
 import com.jme3.post.FilterPostProcessor;
@@ -51,26 +52,56 @@ import com.jme3.scene.Spatial;
 import com.jme3.texture.Image.Format;
 import com.jme3.texture.Texture;
 import com.jme3.util.SkyFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 import org.ngengine.AsyncAssetManager;
 import org.ngengine.components.Component;
 import org.ngengine.components.ComponentManager;
 import org.ngengine.components.fragments.AsyncAssetLoadingFragment;
 import org.ngengine.components.fragments.MainViewPortFragment;
+import org.ngengine.demo.son.perf.QualityPreset;
+import org.ngengine.demo.son.utils.EnvironmentProbeCache;
 import org.ngengine.runner.Runner;
 import org.ngengine.store.DataStoreProvider;
 
 public class BaseEnvironment implements Component<Object>, AsyncAssetLoadingFragment, MainViewPortFragment {
 
+    private static final Logger log = Logger.getLogger(BaseEnvironment.class.getName());
+    private static final String SKY_TEXTURE = "skies/alienSkyLOWEXP.png";
+    private static final int PROBE_SIZE = 256;
+
     private Spatial sky;
     private AudioNode backgroundMusic;
     private AssetManager assetManager;
     private ViewPort viewPort;
+    private final QualityPreset quality;
+    private LightScatteringFilter lightScattering;
+    private SoftBloomFilter bloom;
+    private int filterLevel;
+    private String skyHash;
+    private EnvironmentProbeCache probeCache;
+    private EnvironmentProbeControl probeControl;
+    private boolean probeSaved;
+
+    public BaseEnvironment(QualityPreset quality) {
+        this.quality = quality;
+    }
+
+    public BaseEnvironment() {
+        this(QualityPreset.HIGH);
+    }
 
     @Override
     public void loadAssetsAsync(AsyncAssetManager assetManager) {
         this.assetManager = assetManager;
 
-        TextureKey key = new TextureKey("skies/alienSkyLOWEXP.png", true);
+        try {
+            skyHash = EnvironmentProbeCache.hashAsset(assetManager, SKY_TEXTURE);
+        } catch (Exception e) {
+            log.log(Level.WARNING, "Failed to hash the sky, the environment probe will not be cached", e);
+        }
+
+        TextureKey key = new TextureKey(SKY_TEXTURE, true);
         key.setGenerateMips(false);
         Texture skyTextyre = assetManager.loadTexture(key);
         sky = SkyFactory.createSky(assetManager, skyTextyre, SkyFactory.EnvMapType.EquirectMap);
@@ -93,7 +124,23 @@ public class BaseEnvironment implements Component<Object>, AsyncAssetLoadingFrag
         rootNode.attachChild(backgroundMusic);
         rootNode.attachChild(sky);
         EnvironmentProbeControl.tagGlobal(sky);
-        rootNode.addControl(new EnvironmentProbeControl(assetManager, 256));
+        if (skyHash != null) {
+            probeCache = new EnvironmentProbeCache(dataStore.getDataStore("environment"), skyHash, PROBE_SIZE);
+            ((AsyncAssetManager) assetManager).runInLoaderThread(
+                t -> probeCache.load(),
+                (LightProbe probe, Throwable err) -> {
+                    if (probe != null) {
+                        log.info("Loaded cached environment probe " + probeCache.getKey());
+                        EnvironmentProbeCache.makeGlobal(probe);
+                        rootNode.addLight(probe);
+                    } else {
+                        bakeProbe(rootNode);
+                    }
+                }
+            );
+        } else {
+            bakeProbe(rootNode);
+        }
 
         // light
         DirectionalLight dl = new DirectionalLight();
@@ -102,49 +149,91 @@ public class BaseEnvironment implements Component<Object>, AsyncAssetLoadingFrag
         rootNode.addLight(dl);
 
 
-        String lowend = System.getProperty("lowend");
-        if(!"true".equals(lowend)){
+        if (quality.isPostProcessing()) {
             System.out.println("Loading post processing filters...");
             // post processing
             FilterPostProcessor fpp = new FilterPostProcessor(assetManager);
             fpp.setFrameBufferDepthFormat(Format.Depth24Stencil8);
-            fpp.setNumSamples(4);
+            fpp.setNumSamples(Math.max(1, quality.getSamples()));
             viewPort.addProcessor(fpp);
 
             ToneMapFilter tonemap = new ToneMapFilter(Vector3f.UNIT_XYZ.mult(3f));
             fpp.addFilter(tonemap);
 
-            LightScatteringFilter lightScattering = new LightScatteringFilter(dl.getDirection().mult(-300));
-            lightScattering.setLightPosition(viewPort.getCamera().getLocation().add(dl.getDirection().mult(-1000)));
-            fpp.addFilter(lightScattering);
+            if (quality.isExpensiveFilters()) {
+                lightScattering = new LightScatteringFilter(dl.getDirection().mult(-300));
+                lightScattering.setLightPosition(viewPort.getCamera().getLocation().add(dl.getDirection().mult(-1000)));
+                lightScattering.setLightDensity(4.5f);
+                fpp.addFilter(lightScattering);
+            }
 
             FogFilter fog = new FogFilter();
             fog.setFogDensity(0.4f);
             fog.setFogDistance(200f);
             fog.setFogColor(new ColorRGBA(35.0f / 255.0f, 0.0f, 110f / 255.0f, 1f));
-            lightScattering.setLightDensity(4.5f);
             fpp.addFilter(fog);
 
-            SoftBloomFilter bloom = new SoftBloomFilter();
-            bloom.setBilinearFiltering(true);
-            bloom.setGlowFactor(0.1f);
-            
-            fpp.addFilter(bloom);
+            if (quality.isExpensiveFilters()) {
+                bloom = new SoftBloomFilter();
+                bloom.setBilinearFiltering(true);
+                bloom.setGlowFactor(0.1f);
+
+                fpp.addFilter(bloom);
+            }
+            filterLevel = getMaxFilterLevel();
         } else {
-            System.out.println("Lowend mode enabled: no post processing filters loaded.");
+            System.out.println("Quality preset " + quality + ": no post processing filters loaded.");
         }
     }
 
     @Override
     public void onDisable(ComponentManager mng, Runner runner, DataStoreProvider dataStore) {}
 
+    private void bakeProbe(Node rootNode) {
+        probeControl = new EnvironmentProbeControl(assetManager, PROBE_SIZE);
+        // keep a copy of the results on the cpu, so they can be saved once baked
+        probeControl.setRequiredSavableResults(probeCache != null);
+        rootNode.addControl(probeControl);
+    }
+
+    /**
+     * Number of filter levels above 0, the level drops the most expensive filters first: bloom, then light
+     * scattering.
+     */
+    public int getMaxFilterLevel() {
+        return quality.isExpensiveFilters() ? 2 : 0;
+    }
+
+    public int getFilterLevel() {
+        return filterLevel;
+    }
+
+    public void setFilterLevel(int level) {
+        filterLevel = Math.max(0, Math.min(level, getMaxFilterLevel()));
+        if (bloom != null) bloom.setEnabled(filterLevel >= 2);
+        if (lightScattering != null) lightScattering.setEnabled(filterLevel >= 1);
+    }
+
     @Override
     public void receiveMainViewPort(ViewPort viewPort) {
         this.viewPort = viewPort;
     }
 
     @Override
-    public void updateMainViewPort(ViewPort viewPort, float tpf) {}
+    public void updateMainViewPort(ViewPort viewPort, float tpf) {
+        if (probeCache != null && probeControl != null && !probeSaved && probeControl.isReady()) {
+            probeSaved = true;
+            ((AsyncAssetManager) assetManager).runInLoaderThread(
+                t -> {
+                    probeCache.save(probeControl);
+                    return null;
+                },
+                (Object res, Throwable err) -> {
+                    if (err != null) log.log(Level.WARNING, "Failed to save environment probe", err);
+                }
+            );
+        }
+    }
 
     @Override
     public void loadMainViewPortFilterPostprocessor(AssetManager assetManager, FilterPostProcessor fpp) {}
@@ -0,0 +1,284 @@
+/**
+ * Copyright (c) 2025, Nostr Game Engine
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * Nostr Game Engine is a fork of the jMonkeyEngine, which is licensed under
+ * the BSD 3-Clause License. The original jMonkeyEngine license is as follows:
+ */
+package org.ngengine.demo.son;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+import org.ngengine.components.Component;
+import org.ngengine.components.ComponentManager;
+import org.ngengine.runner.Runner;
+import org.ngengine.store.DataStoreProvider;
+
+/**
+ * Runs data parallel work of a frame on a persistent work stealing pool.
+ * <p>
+ * Work is described by {@link Job}s, created once and run every frame over a range of items: the range is
+ * split in halves down to the job's grain and the halves are stolen by idle workers. A job can be run to
+ * completion with {@link #run(Job, int)}, or submitted with {@link #submit(Job, int)} to overlap with other
+ * work of the same phase and joined with {@link Job#join()} before its results are written to the scene
+ * graph. The bodies must only touch the data of the items in their range.
+ * <p>
+ * Without a pool, when the component is disabled or the machine has a single core, jobs run inline on the
+ * calling thread.
+ * <p>
+ * The tasks that split a job are kept in the job and reinitialized for every run, so running a job does not
+ * allocate once the pool has warmed up.
+ */
+public class FrameJobs implements Component<Object> {
+
+    private static final Logger log = Logger.getLogger(FrameJobs.class.getName());
+
+    /**
+     * The work of a job over the items from (inclusive) to to (exclusive).
+     */
+    public interface RangeBody {
+        void run(int from, int to);
+    }
+
+    public static final class Job {
+
+        private final String name;
+        private final int grain;
+        private final RangeBody body;
+        private volatile ForkJoinTask<?> pending;
+        // the split tree of the job, children of the task at i are at 2i+1 and 2i+2
+        private RangeTask[] tasks = new RangeTask[0];
+        private long submitted;
+        private final LongAdder wallNanos = new LongAdder();
+        private final LongAdder workNanos = new LongAdder();
+        private final LongAdder runs = new LongAdder();
+
+        private Job(String name, int grain, RangeBody body) {
+            this.name = name;
+            this.grain = Math.max(1, grain);
+            this.body = body;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Waits for the last submitted run of this job.
+         */
+        public void join() {
+            ForkJoinTask<?> task = pending;
+            if (task == null) return;
+            try {
+                task.join();
+            } finally {
+                // a failed run must not be joined again, nor keep its tasks from being reused
+                pending = null;
+            }
+            wallNanos.add(System.nanoTime() - submitted);
+            runs.increment();
+        }
+
+        /**
+         * Time from the start to the end of the runs since the last collect, and resets it.
+         */
+        public long collectWallNanos() {
+            return wallNanos.sumThenReset();
+        }
+
+        /**
+         * Time spent in the body by all the threads since the last collect, and resets it.
+         */
+        public long collectWorkNanos() {
+            return workNanos.sumThenReset();
+        }
+
+        public long collectRuns() {
+            return runs.sumThenReset();
+        }
+
+        /**
+         * Returns the root of the split tree for count items, growing the tree when count needs more levels.
+         */
+        private RangeTask rootTask(int count) {
+            int leaves = 1;
+            while ((count + leaves - 1) / leaves > grain) leaves <<= 1;
+            if (tasks.length < 2 * leaves - 1) {
+                RangeTask[] grown = new RangeTask[2 * leaves - 1];
+                for (int i = 0; i < grown.length; i++) {
+                    grown[i] = new RangeTask(this, i);
+                }
+                tasks = grown;
+            }
+            return tasks[0].reset(0, count);
+        }
+
+        private void runRange(int from, int to) {
+            long start = System.nanoTime();
+            body.run(from, to);
+            workNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    private static final class RangeTask extends RecursiveAction {
+
+        private final Job job;
+        private final int index;
+        private int from;
+        private int to;
+
+        RangeTask(Job job, int index) {
+            this.job = job;
+            this.index = index;
+        }
+
+        /**
+         * Prepares the task for a new run, the previous run must be complete.
+         */
+        RangeTask reset(int from, int to) {
+            reinitialize();
+            this.from = from;
+            this.to = to;
+            return this;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= job.grain) {
+                job.runRange(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            RangeTask[] tasks = job.tasks;
+            invokeAll(tasks[2 * index + 1].reset(from, mid), tasks[2 * index + 2].reset(mid, to));
+        }
+    }
+
+    private final List<Job> jobs = new CopyOnWriteArrayList<>();
+    private final int threads;
+    private volatile ForkJoinPool pool;
+
+    public FrameJobs() {
+        this(Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    /**
+     * @param threads
+     *            number of worker threads, 0 runs every job inline
+     */
+    public FrameJobs(int threads) {
+        this.threads = threads;
+    }
+
+    @Override
+    public void onEnable(ComponentManager mng, Runner runner, DataStoreProvider dataStore, boolean firstTime, Object arg) {
+        if (threads < 1) {
+            log.info("Frame jobs run inline, no worker threads");
+            return;
+        }
+        AtomicInteger counter = new AtomicInteger();
+        pool =
+            new ForkJoinPool(
+                threads,
+                p -> {
+                    ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                    t.setName("frame-job-" + counter.getAndIncrement());
+                    t.setDaemon(true);
+                    return t;
+                },
+                null,
+                false
+            );
+        log.info("Frame jobs on " + threads + " worker threads");
+    }
+
+    @Override
+    public void onDisable(ComponentManager mng, Runner runner, DataStoreProvider dataStore) {
+        ForkJoinPool p = pool;
+        pool = null;
+        if (p != null) p.shutdown();
+    }
+
+    /**
+     * Creates a job, jobs are meant to be created once and run every frame.
+     *
+     * @param name
+     *            shown with the job timings
+     * @param grain
+     *            number of items below which a range is not split further
+     */
+    public Job createJob(String name, int grain, RangeBody body) {
+        Job job = new Job(name, grain, body);
+        jobs.add(job);
+        return job;
+    }
+
+    public void removeJob(Job job) {
+        job.join();
+        jobs.remove(job);
+    }
+
+    public List<Job> getJobs() {
+        return jobs;
+    }
+
+    /**
+     * Runs a job over count items and returns when all of them are done.
+     */
+    public void run(Job job, int count) {
+        submit(job, count);
+        job.join();
+    }
+
+    /**
+     * Starts a job over count items, {@link Job#join()} must be called before its results are read.
+     */
+    public void submit(Job job, int count) {
+        job.join();
+        job.submitted = System.nanoTime();
+        ForkJoinPool p = pool;
+        if (p == null || count <= job.grain) {
+            // not worth a hand off to the pool
+            if (count > 0) job.runRange(0, count);
+            job.wallNanos.add(System.nanoTime() - job.submitted);
+            job.runs.increment();
+            return;
+        }
+        job.pending = p.submit(job.rootTask(count));
+    }
+
+    public int getThreads() {
+        return pool == null ? 0 : threads;
+    }
+}
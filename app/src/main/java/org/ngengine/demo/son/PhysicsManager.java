@@ -31,23 +31,118 @@
  */
 package org.ngengine.demo.son;
 
+import com.bulletphysics.collision.broadphase.Dispatcher;
+import com.bulletphysics.collision.dispatch.CollisionObject;
+import com.bulletphysics.dynamics.DynamicsWorld;
+import com.bulletphysics.dynamics.RigidBody;
+import com.bulletphysics.util.ObjectArrayList;
 import com.jme3.app.Application;
 import com.jme3.bullet.BulletAppState;
+import com.jme3.bullet.PhysicsSpace;
+import com.jme3.bullet.PhysicsTickListener;
+import com.jme3.math.Vector3f;
+import java.util.logging.Logger;
 import org.ngengine.components.Component;
 import org.ngengine.components.ComponentManager;
 import org.ngengine.components.fragments.AppFragment;
+import org.ngengine.demo.son.packets.WireFormat;
+import org.ngengine.demo.son.perf.PerfStats;
+import org.ngengine.demo.son.perf.QualityPreset;
 import org.ngengine.runner.Runner;
 import org.ngengine.store.DataStoreProvider;
 
 public class PhysicsManager implements Component<Object>, AppFragment {
 
+    private static final Logger log = Logger.getLogger(PhysicsManager.class.getName());
+
     private Application app;
     private BulletAppState physics;
+    private BulletAppState.ThreadingType threadingType = BulletAppState.ThreadingType.SEQUENTIAL;
+    private PhysicsSpace.BroadphaseType broadphaseType = PhysicsSpace.BroadphaseType.AXIS_SWEEP_3;
+    // the sweep and prune broadphase needs the world to be bounded, the boats are kept in the play area
+    private final Vector3f worldMin = new Vector3f(
+        -WireFormat.PLAY_AREA_HALF_SIZE,
+        WireFormat.PLAY_AREA_MIN_Y,
+        -WireFormat.PLAY_AREA_HALF_SIZE
+    );
+    private final Vector3f worldMax = new Vector3f(
+        WireFormat.PLAY_AREA_HALF_SIZE,
+        WireFormat.PLAY_AREA_MAX_Y,
+        WireFormat.PLAY_AREA_HALF_SIZE
+    );
+    private int stepRate = 60;
+    private int maxSubSteps = 4;
+    private volatile float linearSleepingThreshold = 0.8f;
+    private volatile float angularSleepingThreshold = 1f;
+    private volatile boolean sleepingThresholdsChanged = false;
+
+    private final PhysicsTickListener tickTimer = new PhysicsTickListener() {
+        private long start;
+        private int knownObjects = -1;
+
+        @Override
+        public void prePhysicsTick(PhysicsSpace space, float timeStep) {
+            start = PerfStats.begin();
+            DynamicsWorld world = space.getDynamicsWorld();
+            if (world.getNumCollisionObjects() != knownObjects || sleepingThresholdsChanged) {
+                // bodies were added or removed, give the new ones the configured thresholds
+                knownObjects = world.getNumCollisionObjects();
+                sleepingThresholdsChanged = false;
+                applySleepingThresholds(world);
+            }
+        }
+
+        @Override
+        public void physicsTick(PhysicsSpace space, float timeStep) {
+            PerfStats.end(PerfStats.Section.PHYSICS, start);
+            DynamicsWorld world = space.getDynamicsWorld();
+
+            int active = 0;
+            ObjectArrayList<CollisionObject> objects = world.getCollisionObjectArray();
+            for (int i = 0; i < objects.size(); i++) {
+                CollisionObject obj = objects.getQuick(i);
+                if (!obj.isStaticOrKinematicObject() && obj.isActive()) active++;
+            }
+
+            int contacts = 0;
+            Dispatcher dispatcher = world.getDispatcher();
+            for (int i = 0; i < dispatcher.getNumManifolds(); i++) {
+                contacts += dispatcher.getManifoldByIndexInternal(i).getNumContacts();
+            }
+            PerfStats.countPhysicsStep(active, contacts);
+        }
+    };
+
+    public PhysicsManager() {}
+
+    public PhysicsManager(QualityPreset quality) {
+        this.stepRate = quality.getPhysicsStepRate();
+        this.maxSubSteps = quality.getMaxPhysicsSubSteps();
+    }
 
     @Override
     public void onEnable(ComponentManager mng, Runner runner, DataStoreProvider dataStore, boolean firstTime, Object arg) {
-        physics = new BulletAppState();
+        physics = new BulletAppState(worldMin, worldMax, broadphaseType);
+        physics.setThreadingType(threadingType);
         app.getStateManager().attach(physics);
+        PhysicsSpace space = physics.getPhysicsSpace();
+        space.setAccuracy(1f / stepRate);
+        space.setMaxSubSteps(maxSubSteps);
+        space.addTickListener(tickTimer);
+        log.info(
+            "Physics " +
+            threadingType +
+            ", " +
+            broadphaseType +
+            ", " +
+            stepRate +
+            " Hz, max " +
+            maxSubSteps +
+            " sub steps, world " +
+            worldMin +
+            " " +
+            worldMax
+        );
     }
 
     @Override
@@ -58,6 +153,84 @@ public class PhysicsManager implements Component<Object>, AppFragment {
         }
     }
 
+    /**
+     * Selects how Bullet is stepped, applied the next time the physics is enabled. In PARALLEL mode the
+     * physics step runs on its own thread while the frame is rendered, tick listeners must not touch the
+     * scene graph.
+     */
+    public void setThreadingType(BulletAppState.ThreadingType threadingType) {
+        this.threadingType = threadingType;
+    }
+
+    public BulletAppState.ThreadingType getThreadingType() {
+        return threadingType;
+    }
+
+    /**
+     * Selects the broadphase, applied the next time the physics is enabled. AXIS_SWEEP_3 is the fastest for
+     * a bounded world but bodies leaving the bounds stop colliding, see {@link #setWorldBounds}.
+     */
+    public void setBroadphaseType(PhysicsSpace.BroadphaseType broadphaseType) {
+        this.broadphaseType = broadphaseType;
+    }
+
+    public PhysicsSpace.BroadphaseType getBroadphaseType() {
+        return broadphaseType;
+    }
+
+    /**
+     * Sets the bounds of the broadphase, applied the next time the physics is enabled.
+     */
+    public void setWorldBounds(Vector3f min, Vector3f max) {
+        worldMin.set(min);
+        worldMax.set(max);
+    }
+
+    /**
+     * Sets the fixed step of the simulation, in steps per second.
+     */
+    public void setStepRate(int stepRate) {
+        this.stepRate = Math.max(1, stepRate);
+        if (physics != null) physics.getPhysicsSpace().setAccuracy(1f / this.stepRate);
+    }
+
+    public int getStepRate() {
+        return stepRate;
+    }
+
+    /**
+     * Sets the maximum number of steps done in a single frame, the simulation falls behind real time on
+     * slower frames instead of taking even longer to catch up.
+     */
+    public void setMaxSubSteps(int maxSubSteps) {
+        this.maxSubSteps = Math.max(1, maxSubSteps);
+        if (physics != null) physics.getPhysicsSpace().setMaxSubSteps(this.maxSubSteps);
+    }
+
+    public int getMaxSubSteps() {
+        return maxSubSteps;
+    }
+
+    /**
+     * Sets the velocities under which a dynamic body is put to sleep, applied to every body in the space.
+     */
+    public void setSleepingThresholds(float linear, float angular) {
+        this.linearSleepingThreshold = linear;
+        this.angularSleepingThreshold = angular;
+        // applied on the physics thread by the next tick
+        this.sleepingThresholdsChanged = true;
+    }
+
+    private void applySleepingThresholds(DynamicsWorld world) {
+        ObjectArrayList<CollisionObject> objects = world.getCollisionObjectArray();
+        for (int i = 0; i < objects.size(); i++) {
+            CollisionObject obj = objects.getQuick(i);
+            if (obj instanceof RigidBody) {
+                ((RigidBody) obj).setSleepingThresholds(linearSleepingThreshold, angularSleepingThreshold);
+            }
+        }
+    }
+
     public BulletAppState getPhysics() {
         return physics;
     }
@@ -61,7 +61,10 @@ import com.jme3.texture.Texture2D;
 import com.simsilica.lemur.HAlignment;
 import com.simsilica.lemur.VAlignment;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -73,10 +76,27 @@ import org.ngengine.components.fragments.AssetLoadingFragment;
 import org.ngengine.components.fragments.InputHandlerFragment;
 import org.ngengine.components.fragments.LogicFragment;
 import org.ngengine.components.fragments.MainViewPortFragment;
+import org.ngengine.demo.son.combat.ProjectileSystem;
 import org.ngengine.demo.son.controls.BoatAnimationControl;
 import org.ngengine.demo.son.controls.BoatControl;
+import org.ngengine.demo.son.controls.BoatLodControl;
+import org.ngengine.demo.son.controls.BoatSystem;
+import org.ngengine.demo.son.controls.BuoyancyControl;
 import org.ngengine.demo.son.controls.NetworkControl;
+import org.ngengine.demo.son.controls.RemoteBoatProxies;
+import org.ngengine.demo.son.controls.UpdateTierScheduler;
+import org.ngengine.demo.son.fx.ParticleManager;
 import org.ngengine.demo.son.ocean.OceanAppState;
+import org.ngengine.demo.son.packets.AckPacket;
+import org.ngengine.demo.son.packets.EncodedPacket;
+import org.ngengine.demo.son.packets.PacketDecoder;
+import org.ngengine.demo.son.packets.PacketEncoder;
+import org.ngengine.demo.son.packets.ShotPacket;
+import org.ngengine.demo.son.perf.PerfOverlay;
+import org.ngengine.demo.son.perf.PerfStats;
+import org.ngengine.demo.son.utils.FixedStepClock;
+import org.ngengine.demo.son.utils.LodBaker;
+import org.ngengine.demo.son.utils.SailTextureAtlas;
 import org.ngengine.gui.components.NLabel;
 import org.ngengine.gui.win.NWindowManagerComponent;
 import org.ngengine.gui.win.std.NHud;
@@ -87,6 +107,7 @@ import org.ngengine.nostr4j.rtc.signal.NostrRTCAnnounce;
 import org.ngengine.player.Player;
 import org.ngengine.player.PlayerManagerComponent;
 import org.ngengine.runner.Runner;
+import org.ngengine.store.DataStore;
 import org.ngengine.store.DataStoreProvider;
 
 public class PlayGameState
@@ -104,12 +125,55 @@ public class PlayGameState
 
     private P2PChannel chan;
     private Map<HostedConnection, Spatial> remoteBoats = new HashMap<>();
+    // connections that are still open, a boat that finishes loading after its peer left is dropped
+    private final Set<HostedConnection> liveConnections = new HashSet<>();
     private volatile Spatial localBoat;
     private NHud hud;
     private ComponentManager componentManager;
 
+    private static final String BOAT_MODEL = "Models/boat/boat.gltf";
+    private static final int SAIL_SLOT_SIZE = 256;
+    private static final int SAIL_SLOTS = 32;
+
+    private final SailTextureAtlas sailAtlas = new SailTextureAtlas(SAIL_SLOT_SIZE, SAIL_SLOTS);
+    // player of each boat being loaded, handed from the loader thread to the render thread
+    private final Map<Spatial, Player> avatars = new ConcurrentHashMap<>();
+    private final UpdateTierScheduler updateTiers = new UpdateTierScheduler();
+    // remote boats stay out of the physics space unless they are near the local boat,
+    // -Dremoteboats.fullphysics=true gives every remote boat a body as before
+    private final boolean remoteBoatProxies = !Boolean.getBoolean("remoteboats.fullphysics");
+    private final RemoteBoatProxies remoteProxies = new RemoteBoatProxies();
+    private final BoatSystem boatSystem = new BoatSystem();
+    // id of the local boat in the projectile system, remote boats use their connection id
+    private static final int LOCAL_SHOOTER = -1;
+    private final ProjectileSystem projectiles = new ProjectileSystem(1024, 64f);
+    // packets are encoded on the logic thread, shots once with the same bytes sent to all peers
+    private final PacketEncoder packetEncoder = new PacketEncoder();
+    // received packets are decoded on the logic thread, into one reused instance per packet type
+    private final PacketDecoder packetDecoder = new PacketDecoder();
+    private ProjectileSystem.WaterHeights waterHeights;
+    private final ProjectileSystem.Listener shotListener = new ProjectileSystem.Listener() {
+        @Override
+        public void onHit(int shooter, Spatial target, float x, float y, float z) {
+            if (log.isLoggable(Level.FINE)) log.fine("Boat " + target.getName() + " hit by " + shooter);
+            // the splash does not keep the position, so the shot scratch vector can be reused
+            componentManager.getComponent(ParticleManager.class).emitSplash(tmpShotPosition.set(x, y, z), 4f);
+        }
+
+        @Override
+        public void onWaterImpact(int shooter, float x, float y, float z) {
+            componentManager.getComponent(ParticleManager.class).emitSplash(tmpShotPosition.set(x, y, z), 2f);
+        }
+    };
+    // game logic and network ticks run at a fixed rate, -Dsimulation.rate=30 halves the cost on slow machines
+    private final FixedStepClock simulationClock = new FixedStepClock(Integer.getInteger("simulation.rate", 60), 5);
+    private final Vector3f tmpShotPosition = new Vector3f();
     private NLabel hudSpeed;
+    private final PerfOverlay perfOverlay = new PerfOverlay();
+    private static final float HUD_REFRESH_INTERVAL = 0.2f;
+    private float sinceHudRefresh = 0;
     private Runner runner;
+    private DataStore lodStore;
     private AssetManager assetManager;
     private ViewPort viewPort;
     private InputManager inputManager;
@@ -144,6 +208,11 @@ public class PlayGameState
     ) {
         mng.enableComponent(OceanAppState.class, chan);
         mng.enableComponent(PhysicsManager.class, chan);
+        mng.enableComponent(ParticleManager.class, chan);
+    }
+
+    public UpdateTierScheduler getUpdateTiers() {
+        return updateTiers;
     }
 
     public void reloadHud() {
@@ -166,10 +235,11 @@ public class PlayGameState
                 hud.getTopRight().addChild(hudSpeed);
 
                 NLabel instructions = new NLabel(
-                    "Use W/S to accelerate/decelerate, A/D to steer and the mouse to look around.\n"
-                        + "Press ESC to quit the game."
+                    "Use W/S to accelerate/decelerate, A/D to steer, SPACE to fire and the mouse to look around.\n"
+                        + "Press F3 to toggle the performance overlay, ESC to quit the game."
                 );
                 hud.getTopLeft().addChild(instructions);
+                perfOverlay.attach(hud);
             }
         );
     }
@@ -184,8 +254,14 @@ public class PlayGameState
     ) {
         try {
             this.runner = runner;
+            this.lodStore = dataStoreProvider.getDataStore("lods");
             this.componentManager = mng;
             this.chan = chan;
+            FrameJobs jobs = mng.getComponent(FrameJobs.class);
+            boatSystem.setJobs(jobs);
+            perfOverlay.setFrameJobs(jobs);
+            OceanAppState ocean = mng.getComponent(OceanAppState.class);
+            waterHeights = ocean::getWaterHeights;
             DevMode.registerReloadCallback(
                 this,
                 () -> {
@@ -210,11 +286,23 @@ public class PlayGameState
         try {
             if (localBoat != null) {
                 localBoat.removeFromParent();
+                releaseSailSlot(localBoat);
+                updateTiers.remove(localBoat);
             }
             chan.removeConnectionListener(this);
             chan.removeMessageListener(this);
             chan.removeDiscoveryListener(this);
+            for (Spatial boat : remoteBoats.values()) {
+                releaseSailSlot(boat);
+                updateTiers.remove(boat);
+            }
             remoteBoats.clear();
+            liveConnections.clear();
+            remoteProxies.clear();
+            boatSystem.clear();
+            boatSystem.setJobs(null);
+            projectiles.clear();
+            simulationClock.reset();
             if (hud != null) {
                 hud.close();
                 hud = null;
@@ -233,23 +321,89 @@ public class PlayGameState
                 reloadHud();
             }
 
+            long perfStart = PerfStats.begin();
+            boatSystem.update(viewPort.getCamera(), tpf);
+            PerfStats.end(PerfStats.Section.BOATS, perfStart);
+            updateTiers.update(viewPort.getCamera(), tpf);
+
+            int steps = simulationClock.advance(tpf);
+            for (int i = 0; i < steps; i++) {
+                simulate(simulationClock.getStepTime());
+            }
+            renderProjectiles();
+
             if (localBoat != null) {
                 BoatControl boatControl = localBoat.getControl(BoatControl.class);
-                NetworkControl boatNetControl = localBoat.getControl(NetworkControl.class);
-                if (boatNetControl == null) {
-                    boatNetControl = new NetworkControl(assetManager);
-                    localBoat.addControl(boatNetControl);
+                sinceHudRefresh += tpf;
+                if (hudSpeed != null && sinceHudRefresh >= HUD_REFRESH_INTERVAL) {
+                    sinceHudRefresh = 0;
+                    float speed = boatControl.getLinearVelocity().length();
+                    hudSpeed.setText(String.format("Speed: %.2f km/h", speed * 3.6f));
                 }
-                boatNetControl.sendUpdatePackets(remoteBoats.entrySet());
-
-                float speed = boatControl.getLinearVelocity().length();
-                hudSpeed.setText(String.format("Speed: %.2f km/h", speed * 3.6f));
             }
+            perfOverlay.update(tpf);
         } catch (Exception e) {
             log.log(Level.SEVERE, "Error updating GameAppState", e);
         }
     }
 
+    /**
+     * Runs one fixed step of game logic and network updates.
+     */
+    private void simulate(float stepTime) {
+        updateProjectiles(stepTime);
+        if (localBoat == null) return;
+
+        remoteProxies.update(localBoat.getWorldTranslation());
+        localBoat.getControl(BoatControl.class).simulate(stepTime);
+        NetworkControl boatNetControl = localBoat.getControl(NetworkControl.class);
+        if (boatNetControl == null) {
+            boatNetControl = new NetworkControl(componentManager.getComponent(ParticleManager.class), packetEncoder);
+            localBoat.addControl(boatNetControl);
+        }
+        boatNetControl.sendUpdatePackets(remoteBoats.entrySet());
+
+        for (Map.Entry<HostedConnection, Spatial> e : remoteBoats.entrySet()) {
+            NetworkControl remoteNetControl = e.getValue().getControl(NetworkControl.class);
+            if (remoteNetControl != null) {
+                remoteNetControl.sendAck(e.getKey());
+            }
+        }
+    }
+
+    private void updateProjectiles(float stepTime) {
+        long perfStart = PerfStats.begin();
+        projectiles.update(stepTime, waterHeights, shotListener);
+
+        // every shot fired during this step goes out in a single packet
+        ShotPacket shots = projectiles.pollOutgoing();
+        if (shots != null) {
+            EncodedPacket out = packetEncoder.encode(shots);
+            for (HostedConnection conn : remoteBoats.keySet()) {
+                try {
+                    conn.send(out);
+                    PerfStats.countSent(conn, out.getSize());
+                } catch (Exception e) {
+                    log.log(Level.WARNING, "Error sending shots to connection " + conn.getId(), e);
+                }
+            }
+        }
+        PerfStats.end(PerfStats.Section.PROJECTILES, perfStart);
+    }
+
+    /**
+     * Draws the smoke trails between the last two simulation steps, so shots move smoothly at any frame rate.
+     */
+    private void renderProjectiles() {
+        if (projectiles.getAliveCount() == 0) return;
+        float lag = (1f - simulationClock.getAlpha()) * simulationClock.getStepTime();
+        ParticleManager particles = componentManager.getComponent(ParticleManager.class);
+        for (int i = 0; i < projectiles.getAliveCount(); i++) {
+            Vector3f pos = projectiles.getPosition(i, lag, tmpShotPosition);
+            particles.emitSmoke(pos.x, pos.y, pos.z);
+        }
+    }
+
     @Override
     public void onRoomPeerDiscovered(NostrPublicKey peerKey, NostrRTCAnnounce announce, NostrRTCRoomPeerDiscoveredState state) {
         log.info("Peer discovered: " + peerKey + " with announce: " + announce);
@@ -258,32 +412,108 @@ public class PlayGameState
     @Override
     public void messageReceived(HostedConnection source, Message m) {
         this.runner.run(() -> {
+                long perfStart = PerfStats.begin();
                 try {
-                    Spatial boat = remoteBoats.get(source);
-                    if (boat == null) throw new IllegalStateException("Boat not found for source: " + source.getId());
-                    NetworkControl boatNetControl = boat.getControl(NetworkControl.class);
-                    if (boatNetControl == null) {
-                        boatNetControl = new NetworkControl(assetManager);
-                        boat.addControl(boatNetControl);
+                    PerfStats.countReceived(source, NetworkControl.getEstimatedSize(m));
+                    Message packet = m instanceof EncodedPacket ? packetDecoder.decode((EncodedPacket) m) : m;
+                    if (packet instanceof ShotPacket) {
+                        Spatial boat = localBoat;
+                        NetworkControl boatNetControl = boat != null ? boat.getControl(NetworkControl.class) : null;
+                        float latency = boatNetControl != null ? boatNetControl.getLatency(source) : 0f;
+                        projectiles.fire(source.getId(), (ShotPacket) packet, latency);
+                    } else if (packet instanceof AckPacket) {
+                        Spatial boat = localBoat;
+                        NetworkControl boatNetControl = boat != null ? boat.getControl(NetworkControl.class) : null;
+                        if (boatNetControl != null) {
+                            boatNetControl.applyAck(source, (AckPacket) packet);
+                        }
+                    } else {
+                        Spatial boat = remoteBoats.get(source);
+                        if (boat == null) throw new IllegalStateException("Boat not found for source: " + source.getId());
+                        NetworkControl boatNetControl = boat.getControl(NetworkControl.class);
+                        if (boatNetControl == null) {
+                            boatNetControl = new NetworkControl(
+                                componentManager.getComponent(ParticleManager.class),
+                                packetEncoder
+                            );
+                            boatNetControl.setBoatSystem(boatSystem);
+                            boat.addControl(boatNetControl);
+                        }
+                        if (!boatNetControl.applyPacket(packet)) {
+                            PerfStats.countDropped(source);
+                        }
                     }
-                    boatNetControl.applyPacket(m);
                 } catch (Exception e) {
                     log.log(Level.WARNING, "Error processing message from connection " + source.getId(), e);
                 }
+                PerfStats.end(PerfStats.Section.NET_RECEIVE, perfStart);
             });
     }
 
     @Override
     public void connectionAdded(Server server, HostedConnection conn) {
         log.info("New connection: " + conn.getId());
-        spawnBoat(conn);
+        this.runner.run(() -> {
+                liveConnections.add(conn);
+                spawnBoat(conn);
+            });
     }
 
     @Override
     public void connectionRemoved(Server server, HostedConnection conn) {
         log.info("Connection removed: " + conn.getId());
-        Spatial boat = remoteBoats.remove(conn);
-        if (boat != null) boat.removeFromParent();
+        this.runner.run(() -> {
+                liveConnections.remove(conn);
+                Spatial boat = remoteBoats.remove(conn);
+                PerfStats.removePeer(conn);
+                if (boat != null) {
+                    boat.removeFromParent();
+                    releaseSailSlot(boat);
+                    updateTiers.remove(boat);
+                    remoteProxies.remove(boat);
+                    BoatControl body = boat.getControl(BoatControl.class);
+                    if (body != null && body.getPhysicsSpace() != null) {
+                        body.getPhysicsSpace().remove(body);
+                    }
+                    OceanAppState ocean = componentManager.getComponent(OceanAppState.class);
+                    if (ocean != null) ocean.remove(boat);
+                    boatSystem.remove(boat);
+                    projectiles.removeTarget(boat);
+                }
+            });
+    }
+
+    private void releaseSailSlot(Spatial boat) {
+        Integer slot = boat.getUserData("sailSlot");
+        if (slot != null) {
+            sailAtlas.release(slot);
+            boat.setUserData("sailSlot", null);
+        }
+    }
+
+    /**
+     * Packs the avatar of the player in the sail atlas and maps the sails and the flag to it. Runs on the render
+     * thread, since the atlas image is shared with the renderer.
+     */
+    private void applySailTexture(Spatial playerSpatial, Player player) {
+        Texture2D image = player != null ? player.getImage() : null;
+        int slot = SailTextureAtlas.NO_SLOT;
+        if (image != null) {
+            // the same avatar loaded twice must share a slot, so key by asset when there is one
+            Object key = image.getKey() != null ? image.getKey() : player;
+            slot = sailAtlas.acquire(key, image);
+        }
+        playerSpatial.setUserData("sailSlot", slot);
+
+        final int sailSlot = slot;
+        Consumer<Spatial> applyPlayerTexture = flag -> {
+            if (flag == null) return;
+            log.info("Found flag model in boat: " + flag.getName());
+            sailAtlas.apply(flag, sailSlot);
+        };
+        applyPlayerTexture.accept(((Node) playerSpatial).getChild("sail"));
+        applyPlayerTexture.accept(((Node) playerSpatial).getChild("sail2"));
+        applyPlayerTexture.accept(((Node) playerSpatial).getChild("flag"));
     }
 
     public void spawnBoat(HostedConnection conn) {
@@ -292,12 +522,14 @@ public class PlayGameState
         PhysicsManager physics = componentManager.getComponent(PhysicsManager.class);
 
         boolean isRemote = conn != null;
+        boolean proxy = isRemote && remoteBoatProxies;
         AsyncAssetManager assetManager = (AsyncAssetManager) this.assetManager;
 
         Node rootNode = getRootNode(viewPort);
         assetManager.runInLoaderThread(
             t -> {
-                Node playerSpatial = (Node) assetManager.loadModel("Models/boat/boat.gltf");
+                Node playerSpatial = (Node) assetManager.loadModel(BOAT_MODEL);
+                LodBaker.bake(playerSpatial, assetManager, BOAT_MODEL, lodStore);
                 playerSpatial.addControl(new BoatAnimationControl());
 
                 playerSpatial.depthFirstTraversal(sx -> {
@@ -315,35 +547,17 @@ public class PlayGameState
                 });
                 playerSpatial.setShadowMode(ShadowMode.CastAndReceive);
 
-                Consumer<Spatial> applyPlayerTexture = flag -> {
-                    if (flag == null) return;
-                    log.info("Found flag model in boat: " + flag.getName());
-                    Player player = null;
-                    if (conn != null) {
-                        player = playerManager.getPlayer(conn);
-                    } else {
-                        player = playerManager.getPlayer(chan);
-                    }
-
-                    Texture2D image = player.getImage();
-                    if (image != null) {
-                        flag.depthFirstTraversal(sx -> {
-                            if (sx instanceof Geometry) {
-                                Material mat = ((Geometry) sx).getMaterial();
-                                mat.setTexture("BaseColorMap", image);
-                            }
-                        });
-                    }
-                };
-
-                Spatial sail = playerSpatial.getChild("sail");
-                applyPlayerTexture.accept(sail);
+                Player player = null;
+                if (conn != null) {
+                    player = playerManager.getPlayer(conn);
+                } else {
+                    player = playerManager.getPlayer(chan);
+                }
 
-                Spatial sail2 = playerSpatial.getChild("sail2");
-                applyPlayerTexture.accept(sail2);
+                // the avatar goes in the shared atlas on the render thread, once the boat is loaded
+                avatars.put(playerSpatial, player);
 
-                Spatial flag = playerSpatial.getChild("flag");
-                applyPlayerTexture.accept(flag);
+                playerSpatial.addControl(new BoatLodControl(viewPort.getCamera()));
 
                 // BiConsumer<Spatial, Vector3f> applyPlayerColor = (boat, hsv) -> {
                 // boat.depthFirstTraversal(sx -> {
@@ -358,12 +572,18 @@ public class PlayGameState
                 Spatial boat = playerSpatial.getChild("boat");
                 // applyPlayerColor.accept(boat, new Vector3f(0,0,0));
 
+                Vector3f pos = new Vector3f(0, 0, 0);
+                pos.y = ocean.getWaterHeightAt(pos.x, pos.z);
+                if (proxy) {
+                    // visual only, the pose comes from the network
+                    playerSpatial.setLocalTranslation(pos);
+                    return playerSpatial;
+                }
+
                 BoatControl playerPhysics = new BoatControl(isRemote, 100f);
 
                 // RigidBodyControl playerPhysics = new RigidBodyControl(100f);
                 playerSpatial.addControl(playerPhysics);
-                Vector3f pos = new Vector3f(0, 0, 0);
-                pos.y = ocean.getWaterHeightAt(pos.x, pos.z);
                 playerPhysics.setPhysicsLocation(pos);
                 return playerSpatial;
             },
@@ -372,37 +592,67 @@ public class PlayGameState
                     log.log(Level.SEVERE, "Error loading boat model", err);
                     return;
                 }
-                log.info("Spawned " + (isRemote ? "remote" : "local") + " boat: " + playerSpatial.getName());
-
-                physics.getPhysics().getPhysicsSpace().add(playerSpatial);
-                ocean.add(playerSpatial);
-                rootNode.attachChild(playerSpatial);
-                if (!isRemote) {
-                    Camera cam = viewPort.getCamera();
-                    inputManager.addMapping("Forward", new KeyTrigger(KeyInput.KEY_W));
-                    inputManager.addMapping("Backward", new KeyTrigger(KeyInput.KEY_S));
-                    inputManager.addMapping("SteerLeft", new KeyTrigger(KeyInput.KEY_A));
-                    inputManager.addMapping("SteerRight", new KeyTrigger(KeyInput.KEY_D));
-
-                    BoatControl playerPhysics = playerSpatial.getControl(BoatControl.class);
-                    inputManager.addListener(playerPhysics, "Forward", "Backward", "SteerLeft", "SteerRight");
-
-                    ChaseCamera chaseCam = new ChaseCamera(cam, playerSpatial, inputManager);
-                    chaseCam.setSmoothMotion(false);
-                    chaseCam.setDefaultDistance(200f);
-                    chaseCam.setMinDistance(100f);
-                    chaseCam.setMaxDistance(400f);
-                    chaseCam.setTrailingEnabled(false);
-                    chaseCam.setMinVerticalRotation(0.2f);
-
-                    chaseCam.setDragToRotate(false);
-
-                    chaseCam.setUpVector(Vector3f.UNIT_Y);
-                    chaseCam.setSpatial(playerSpatial);
-                    localBoat = playerSpatial;
-                } else {
-                    remoteBoats.put(conn, playerSpatial);
-                }
+                this.runner.run(() -> {
+                        if (isRemote && !liveConnections.contains(conn)) {
+                            // the peer left while its boat was loading
+                            avatars.remove(playerSpatial);
+                            return;
+                        }
+                        log.info("Spawned " + (isRemote ? "remote" : "local") + " boat: " + playerSpatial.getName());
+                        applySailTexture(playerSpatial, avatars.remove(playerSpatial));
+
+                        if (proxy) {
+                            remoteProxies.setPhysicsSpace(physics.getPhysics().getPhysicsSpace());
+                            remoteProxies.add(playerSpatial);
+                            ocean.add(playerSpatial, false);
+                        } else {
+                            physics.getPhysics().getPhysicsSpace().add(playerSpatial);
+                            ocean.add(playerSpatial);
+                        }
+                        BuoyancyControl buoyancy = playerSpatial.getControl(BuoyancyControl.class);
+                        if (buoyancy != null) {
+                            buoyancy.setParticleManager(componentManager.getComponent(ParticleManager.class));
+                        }
+                        updateTiers.add(playerSpatial, !isRemote);
+                        projectiles.addTarget(playerSpatial, isRemote ? conn.getId() : LOCAL_SHOOTER);
+                        boatSystem.add(playerSpatial, !isRemote);
+                        rootNode.attachChild(playerSpatial);
+                        if (!isRemote) {
+                            Camera cam = viewPort.getCamera();
+                            inputManager.addMapping("Forward", new KeyTrigger(KeyInput.KEY_W));
+                            inputManager.addMapping("Backward", new KeyTrigger(KeyInput.KEY_S));
+                            inputManager.addMapping("SteerLeft", new KeyTrigger(KeyInput.KEY_A));
+                            inputManager.addMapping("SteerRight", new KeyTrigger(KeyInput.KEY_D));
+                            inputManager.addMapping("Fire", new KeyTrigger(KeyInput.KEY_SPACE));
+
+                            BoatControl playerPhysics = playerSpatial.getControl(BoatControl.class);
+                            playerPhysics.setProjectileSystem(projectiles, LOCAL_SHOOTER);
+                            inputManager.addListener(
+                                playerPhysics,
+                                "Forward",
+                                "Backward",
+                                "SteerLeft",
+                                "SteerRight",
+                                "Fire"
+                            );
+
+                            ChaseCamera chaseCam = new ChaseCamera(cam, playerSpatial, inputManager);
+                            chaseCam.setSmoothMotion(false);
+                            chaseCam.setDefaultDistance(200f);
+                            chaseCam.setMinDistance(100f);
+                            chaseCam.setMaxDistance(400f);
+                            chaseCam.setTrailingEnabled(false);
+                            chaseCam.setMinVerticalRotation(0.2f);
+
+                            chaseCam.setDragToRotate(false);
+
+                            chaseCam.setUpVector(Vector3f.UNIT_Y);
+                            chaseCam.setSpatial(playerSpatial);
+                            localBoat = playerSpatial;
+                        } else {
+                            remoteBoats.put(conn, playerSpatial);
+                        }
+                    });
             }
         );
     }
@@ -415,7 +665,11 @@ public class PlayGameState
 
     public void onMouseButtonEvent(MouseButtonEvent evt) {}
 
-    public void onKeyEvent(KeyInputEvent evt) {}
+    public void onKeyEvent(KeyInputEvent evt) {
+        if (evt.isPressed() && !evt.isRepeating() && evt.getKeyCode() == KeyInput.KEY_F3) {
+            perfOverlay.toggle();
+        }
+    }
 
     @Override
     public void updateMainViewPort(ViewPort viewPort, float tpf) {}
@@ -31,11 +31,17 @@
  */
 package org.ngengine.demo.son;
 
+import com.jme3.bullet.BulletAppState;
 import com.jme3.system.AppSettings;
 import org.ngengine.NGEApplication;
 import org.ngengine.components.ComponentManager;
+import org.ngengine.demo.son.fx.ParticleManager;
 import org.ngengine.demo.son.ocean.OceanAppState;
+import org.ngengine.demo.son.perf.FrameTimeGovernor;
+import org.ngengine.demo.son.perf.HardwareProbe;
+import org.ngengine.demo.son.perf.QualityPreset;
 import org.ngengine.gui.win.NWindowManagerComponent;
+import org.ngengine.platform.NGEPlatform;
 import org.ngengine.player.PlayerManagerComponent;
 
 public class SonGame {
@@ -43,35 +49,51 @@ public class SonGame {
     // mac needs to start with -XstartOnFirstThread -Djava.awt.headless=true
     public static void main(String[] args) throws InterruptedException {
         AppSettings settings = new AppSettings(true);
+        settings.setTitle("Nostr Game Engine Demo");
         settings.setRenderer(AppSettings.LWJGL_OPENGL32);
         settings.setWidth(1280);
         settings.setHeight(720);
         settings.setGammaCorrection(true);
-        settings.setSamples(4);
+        QualityPreset quality = HardwareProbe.loadOrProbe(NGEPlatform.get().getDataStore(settings.getTitle(), "quality"));
+        settings.setSamples(quality.getSamples());
         settings.setStencilBits(8);
         settings.setDepthBits(24);
-        settings.setVSync(true);
+        // the frame cap is independent from vsync: -Drender.vsync=false -Drender.maxfps=0 renders uncapped,
+        // the simulation runs at its own fixed rate either way
+        settings.setVSync(!"false".equals(System.getProperty("render.vsync")));
+        settings.setFrameRate(Integer.getInteger("render.maxfps", -1));
         settings.setGraphicsDebug(false);
-        settings.setTitle("Nostr Game Engine Demo");
 
         Runnable appBuilder = NGEApplication.createApp(
             settings,
             app -> {
                 ComponentManager mng = app.getComponentManager();
-                mng.addAndEnableComponent(new BaseEnvironment());
+                mng.addAndEnableComponent(new BaseEnvironment(quality));
                 mng.addAndEnableComponent(new NWindowManagerComponent());
                 mng.addAndEnableComponent(new PlayerManagerComponent());
-                mng.addAndEnableComponent(new PhysicsManager());
+                // -Dframejobs.threads=0 runs the frame jobs on the calling thread
+                mng.addAndEnableComponent(
+                    new FrameJobs(Integer.getInteger("framejobs.threads", Runtime.getRuntime().availableProcessors() - 1))
+                );
+                PhysicsManager physics = new PhysicsManager(quality);
+                if (Boolean.getBoolean("physics.parallel")) {
+                    // step Bullet on its own thread while the frame is rendered
+                    physics.setThreadingType(BulletAppState.ThreadingType.PARALLEL);
+                }
+                mng.addAndEnableComponent(physics);
                 mng.addAndEnableComponent(new LoadingGameState());
 
-                mng.addComponent(new OceanAppState());
+                mng.addComponent(new OceanAppState(quality));
+                mng.addComponent(new ParticleManager());
                 mng.addComponent(new LobbyGameState(), NWindowManagerComponent.class, PlayerManagerComponent.class);
                 mng.addComponent(
                     new PlayGameState(),
                     NWindowManagerComponent.class,
                     PlayerManagerComponent.class,
                     OceanAppState.class,
-                    PhysicsManager.class
+                    PhysicsManager.class,
+                    ParticleManager.class,
+                    FrameJobs.class
                 );
                 mng.addComponent(
                     new HelloGameState(),
@@ -80,6 +102,8 @@ public class SonGame {
                     PlayerManagerComponent.class
                 );
 
+                mng.addAndEnableComponent(new FrameTimeGovernor());
+
                 mng.enableComponent(HelloGameState.class);
             }
         );
@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) 2025, Nostr Game Engine
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * Nostr Game Engine is a fork of the jMonkeyEngine, which is licensed under
+ * the BSD 3-Clause License. The original jMonkeyEngine license is as follows:
+ */
+package org.ngengine.demo.son.anim;
+
+import com.jme3.anim.AnimComposer;
+import com.jme3.anim.AnimLayer;
+import com.jme3.anim.tween.action.Action;
+import com.jme3.anim.tween.action.BaseAction;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A clip played on a layer of every composer found under a model, resolved once and driven through
+ * primitive steps. Activating an already active binding is only an identity check per composer.
+ */
+public class AnimBinding extends AnimGroupController {
+
+    private final String anim;
+    private final String layer;
+    private final List<AnimComposer> composers = new ArrayList<>();
+    private final List<AnimLayer> layers = new ArrayList<>();
+    private final List<Action> actions = new ArrayList<>();
+
+    public AnimBinding(String anim, String layer) {
+        this.anim = anim;
+        this.layer = layer;
+    }
+
+    public String getAnim() {
+        return anim;
+    }
+
+    public String getLayer() {
+        return layer;
+    }
+
+    public void bind(AnimComposer composer) {
+        if (!composer.hasAnimClip(anim)) return;
+        if (composer.getLayer(layer) == null) {
+            composer.makeLayer(layer, null);
+        }
+        AnimTweenController stepper = new AnimTweenController(composer.action(anim));
+        composers.add(composer);
+        layers.add(composer.getLayer(layer));
+        actions.add(new BaseAction(stepper));
+        add(stepper);
+    }
+
+    /**
+     * Checks that every bound composer is still attached under the given root and still owns the bound
+     * layer.
+     */
+    public boolean isValid(Spatial root) {
+        for (int i = 0; i < composers.size(); i++) {
+            AnimComposer composer = composers.get(i);
+            Spatial s = composer.getSpatial();
+            if (s == null) return false;
+            if (s != root && !(root instanceof Node && s.hasAncestor((Node) root))) return false;
+            if (composer.getLayer(layer) != layers.get(i)) return false;
+        }
+        return true;
+    }
+
+    public void activate() {
+        for (int i = 0; i < layers.size(); i++) {
+            AnimLayer animLayer = layers.get(i);
+            Action action = actions.get(i);
+            if (animLayer.getCurrentAction() != action) {
+                animLayer.setCurrentAction(anim, action, false);
+            }
+        }
+    }
+
+    public void setComposersEnabled(boolean enabled) {
+        for (int i = 0; i < composers.size(); i++) {
+            AnimComposer composer = composers.get(i);
+            if (composer.isEnabled() != enabled) {
+                composer.setEnabled(enabled);
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        composers.clear();
+        layers.clear();
+        actions.clear();
+    }
+}
@@ -38,7 +38,8 @@ import java.util.function.Consumer;
 public class AnimGroupController {
 
     protected List<AnimTweenController> controllers = new ArrayList<>();
-    protected Float step = null;
+    protected float step = 0f;
+    protected boolean hasStep = false;
     protected boolean play = true;
 
     public void forEach(Consumer<AnimTweenController> consumer) {
@@ -88,17 +89,28 @@ public class AnimGroupController {
     }
 
     public void unsetStep() {
-        step = null;
+        hasStep = false;
         forEach(controller -> controller.unsetStep());
     }
 
     public void setStep(Float i) {
+        if (i == null) {
+            unsetStep();
+            return;
+        }
+        setStep(i.floatValue());
+    }
+
+    public void setStep(float i) {
         step = i;
-        forEach(controller -> controller.setStep(i));
+        hasStep = true;
+        for (int j = 0; j < controllers.size(); j++) {
+            controllers.get(j).setStep(i);
+        }
     }
 
     public Float getStep() {
-        return step;
+        return hasStep ? step : null;
     }
 
     public void play() {
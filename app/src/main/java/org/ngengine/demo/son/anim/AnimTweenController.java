@@ -37,7 +37,8 @@ public class AnimTweenController implements Tween {
 
     protected final Tween source;
     protected double currentTime = 0;
-    protected Float step = null;
+    protected float step = 0f;
+    protected boolean hasStep = false;
     protected boolean play = true;
 
     public AnimTweenController(Tween source) {
@@ -54,7 +55,7 @@ public class AnimTweenController implements Tween {
     }
 
     public void unsetStep() {
-        step = null;
+        hasStep = false;
     }
 
     public void setStep(Float i) {
@@ -62,11 +63,20 @@ public class AnimTweenController implements Tween {
             unsetStep();
             return;
         }
+        setStep(i.floatValue());
+    }
+
+    public void setStep(float i) {
         step = i;
+        hasStep = true;
     }
 
     public Float getStep() {
-        return step;
+        return hasStep ? step : null;
+    }
+
+    public boolean hasStep() {
+        return hasStep;
     }
 
     public void pause() {
@@ -86,7 +96,7 @@ public class AnimTweenController implements Tween {
         if (!play) {
             return source.interpolate(currentTime);
         }
-        if (step != null) {
+        if (hasStep) {
             double length = getLength();
             double time = length * (double) step;
             currentTime = time;
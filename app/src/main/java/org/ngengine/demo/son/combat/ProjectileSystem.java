@@ -0,0 +1,457 @@
+/**
+ * Copyright (c) 2025, Nostr Game Engine
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * Nostr Game Engine is a fork of the jMonkeyEngine, which is licensed under
+ * the BSD 3-Clause License. The original jMonkeyEngine license is as follows:
+ */
+package org.ngengine.demo.son.combat;
+
+import com.jme3.bounding.BoundingBox;
+import com.jme3.bounding.BoundingVolume;
+import com.jme3.math.FastMath;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Spatial;
+import com.jme3.util.TempVars;
+import java.util.Arrays;
+import org.ngengine.demo.son.packets.ShotPacket;
+
+/**
+ * Simulates cannon balls without the physics engine. Live shots are kept in primitive arrays from a fixed
+ * capacity pool and their position is computed in closed form from their origin, velocity and age, so
+ * shots received late from the network can be placed exactly. Each frame the segment travelled by every
+ * shot is tested against the oriented boxes of the boats found in a uniform spatial hash, and the water is
+ * queried once for all the shots.
+ */
+public class ProjectileSystem {
+
+    /**
+     * Batched water height query, see {@link org.ngengine.demo.son.ocean.OceanAppState#getWaterHeights}.
+     */
+    public interface WaterHeights {
+        void getWaterHeights(float[] xs, float[] zs, float[] heights, int count);
+    }
+
+    public interface Listener {
+        void onHit(int shooter, Spatial target, float x, float y, float z);
+
+        void onWaterImpact(int shooter, float x, float y, float z);
+    }
+
+    public static final float GRAVITY = 9.81f;
+    private static final float MAX_LIFETIME = 10f;
+    // shots received from the network are advanced by their latency, up to this many seconds
+    private static final float MAX_LATENCY = 0.5f;
+    private static final int HASH_BUCKETS = 1024;
+
+    // live shots, packed at the start of the arrays
+    private final int capacity;
+    private final float[] ox, oy, oz;
+    private final float[] vx, vy, vz;
+    private final float[] age;
+    private final int[] shooter;
+    private int alive = 0;
+    // current position and water height of each shot
+    private final float[] px, py, pz;
+    private final float[] waterHeight;
+
+    // targets, their box in model space and in world space
+    private Spatial[] targets = new Spatial[16];
+    private int[] targetOwner = new int[16];
+    private float[] localBox = new float[16 * 6]; // center x,y,z, half extents x,y,z
+    private float[] worldBox = new float[16 * 12]; // center x,y,z, axes x,y,z
+    private int[] targetStamp = new int[16];
+    private int targetCount = 0;
+    private int stamp = 0;
+
+    // uniform spatial hash over xz, each bucket is a linked list of target entries
+    private final float cellSize;
+    private final int[] bucketHead = new int[HASH_BUCKETS];
+    private int[] entryTarget = new int[64];
+    private int[] entryNext = new int[64];
+    private int entryCount = 0;
+
+    // shots fired locally since the last poll
+    private float[] outgoing = new float[16 * ShotPacket.FLOATS_PER_SHOT];
+    private int outgoingCount = 0;
+
+    // fraction of the segment where the last hit found by findHit happened
+    private float hitFraction;
+    private final Vector3f axis = new Vector3f();
+
+    /**
+     * @param capacity
+     *            maximum number of live shots, more shots are dropped
+     * @param cellSize
+     *            size of the cells of the spatial hash, should be at least the size of a boat
+     */
+    public ProjectileSystem(int capacity, float cellSize) {
+        this.capacity = capacity;
+        this.cellSize = cellSize;
+        ox = new float[capacity];
+        oy = new float[capacity];
+        oz = new float[capacity];
+        vx = new float[capacity];
+        vy = new float[capacity];
+        vz = new float[capacity];
+        age = new float[capacity];
+        shooter = new int[capacity];
+        px = new float[capacity];
+        py = new float[capacity];
+        pz = new float[capacity];
+        waterHeight = new float[capacity];
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getAliveCount() {
+        return alive;
+    }
+
+    public float getX(int shot) {
+        return px[shot];
+    }
+
+    public float getY(int shot) {
+        return py[shot];
+    }
+
+    public float getZ(int shot) {
+        return pz[shot];
+    }
+
+    /**
+     * Evaluates where a shot was some time before its last update, to render it between two updates.
+     *
+     * @param lag
+     *            seconds to go back from the last update
+     */
+    public Vector3f getPosition(int shot, float lag, Vector3f store) {
+        if (store == null) store = new Vector3f();
+        float t = Math.max(0f, age[shot] - lag);
+        return store.set(ox[shot] + vx[shot] * t, oy[shot] + vy[shot] * t - 0.5f * GRAVITY * t * t, oz[shot] + vz[shot] * t);
+    }
+
+    /**
+     * Registers a boat that can be hit. Its box is taken from its bounds, so it must be added while it is not
+     * rotated.
+     *
+     * @param target
+     *            the boat
+     * @param owner
+     *            id of the boat, shots fired with the same id do not hit it
+     */
+    public void addTarget(Spatial target, int owner) {
+        if (targetCount == targets.length) {
+            int n = targets.length * 2;
+            targets = Arrays.copyOf(targets, n);
+            targetOwner = Arrays.copyOf(targetOwner, n);
+            localBox = Arrays.copyOf(localBox, n * 6);
+            worldBox = Arrays.copyOf(worldBox, n * 12);
+            targetStamp = Arrays.copyOf(targetStamp, n);
+        }
+        int t = targetCount++;
+        targets[t] = target;
+        targetOwner[t] = owner;
+        BoundingVolume bound = target.getWorldBound();
+        Vector3f pos = target.getWorldTranslation();
+        if (bound instanceof BoundingBox) {
+            BoundingBox box = (BoundingBox) bound;
+            localBox[t * 6] = box.getCenter().x - pos.x;
+            localBox[t * 6 + 1] = box.getCenter().y - pos.y;
+            localBox[t * 6 + 2] = box.getCenter().z - pos.z;
+            localBox[t * 6 + 3] = box.getXExtent();
+            localBox[t * 6 + 4] = box.getYExtent();
+            localBox[t * 6 + 5] = box.getZExtent();
+        } else {
+            Arrays.fill(localBox, t * 6, t * 6 + 6, 1f);
+            localBox[t * 6] = localBox[t * 6 + 1] = localBox[t * 6 + 2] = 0;
+        }
+    }
+
+    public void removeTarget(Spatial target) {
+        for (int t = 0; t < targetCount; t++) {
+            if (targets[t] != target) continue;
+            int last = --targetCount;
+            targets[t] = targets[last];
+            targetOwner[t] = targetOwner[last];
+            System.arraycopy(localBox, last * 6, localBox, t * 6, 6);
+            targets[last] = null;
+            return;
+        }
+    }
+
+    /**
+     * Fires a shot from the local player, it is also queued to be sent, see {@link #pollOutgoing()}.
+     *
+     * @return false if the pool is full
+     */
+    public boolean fire(int owner, Vector3f origin, Vector3f velocity) {
+        if (!spawn(owner, origin.x, origin.y, origin.z, velocity.x, velocity.y, velocity.z, 0f)) return false;
+        if ((outgoingCount + 1) * ShotPacket.FLOATS_PER_SHOT > outgoing.length) {
+            outgoing = Arrays.copyOf(outgoing, outgoing.length * 2);
+        }
+        int i = outgoingCount++ * ShotPacket.FLOATS_PER_SHOT;
+        outgoing[i] = origin.x;
+        outgoing[i + 1] = origin.y;
+        outgoing[i + 2] = origin.z;
+        outgoing[i + 3] = velocity.x;
+        outgoing[i + 4] = velocity.y;
+        outgoing[i + 5] = velocity.z;
+        return true;
+    }
+
+    /**
+     * Spawns the shots received from another player, advanced by the time they spent on the network.
+     *
+     * @param latency
+     *            one way latency to the sender in seconds, measured on the local clock
+     */
+    public void fire(int owner, ShotPacket packet, float latency) {
+        latency = FastMath.clamp(latency, 0f, MAX_LATENCY);
+        TempVars vars = TempVars.get();
+        try {
+            for (int s = 0; s < packet.getCount(); s++) {
+                Vector3f o = packet.getOrigin(s, vars.vect1);
+                Vector3f v = packet.getVelocity(s, vars.vect2);
+                spawn(owner, o.x, o.y, o.z, v.x, v.y, v.z, latency);
+            }
+        } finally {
+            vars.release();
+        }
+    }
+
+    /**
+     * Returns the shots fired locally since the last call as a single packet, or null if there were none.
+     */
+    public ShotPacket pollOutgoing() {
+        if (outgoingCount == 0) return null;
+        ShotPacket packet = new ShotPacket(Arrays.copyOf(outgoing, outgoingCount * ShotPacket.FLOATS_PER_SHOT));
+        outgoingCount = 0;
+        return packet;
+    }
+
+    /**
+     * Drops every shot and every target.
+     */
+    public void clear() {
+        alive = 0;
+        outgoingCount = 0;
+        Arrays.fill(targets, 0, targetCount, null);
+        targetCount = 0;
+    }
+
+    private boolean spawn(int owner, float x, float y, float z, float velX, float velY, float velZ, float startAge) {
+        if (alive == capacity) return false;
+        int i = alive++;
+        shooter[i] = owner;
+        ox[i] = x;
+        oy[i] = y;
+        oz[i] = z;
+        vx[i] = velX;
+        vy[i] = velY;
+        vz[i] = velZ;
+        age[i] = startAge;
+        px[i] = x;
+        py[i] = y;
+        pz[i] = z;
+        return true;
+    }
+
+    /**
+     * Advances every shot and reports hits and water impacts. Spent shots go back to the pool.
+     */
+    public void update(float tpf, WaterHeights water, Listener listener) {
+        rebuildHash();
+
+        for (int i = 0; i < alive; i++) {
+            float t = age[i] += tpf;
+            px[i] = ox[i] + vx[i] * t;
+            py[i] = oy[i] + vy[i] * t - 0.5f * GRAVITY * t * t;
+            pz[i] = oz[i] + vz[i] * t;
+        }
+        if (alive > 0) water.getWaterHeights(px, pz, waterHeight, alive);
+
+        for (int i = 0; i < alive;) {
+            // the segment travelled during this frame
+            float t0 = Math.max(0f, age[i] - tpf);
+            float x0 = ox[i] + vx[i] * t0;
+            float y0 = oy[i] + vy[i] * t0 - 0.5f * GRAVITY * t0 * t0;
+            float z0 = oz[i] + vz[i] * t0;
+
+            int hit = findHit(i, x0, y0, z0);
+            if (hit >= 0) {
+                float f = hitFraction;
+                listener.onHit(
+                    shooter[i],
+                    targets[hit],
+                    x0 + (px[i] - x0) * f,
+                    y0 + (py[i] - y0) * f,
+                    z0 + (pz[i] - z0) * f
+                );
+                remove(i);
+            } else if (py[i] <= waterHeight[i]) {
+                listener.onWaterImpact(shooter[i], px[i], waterHeight[i], pz[i]);
+                remove(i);
+            } else if (age[i] > MAX_LIFETIME) {
+                remove(i);
+            } else {
+                i++;
+            }
+        }
+    }
+
+    private void remove(int i) {
+        int last = --alive;
+        shooter[i] = shooter[last];
+        ox[i] = ox[last];
+        oy[i] = oy[last];
+        oz[i] = oz[last];
+        vx[i] = vx[last];
+        vy[i] = vy[last];
+        vz[i] = vz[last];
+        age[i] = age[last];
+        px[i] = px[last];
+        py[i] = py[last];
+        pz[i] = pz[last];
+        waterHeight[i] = waterHeight[last];
+    }
+
+    private int cell(float v) {
+        return (int) FastMath.floor(v / cellSize);
+    }
+
+    private static int bucket(int cx, int cz) {
+        return ((cx * 73856093) ^ (cz * 19349663)) & (HASH_BUCKETS - 1);
+    }
+
+    private void rebuildHash() {
+        Arrays.fill(bucketHead, -1);
+        entryCount = 0;
+        for (int t = 0; t < targetCount; t++) {
+            Spatial target = targets[t];
+            Vector3f pos = target.getWorldTranslation();
+            Quaternion rot = target.getWorldRotation();
+            int w = t * 12;
+            int l = t * 6;
+            rot.mult(axis.set(localBox[l], localBox[l + 1], localBox[l + 2]), axis);
+            worldBox[w] = pos.x + axis.x;
+            worldBox[w + 1] = pos.y + axis.y;
+            worldBox[w + 2] = pos.z + axis.z;
+            for (int k = 0; k < 3; k++) {
+                rot.getRotationColumn(k, axis);
+                worldBox[w + 3 + k * 3] = axis.x;
+                worldBox[w + 4 + k * 3] = axis.y;
+                worldBox[w + 5 + k * 3] = axis.z;
+            }
+
+            // the box fits in a sphere, insert it in every cell the sphere overlaps
+            float hx = localBox[l + 3], hy = localBox[l + 4], hz = localBox[l + 5];
+            float radius = FastMath.sqrt(hx * hx + hy * hy + hz * hz);
+            int minX = cell(worldBox[w] - radius), maxX = cell(worldBox[w] + radius);
+            int minZ = cell(worldBox[w + 2] - radius), maxZ = cell(worldBox[w + 2] + radius);
+            for (int cx = minX; cx <= maxX; cx++) {
+                for (int cz = minZ; cz <= maxZ; cz++) {
+                    if (entryCount == entryTarget.length) {
+                        entryTarget = Arrays.copyOf(entryTarget, entryCount * 2);
+                        entryNext = Arrays.copyOf(entryNext, entryCount * 2);
+                    }
+                    int b = bucket(cx, cz);
+                    entryTarget[entryCount] = t;
+                    entryNext[entryCount] = bucketHead[b];
+                    bucketHead[b] = entryCount++;
+                }
+            }
+        }
+    }
+
+    private int findHit(int shot, float x0, float y0, float z0) {
+        if (targetCount == 0) return -1;
+        float x1 = px[shot], y1 = py[shot], z1 = pz[shot];
+        int minX = cell(Math.min(x0, x1)), maxX = cell(Math.max(x0, x1));
+        int minZ = cell(Math.min(z0, z1)), maxZ = cell(Math.max(z0, z1));
+        int owner = shooter[shot];
+        int best = -1;
+        float bestFraction = 2f;
+        // each target is tested once per shot even if it is in many of the cells
+        stamp++;
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cz = minZ; cz <= maxZ; cz++) {
+                for (int e = bucketHead[bucket(cx, cz)]; e >= 0; e = entryNext[e]) {
+                    int t = entryTarget[e];
+                    if (targetStamp[t] == stamp || targetOwner[t] == owner) continue;
+                    targetStamp[t] = stamp;
+                    float f = intersectSegmentBox(t, x0, y0, z0, x1, y1, z1);
+                    if (f >= 0 && f < bestFraction) {
+                        bestFraction = f;
+                        best = t;
+                    }
+                }
+            }
+        }
+        hitFraction = bestFraction;
+        return best;
+    }
+
+    /**
+     * Slab test of a segment against an oriented box.
+     *
+     * @return the fraction of the segment where it enters the box, or -1 if it misses it
+     */
+    private float intersectSegmentBox(int t, float x0, float y0, float z0, float x1, float y1, float z1) {
+        int w = t * 12;
+        int l = t * 6;
+        float rx = x0 - worldBox[w], ry = y0 - worldBox[w + 1], rz = z0 - worldBox[w + 2];
+        float dx = x1 - x0, dy = y1 - y0, dz = z1 - z0;
+        float tMin = 0f, tMax = 1f;
+        for (int k = 0; k < 3; k++) {
+            float ax = worldBox[w + 3 + k * 3], ay = worldBox[w + 4 + k * 3], az = worldBox[w + 5 + k * 3];
+            float half = localBox[l + 3 + k];
+            // start and direction of the segment along the box axis
+            float p = rx * ax + ry * ay + rz * az;
+            float d = dx * ax + dy * ay + dz * az;
+            if (Math.abs(d) < FastMath.ZERO_TOLERANCE) {
+                if (p < -half || p > half) return -1;
+                continue;
+            }
+            float t1 = (-half - p) / d;
+            float t2 = (half - p) / d;
+            if (t1 > t2) {
+                float tmp = t1;
+                t1 = t2;
+                t2 = tmp;
+            }
+            tMin = Math.max(tMin, t1);
+            tMax = Math.min(tMax, t2);
+            if (tMin > tMax) return -1;
+        }
+        return tMin;
+    }
+}
@@ -32,68 +32,91 @@
 package org.ngengine.demo.son.controls;
 
 import com.jme3.anim.AnimComposer;
-import com.jme3.anim.AnimLayer;
-import com.jme3.anim.tween.action.Action;
-import com.jme3.anim.tween.action.BaseAction;
 import com.jme3.renderer.RenderManager;
 import com.jme3.renderer.ViewPort;
 import com.jme3.scene.Spatial;
-import com.jme3.scene.control.AbstractControl;
 import com.jme3.util.clone.Cloner;
-import java.util.Map;
-import java.util.WeakHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import org.ngengine.demo.son.anim.AnimGroupController;
-import org.ngengine.demo.son.anim.AnimTweenController;
+import org.ngengine.demo.son.anim.AnimBinding;
+import org.ngengine.demo.son.perf.PerfStats;
 
-public class BoatAnimationControl extends AbstractControl {
+public class BoatAnimationControl extends TieredControl {
 
     private static final Logger logger = Logger.getLogger(BoatAnimationControl.class.getName());
-    private Map<BaseAction, AnimTweenController> tweenControllers = new WeakHashMap<>();
+    private AnimBinding flagBinding;
+    private AnimBinding strongWindBinding;
+    private AnimBinding sailScaleBinding;
+    private AnimBinding[] bindings;
+    private boolean bindingsResolved = false;
     protected float sailFactor, windFactor, flagFactor;
 
+    public BoatAnimationControl() {
+        createBindings();
+    }
+
+    private void createBindings() {
+        flagBinding = new AnimBinding("rotateFlag", "flag");
+        strongWindBinding = new AnimBinding("strongWind", "sail");
+        sailScaleBinding = new AnimBinding("sailScale", "sail");
+        bindings = new AnimBinding[] { flagBinding, strongWindBinding, sailScaleBinding };
+        bindingsResolved = false;
+    }
+
     @Override
     public void cloneFields(Cloner cloner, Object original) {
         super.cloneFields(cloner, original);
+        // bindings point to the composers of the original model
+        createBindings();
+    }
+
+    @Override
+    public void setSpatial(Spatial spatial) {
+        super.setSpatial(spatial);
+        invalidateBindings();
+    }
+
+    /**
+     * Drops the cached composers and layers, they will be resolved again on the next animation update.
+     * Called automatically when a bound composer is removed or detached from the boat.
+     */
+    public void invalidateBindings() {
+        for (AnimBinding binding : bindings) {
+            binding.clear();
+        }
+        bindingsResolved = false;
     }
 
-    protected AnimGroupController setAnimation(String anim, String layer) {
-        AnimGroupController controller = new AnimGroupController();
+    protected void resolveBindings() {
+        for (AnimBinding binding : bindings) {
+            binding.clear();
+        }
         Spatial sp = getSpatial();
-        sp.depthFirstTraversal(s -> {
-            try {
-                AnimComposer composer = s.getControl(AnimComposer.class);
-                if (composer == null) return;
-                if (!composer.getLayerNames().contains(layer)) {
-                    composer.makeLayer(layer, null);
-                }
-                AnimLayer animLayer = composer.getLayer(layer);
-                String currentAction = animLayer.getCurrentActionName();
-                if (composer.getAnimClipsNames().contains(anim)) {
-                    if (currentAction == null || !currentAction.equals(anim)) {
-                        Action act = composer.action(anim);
-                        AnimTweenController stepper = new AnimTweenController(act);
-                        BaseAction action = new BaseAction(stepper);
-                        animLayer.setCurrentAction(anim, action, false);
-                        tweenControllers.put(action, stepper);
-                        controller.add(stepper);
-                    } else {
-                        Action act = animLayer.getCurrentAction();
-                        AnimTweenController stepper = tweenControllers.get(act);
-                        if (stepper != null) controller.add(stepper);
+        if (sp != null) {
+            sp.depthFirstTraversal(s -> {
+                try {
+                    AnimComposer composer = s.getControl(AnimComposer.class);
+                    if (composer == null) return;
+                    for (AnimBinding binding : bindings) {
+                        binding.bind(composer);
                     }
+                } catch (Exception e) {
+                    logger.log(Level.WARNING, "Error binding animations: ", e);
                 }
-            } catch (Exception e) {
-                logger.log(Level.WARNING, "Error setting animation: ", e);
-            }
-        });
-        return controller;
+            });
+        }
+        bindingsResolved = true;
+    }
+
+    protected AnimBinding setAnimation(AnimBinding binding) {
+        if (!bindingsResolved || !binding.isValid(getSpatial())) {
+            resolveBindings();
+        }
+        binding.activate();
+        return binding;
     }
 
     public void setFlagAnim(float rot) {
-        AnimGroupController flag = setAnimation("rotateFlag", "flag");
-        flag.setStep(rot);
         flagFactor = rot;
     }
 
@@ -101,13 +124,6 @@ public class BoatAnimationControl extends AbstractControl {
         if (fold > 0.9f) {
             fold = 1f;
         }
-        if (fold == 0f) {
-            AnimGroupController sail = setAnimation("strongWind", "sail");
-            sail.setStep(force);
-        } else {
-            AnimGroupController sail = setAnimation("sailScale", "sail");
-            sail.setStep(fold);
-        }
         sailFactor = fold;
         windFactor = force;
     }
@@ -126,50 +142,27 @@ public class BoatAnimationControl extends AbstractControl {
 
     @Override
     protected void controlUpdate(float tpf) {
-        // c.unsetStep();
-
-        // setAnimation("foldFlag", "flag2");
-        // setAnimation("sailScale", "sail");
-        // setAnimation("strongWind", "wind");
-        // Spatial sp = getSpatial();
-        // sp.depthFirstTraversal(s -> {
-
-        //     SkinningControl sc = s.getControl(SkinningControl.class);
-        //     if (sc != null) {
-        //         if (!sc.isHardwareSkinningPreferred()) {
-        //              sc.setHardwareSkinningPreferred(true);
-        //         }
-        //     }
-
-        //     AnimComposer composer = s.getControl(AnimComposer.class);
-        //     if (composer != null) {
-        //         AnimLayer flagLayer = composer.getLayer("flag");
-        //         if(flagLayer == null) {
-        //             composer.makeLayer("flag");
-        //         }
-
-        //         AnimLayer flagLayer2 = composer.getLayer("flag2");
-        //         if (flagLayer == null) {
-        //             composer.makeLayer("flag2");
-        //         }
-
-        //         AnimLayer sailLayer = composer.getLayer("sail");
-        //         if (sailLayer == null) {
-        //             composer.makeLayer("sail");
-        //         }
-
-        //         AnimLayer windLayer = composer.getLayer("wind");
-        //         if (windLayer == null) {
-        //             composer.makeLayer("wind");
-        //         }
-
-        //         if(!composer.getCurrentAction("flag").equals("rotateFlag")) {
-        //             composer.setCurrentAction("rotateFlag", "flag");
-        //         }
-        //     }
-
-        // });
+        long perfStart = PerfStats.begin();
+        // the requested factors are applied only when the boat's update tier is due
+        setAnimation(flagBinding).setStep(flagFactor);
+        if (sailFactor == 0f) {
+            setAnimation(strongWindBinding).setStep(windFactor);
+        } else {
+            setAnimation(sailScaleBinding).setStep(sailFactor);
+        }
+        for (AnimBinding binding : bindings) {
+            binding.setComposersEnabled(true);
+        }
+        PerfStats.end(PerfStats.Section.ANIMATION, perfStart);
+    }
 
+    @Override
+    protected void controlSkipped(float tpf) {
+        // freeze the skinned pose until the next update
+        if (!bindingsResolved) return;
+        for (AnimBinding binding : bindings) {
+            binding.setComposersEnabled(false);
+        }
     }
 
     @Override
@@ -31,13 +31,18 @@
  */
 package org.ngengine.demo.son.controls;
 
+import com.jme3.bounding.BoundingBox;
 import com.jme3.bullet.PhysicsSpace;
 import com.jme3.bullet.PhysicsTickListener;
 import com.jme3.bullet.control.RigidBodyControl;
-import com.jme3.bullet.util.CollisionShapeFactory;
 import com.jme3.input.controls.ActionListener;
+import com.jme3.math.Quaternion;
 import com.jme3.math.Vector3f;
+import com.jme3.util.TempVars;
 import java.util.logging.Logger;
+import org.ngengine.demo.son.combat.ProjectileSystem;
+import org.ngengine.demo.son.packets.WireFormat;
+import org.ngengine.demo.son.utils.CollisionShapeCache;
 
 public class BoatControl extends RigidBodyControl implements ActionListener, PhysicsTickListener {
 
@@ -54,15 +59,44 @@ public class BoatControl extends RigidBodyControl implements ActionListener, Phy
     private volatile float windFactor = 1f;
     private volatile float windStrength = 1f;
     private volatile float sailSensitivity = 0.5f;
+    private boolean updatedBySystem = false;
+    private CollisionShapeCache.Approximation shapeApproximation = CollisionShapeCache.Approximation.HULL;
+
+    private static final int CANNONS_PER_SIDE = 4;
+    private static final float MUZZLE_SPEED = 120f;
+    private static final float CANNON_ELEVATION = 0.08f;
+    private static final long RELOAD_MILLIS = 2000;
+    // boats are stopped this far from the edge of the play area, so the hull stays inside the broadphase
+    private static final float PLAY_AREA_MARGIN = 64f;
+    private ProjectileSystem projectiles;
+    private int projectileOwner;
+    private long lastBroadside = 0;
+    private float hullHalfWidth = 1f;
+    private float hullHalfLength = 1f;
 
     public BoatControl(boolean isRemote, float mass) {
         super(mass);
         this.isRemote = isRemote;
     }
 
+    /**
+     * Sets how the hull is approximated for collisions, must be called before the control is added.
+     */
+    public void setShapeApproximation(CollisionShapeCache.Approximation shapeApproximation) {
+        this.shapeApproximation = shapeApproximation;
+    }
+
     @Override
     public void setSpatial(com.jme3.scene.Spatial spatial) {
-        setCollisionShape(CollisionShapeFactory.createDynamicMeshShape(spatial));
+        if (spatial != null) {
+            // every boat of the same model shares a simplified shape
+            setCollisionShape(CollisionShapeCache.get(spatial, shapeApproximation));
+            if (spatial.getWorldBound() instanceof BoundingBox) {
+                BoundingBox bbox = (BoundingBox) spatial.getWorldBound();
+                hullHalfWidth = bbox.getXExtent();
+                hullHalfLength = bbox.getZExtent();
+            }
+        }
         if (isRemote) setKinematic(true);
         super.setSpatial(spatial);
     }
@@ -71,27 +105,21 @@ public class BoatControl extends RigidBodyControl implements ActionListener, Phy
     public void update(float tpf) {
         super.update(tpf);
 
-        if (isEnabled()) {
-            if (forward) {
-                sailSensitivity += tpf * 0.4f;
-                if (sailSensitivity > 1f) {
-                    sailSensitivity = 1f;
-                }
-            }
-            if (backward) {
-                sailSensitivity -= tpf * 0.4f;
-                if (sailSensitivity < 0.1f) {
-                    sailSensitivity = 0.1f;
-                }
-            }
-
+        if (isEnabled() && !updatedBySystem) {
             // Check for wind updates
             float d = 0f;
             WindControl windControl = getSpatial().getControl(WindControl.class);
             if (windControl != null) {
                 Vector3f wind = windControl.getWind();
 
-                d = (wind.normalize().dot(getSpatial().getWorldRotation().mult(Vector3f.UNIT_Z)) + 1f) / 2f;
+                TempVars vars = TempVars.get();
+                try {
+                    Vector3f windDir = vars.vect1.set(wind).normalizeLocal();
+                    Vector3f heading = getSpatial().getWorldRotation().mult(Vector3f.UNIT_Z, vars.vect2);
+                    d = (windDir.dot(heading) + 1f) / 2f;
+                } finally {
+                    vars.release();
+                }
                 if (windFactor < 0.6f) {
                     windFactor = 0.6f;
                 } else {
@@ -111,6 +139,42 @@ public class BoatControl extends RigidBodyControl implements ActionListener, Phy
         }
     }
 
+    /**
+     * Set by the {@link BoatSystem} that computes the wind and sail state of this boat along with all the
+     * others, the per boat update is skipped while it is set.
+     */
+    void setUpdatedBySystem(boolean updatedBySystem) {
+        this.updatedBySystem = updatedBySystem;
+    }
+
+    void setWindState(float windFactor, float windStrength) {
+        this.windFactor = windFactor;
+        this.windStrength = windStrength;
+    }
+
+    public float getSailSensitivity() {
+        return sailSensitivity;
+    }
+
+    /**
+     * Integrates the player input, called at the fixed simulation rate instead of once per frame.
+     */
+    public void simulate(float stepTime) {
+        if (!isEnabled()) return;
+        if (forward) {
+            sailSensitivity += stepTime * 0.4f;
+            if (sailSensitivity > 1f) {
+                sailSensitivity = 1f;
+            }
+        }
+        if (backward) {
+            sailSensitivity -= stepTime * 0.4f;
+            if (sailSensitivity < 0.1f) {
+                sailSensitivity = 0.1f;
+            }
+        }
+    }
+
     @Override
     public void onAction(String name, boolean isPressed, float tpf) {
         if ("Forward".equals(name)) {
@@ -121,6 +185,8 @@ public class BoatControl extends RigidBodyControl implements ActionListener, Phy
             steerLeft = isPressed ? 1 : 0;
         } else if ("SteerRight".equals(name)) {
             steerRight = isPressed ? -1 : 0;
+        } else if ("Fire".equals(name) && isPressed) {
+            fireCannonBalls();
         }
     }
 
@@ -149,23 +215,90 @@ public class BoatControl extends RigidBodyControl implements ActionListener, Phy
             rotationSpeed = 60;
         }
 
-        if (steerLeft > 0) {
-            applyTorque(new Vector3f(0, rotationSpeed, 0));
-        }
-        if (steerRight < 0) {
-            applyTorque(new Vector3f(0, -rotationSpeed, 0));
-        }
+        TempVars vars = TempVars.get();
+        try {
+            if (steerLeft > 0) {
+                applyTorque(vars.vect1.set(0, rotationSpeed, 0));
+            }
+            if (steerRight < 0) {
+                applyTorque(vars.vect1.set(0, -rotationSpeed, 0));
+            }
 
-        Vector3f dir = getPhysicsRotation().mult(Vector3f.UNIT_Z);
-        dir.y = 0;
-        dir.normalizeLocal();
-        applyForce(dir.mult(forwardSpeed), Vector3f.ZERO);
+            Quaternion rot = getPhysicsRotation(vars.quat1);
+            Vector3f dir = rot.mult(Vector3f.UNIT_Z, vars.vect2);
+            dir.y = 0;
+            dir.normalizeLocal();
+            applyCentralForce(dir.multLocal(forwardSpeed));
+
+            keepInPlayArea(vars.vect3, vars.vect4);
+        } finally {
+            vars.release();
+        }
     }
 
     @Override
     public void physicsTick(PhysicsSpace space, float tpf) {}
 
-    public void fireCannonBalls() {}
+    /**
+     * Stops the boat at the edge of the play area. Past it the positions can not be sent to the peers and
+     * the sweep and prune broadphase no longer finds the collisions.
+     */
+    private void keepInPlayArea(Vector3f location, Vector3f velocity) {
+        // kinematic boats follow the network, whose positions are already clamped to the play area
+        if (isKinematic()) return;
+        float limit = WireFormat.PLAY_AREA_HALF_SIZE - PLAY_AREA_MARGIN;
+        getPhysicsLocation(location);
+        if (Math.abs(location.x) <= limit && Math.abs(location.z) <= limit) return;
+        getLinearVelocity(velocity);
+        if (location.x * velocity.x > 0 && Math.abs(location.x) > limit) velocity.x = 0;
+        if (location.z * velocity.z > 0 && Math.abs(location.z) > limit) velocity.z = 0;
+        location.x = Math.max(-limit, Math.min(limit, location.x));
+        location.z = Math.max(-limit, Math.min(limit, location.z));
+        setPhysicsLocation(location);
+        setLinearVelocity(velocity);
+    }
+
+    /**
+     * Sets where the cannon balls of this boat are simulated.
+     *
+     * @param owner
+     *            id of this boat in the projectile system, its own shots do not hit it
+     */
+    public void setProjectileSystem(ProjectileSystem projectiles, int owner) {
+        this.projectiles = projectiles;
+        this.projectileOwner = owner;
+    }
+
+    /**
+     * Fires a broadside from both sides of the boat, if the cannons are loaded.
+     */
+    public void fireCannonBalls() {
+        if (projectiles == null || getSpatial() == null) return;
+        long now = System.currentTimeMillis();
+        if (now - lastBroadside < RELOAD_MILLIS) return;
+        lastBroadside = now;
+
+        Vector3f pos = getSpatial().getWorldTranslation();
+        Quaternion rot = getSpatial().getWorldRotation();
+        TempVars vars = TempVars.get();
+        try {
+            Vector3f muzzle = vars.vect1;
+            Vector3f velocity = vars.vect2;
+            Vector3f boatVelocity = getLinearVelocity(vars.vect3);
+            for (int side = -1; side <= 1; side += 2) {
+                for (int c = 0; c < CANNONS_PER_SIDE; c++) {
+                    // cannons spread along the middle of the hull
+                    float z = hullHalfLength * 1.6f * ((c + 0.5f) / CANNONS_PER_SIDE - 0.5f);
+                    rot.mult(muzzle.set(side * hullHalfWidth, 0.5f, z), muzzle).addLocal(pos);
+                    rot.mult(velocity.set(side, CANNON_ELEVATION, 0).normalizeLocal(), velocity);
+                    velocity.multLocal(MUZZLE_SPEED).addLocal(boatVelocity);
+                    projectiles.fire(projectileOwner, muzzle, velocity);
+                }
+            }
+        } finally {
+            vars.release();
+        }
+    }
 
     public float getSailLength() {
         return physicsSailLength;
@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2025, Nostr Game Engine
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * Nostr Game Engine is a fork of the jMonkeyEngine, which is licensed under
+ * the BSD 3-Clause License. The original jMonkeyEngine license is as follows:
+ */
+package org.ngengine.demo.son.controls;
+
+import com.jme3.bounding.BoundingBox;
+import com.jme3.bounding.BoundingSphere;
+import com.jme3.bounding.BoundingVolume;
+import com.jme3.renderer.Camera;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.ViewPort;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.control.AbstractControl;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Picks the LOD level of every geometry of a boat from its projected size on the main camera. The level
+ * is chosen once per frame in the logic update, so shadow and reflection passes render the same level.
+ */
+public class BoatLodControl extends AbstractControl {
+
+    // projected radius in pixels under which each LOD level kicks in
+    private float[] pixelThresholds = { 220f, 90f, 35f };
+    private final Camera cam;
+    private final List<Geometry> geometries = new ArrayList<>();
+    private int currentLevel = -1;
+
+    public BoatLodControl(Camera cam) {
+        this.cam = cam;
+    }
+
+    public void setPixelThresholds(float... pixelThresholds) {
+        this.pixelThresholds = pixelThresholds;
+        currentLevel = -1;
+    }
+
+    public int getLodLevel() {
+        return currentLevel;
+    }
+
+    @Override
+    public void setSpatial(Spatial spatial) {
+        super.setSpatial(spatial);
+        geometries.clear();
+        currentLevel = -1;
+        if (spatial != null) {
+            spatial.depthFirstTraversal(sx -> {
+                if (sx instanceof Geometry) {
+                    geometries.add((Geometry) sx);
+                }
+            });
+        }
+    }
+
+    protected float getProjectedRadius() {
+        BoundingVolume bound = spatial.getWorldBound();
+        if (bound == null) return Float.MAX_VALUE;
+        float radius;
+        if (bound instanceof BoundingBox) {
+            BoundingBox bbox = (BoundingBox) bound;
+            float x = bbox.getXExtent();
+            float y = bbox.getYExtent();
+            float z = bbox.getZExtent();
+            radius = (float) Math.sqrt(x * x + y * y + z * z);
+        } else if (bound instanceof BoundingSphere) {
+            radius = ((BoundingSphere) bound).getRadius();
+        } else {
+            return Float.MAX_VALUE;
+        }
+        if (cam.isParallelProjection()) {
+            return radius / cam.getFrustumTop() * cam.getHeight() * 0.5f;
+        }
+        float dist = cam.getLocation().distance(bound.getCenter());
+        if (dist <= radius) return Float.MAX_VALUE;
+        float tanHalfFov = cam.getFrustumTop() / cam.getFrustumNear();
+        return radius / (dist * tanHalfFov) * cam.getHeight() * 0.5f;
+    }
+
+    @Override
+    protected void controlUpdate(float tpf) {
+        float size = getProjectedRadius();
+        int level = 0;
+        while (level < pixelThresholds.length && size < pixelThresholds[level]) {
+            level++;
+        }
+        if (level == currentLevel) return;
+        currentLevel = level;
+        for (Geometry geom : geometries) {
+            int levels = geom.getMesh().getNumLodLevels();
+            if (levels == 0) continue;
+            geom.setLodLevel(Math.min(level, levels - 1));
+        }
+    }
+
+    @Override
+    protected void controlRender(RenderManager rm, ViewPort vp) {}
+}
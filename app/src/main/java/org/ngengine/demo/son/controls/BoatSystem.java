@@ -0,0 +1,456 @@
+/**
+ * Copyright (c) 2025, Nostr Game Engine
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * Nostr Game Engine is a fork of the jMonkeyEngine, which is licensed under
+ * the BSD 3-Clause License. The original jMonkeyEngine license is as follows:
+ */
+package org.ngengine.demo.son.controls;
+
+import com.jme3.bounding.BoundingBox;
+import com.jme3.bounding.BoundingSphere;
+import com.jme3.bounding.BoundingVolume;
+import com.jme3.math.FastMath;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import com.jme3.renderer.Camera;
+import com.jme3.scene.Spatial;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import org.ngengine.demo.son.FrameJobs;
+
+/**
+ * Per frame simulation state of every boat, kept in primitive arrays and updated in a single pass.
+ * <p>
+ * Remote boats are moved from the network packets: every packet sets a target pose and a velocity
+ * estimate, and each frame the boats are extrapolated and smoothed towards their target. The local boat is
+ * read from its physics body. The wind and sail factors of all the boats are computed in the same pass.
+ * Results are written back to the scene graph only for the boats that are visible or close to the camera,
+ * the others just keep their state in the arrays until they come into view.
+ */
+public class BoatSystem {
+
+    private static final int PARALLEL_THRESHOLD = 256;
+    private static final int PARALLEL_CHUNK = 128;
+    // remote boats are extrapolated from their last packet for at most this many seconds
+    private static final float MAX_EXTRAPOLATION = 0.25f;
+    private static final float SMOOTHING = 10f;
+
+    private int count = 0;
+    private Spatial[] spatials = new Spatial[16];
+    private BoatControl[] boatControls = new BoatControl[16];
+    private BoatAnimationControl[] animControls = new BoatAnimationControl[16];
+    private Vector3f[] winds = new Vector3f[16];
+    private boolean[] local = new boolean[16];
+    private final Map<Spatial, Integer> indices = new IdentityHashMap<>();
+
+    // current pose and velocity
+    private float[] px = new float[16], py = new float[16], pz = new float[16];
+    private float[] qx = new float[16], qy = new float[16], qz = new float[16], qw = new float[16];
+    private float[] vx = new float[16], vy = new float[16], vz = new float[16];
+    // last pose received from the network and when it was received
+    private float[] tx = new float[16], ty = new float[16], tz = new float[16];
+    private float[] tqx = new float[16], tqy = new float[16], tqz = new float[16], tqw = new float[16];
+    private long[] received = new long[16];
+    // sail fold, wind and flag factors fed to the animations
+    private float[] sail = new float[16], windFactor = new float[16], flag = new float[16];
+    // wind factor and strength fed to the sail force of the local boats
+    private float[] sailForce = new float[16], windStrength = new float[16];
+    private float[] radius = new float[16];
+    private boolean[] writeBack = new boolean[16];
+
+    private FrameJobs jobs;
+    private FrameJobs.Job simulateJob;
+    // inputs of the simulate job for the current frame
+    private long frameTime;
+    private float frameSmoothing;
+    private float writeBackDistance = 400f;
+    private int writtenBack = 0;
+
+    private final BoundingSphere visibilityBound = new BoundingSphere();
+    private final Vector3f tmpVelocity = new Vector3f();
+    private final Quaternion tmpRotation = new Quaternion();
+
+    /**
+     * Splits the update over the frame job workers when there are enough boats, null runs it serially.
+     */
+    public void setJobs(FrameJobs jobs) {
+        if (this.jobs == jobs) return;
+        if (this.jobs != null) this.jobs.removeJob(simulateJob);
+        this.jobs = jobs;
+        simulateJob =
+            jobs == null ? null : jobs.createJob("boats", PARALLEL_CHUNK, (from, to) -> simulate(from, to, frameTime, frameSmoothing));
+    }
+
+    /**
+     * Boats closer than this to the camera are written back to the scene graph even when they are not in
+     * view, so collisions and shots near the player see their real pose.
+     */
+    public void setWriteBackDistance(float writeBackDistance) {
+        this.writeBackDistance = writeBackDistance;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Number of boats written back to the scene graph during the last update.
+     */
+    public int getWrittenBackCount() {
+        return writtenBack;
+    }
+
+    public float getX(int boat) {
+        return px[boat];
+    }
+
+    public float getY(int boat) {
+        return py[boat];
+    }
+
+    public float getZ(int boat) {
+        return pz[boat];
+    }
+
+    public Spatial getSpatial(int boat) {
+        return spatials[boat];
+    }
+
+    public int indexOf(Spatial boat) {
+        Integer i = indices.get(boat);
+        return i == null ? -1 : i;
+    }
+
+    /**
+     * Adds a boat with all its controls already attached.
+     *
+     * @param local
+     *            true for the boat driven by this client's physics, false for the ones driven by the network
+     */
+    public void add(Spatial boat, boolean local) {
+        if (indices.containsKey(boat)) return;
+        if (count == spatials.length) grow(count * 2);
+        int i = count++;
+        indices.put(boat, i);
+        spatials[i] = boat;
+        this.local[i] = local;
+        boatControls[i] = boat.getControl(BoatControl.class);
+        if (boatControls[i] != null && local) boatControls[i].setUpdatedBySystem(true);
+        animControls[i] = boat.getControl(BoatAnimationControl.class);
+        WindControl windControl = boat.getControl(WindControl.class);
+        winds[i] = windControl != null ? windControl.getWind() : null;
+
+        Vector3f pos = boat.getWorldTranslation();
+        Quaternion rot = boat.getWorldRotation();
+        px[i] = tx[i] = pos.x;
+        py[i] = ty[i] = pos.y;
+        pz[i] = tz[i] = pos.z;
+        qx[i] = tqx[i] = rot.getX();
+        qy[i] = tqy[i] = rot.getY();
+        qz[i] = tqz[i] = rot.getZ();
+        qw[i] = tqw[i] = rot.getW();
+        vx[i] = vy[i] = vz[i] = 0;
+        received[i] = 0;
+        sail[i] = windFactor[i] = flag[i] = 0;
+        sailForce[i] = windStrength[i] = 1f;
+        BoundingVolume bound = boat.getWorldBound();
+        if (bound instanceof BoundingBox) {
+            BoundingBox bbox = (BoundingBox) bound;
+            radius[i] = Math.max(bbox.getXExtent(), Math.max(bbox.getYExtent(), bbox.getZExtent()));
+        } else if (bound instanceof BoundingSphere) {
+            radius[i] = ((BoundingSphere) bound).getRadius();
+        } else {
+            radius[i] = 10f;
+        }
+        writeBack[i] = true;
+    }
+
+    public void remove(Spatial boat) {
+        Integer index = indices.remove(boat);
+        if (index == null) return;
+        int i = index;
+        if (boatControls[i] != null) boatControls[i].setUpdatedBySystem(false);
+        int last = --count;
+        if (i != last) {
+            move(last, i);
+            indices.put(spatials[i], i);
+        }
+        spatials[last] = null;
+        boatControls[last] = null;
+        animControls[last] = null;
+        winds[last] = null;
+    }
+
+    public void clear() {
+        for (int i = 0; i < count; i++) {
+            if (boatControls[i] != null) boatControls[i].setUpdatedBySystem(false);
+        }
+        Arrays.fill(spatials, 0, count, null);
+        Arrays.fill(boatControls, 0, count, null);
+        Arrays.fill(animControls, 0, count, null);
+        Arrays.fill(winds, 0, count, null);
+        indices.clear();
+        count = 0;
+    }
+
+    /**
+     * Sets the pose and velocity received from the network for a remote boat.
+     *
+     * @return false if the boat is not handled by this system
+     */
+    public boolean applyTransform(Spatial boat, Vector3f position, Quaternion rotation, Vector3f velocity) {
+        int i = indexOf(boat);
+        if (i < 0 || local[i]) return false;
+        vx[i] = velocity.x;
+        vy[i] = velocity.y;
+        vz[i] = velocity.z;
+        received[i] = System.currentTimeMillis();
+        tx[i] = position.x;
+        ty[i] = position.y;
+        tz[i] = position.z;
+        tqx[i] = rotation.getX();
+        tqy[i] = rotation.getY();
+        tqz[i] = rotation.getZ();
+        tqw[i] = rotation.getW();
+        return true;
+    }
+
+    /**
+     * Sets the animation factors received from the network for a remote boat.
+     *
+     * @return false if the boat is not handled by this system
+     */
+    public boolean applyAnim(Spatial boat, float sailFactor, float windFactor, float flagFactor) {
+        int i = indexOf(boat);
+        if (i < 0 || local[i]) return false;
+        this.sail[i] = sailFactor;
+        this.windFactor[i] = windFactor;
+        this.flag[i] = flagFactor;
+        return true;
+    }
+
+    /**
+     * Updates every boat, must be called once per frame before the scene graph is updated.
+     */
+    public void update(Camera cam, float tpf) {
+        readLocalBoats();
+
+        frameTime = System.currentTimeMillis();
+        frameSmoothing = 1f - FastMath.exp(-SMOOTHING * tpf);
+        if (simulateJob != null && count >= PARALLEL_THRESHOLD) {
+            // joined before the results are written to the scene graph
+            jobs.run(simulateJob, count);
+        } else {
+            simulate(0, count, frameTime, frameSmoothing);
+        }
+
+        computeWriteBack(cam);
+        writeBack();
+    }
+
+    private void readLocalBoats() {
+        for (int i = 0; i < count; i++) {
+            if (!local[i]) continue;
+            Vector3f pos = spatials[i].getWorldTranslation();
+            Quaternion rot = spatials[i].getWorldRotation();
+            px[i] = pos.x;
+            py[i] = pos.y;
+            pz[i] = pos.z;
+            qx[i] = rot.getX();
+            qy[i] = rot.getY();
+            qz[i] = rot.getZ();
+            qw[i] = rot.getW();
+            if (boatControls[i] != null) {
+                Vector3f v = boatControls[i].getLinearVelocity(tmpVelocity);
+                vx[i] = v.x;
+                vy[i] = v.y;
+                vz[i] = v.z;
+                // fold the sail as the player lowers the sail sensitivity
+                float fold = 1f - boatControls[i].getSailSensitivity();
+                sail[i] = fold > 0.9f ? 1f : fold;
+            }
+        }
+    }
+
+    /**
+     * The tight loop: only reads and writes the arrays, so ranges of boats can run on different threads.
+     */
+    private void simulate(int from, int to, long now, float smoothing) {
+        for (int i = from; i < to; i++) {
+            if (!local[i]) {
+                float ahead = Math.min((now - received[i]) / 1000f, MAX_EXTRAPOLATION);
+                if (received[i] == 0) ahead = 0;
+                px[i] += (tx[i] + vx[i] * ahead - px[i]) * smoothing;
+                py[i] += (ty[i] + vy[i] * ahead - py[i]) * smoothing;
+                pz[i] += (tz[i] + vz[i] * ahead - pz[i]) * smoothing;
+
+                // normalized lerp towards the target rotation, along the shortest arc
+                float sign = qx[i] * tqx[i] + qy[i] * tqy[i] + qz[i] * tqz[i] + qw[i] * tqw[i] < 0 ? -1f : 1f;
+                float nx = qx[i] + (tqx[i] * sign - qx[i]) * smoothing;
+                float ny = qy[i] + (tqy[i] * sign - qy[i]) * smoothing;
+                float nz = qz[i] + (tqz[i] * sign - qz[i]) * smoothing;
+                float nw = qw[i] + (tqw[i] * sign - qw[i]) * smoothing;
+                float invLength = 1f / (float) Math.sqrt(nx * nx + ny * ny + nz * nz + nw * nw);
+                qx[i] = nx * invLength;
+                qy[i] = ny * invLength;
+                qz[i] = nz * invLength;
+                qw[i] = nw * invLength;
+                continue;
+            }
+
+            Vector3f wind = winds[i];
+            if (wind == null) continue;
+            float windLength = (float) Math.sqrt(wind.x * wind.x + wind.y * wind.y + wind.z * wind.z);
+            windStrength[i] = windLength;
+            float d = 0f;
+            if (windLength > 0) {
+                // the heading is the local z axis of the rotation
+                float x = qx[i], y = qy[i], z = qz[i], w = qw[i];
+                float hx = 2f * (x * z + w * y);
+                float hy = 2f * (y * z - w * x);
+                float hz = 1f - 2f * (x * x + y * y);
+                d = ((wind.x * hx + wind.y * hy + wind.z * hz) / windLength + 1f) / 2f;
+            }
+            // same response BoatControl has when it updates itself
+            sailForce[i] = sailForce[i] < 0.6f ? 0.6f : d;
+            windFactor[i] = d;
+            flag[i] = 1f - d;
+        }
+    }
+
+    private void computeWriteBack(Camera cam) {
+        Vector3f camPos = cam.getLocation();
+        float maxDistanceSq = writeBackDistance * writeBackDistance;
+        for (int i = 0; i < count; i++) {
+            if (local[i]) {
+                writeBack[i] = true;
+                continue;
+            }
+            float dx = px[i] - camPos.x;
+            float dy = py[i] - camPos.y;
+            float dz = pz[i] - camPos.z;
+            if (dx * dx + dy * dy + dz * dz < maxDistanceSq) {
+                writeBack[i] = true;
+            } else {
+                visibilityBound.setCenter(px[i], py[i], pz[i]);
+                visibilityBound.setRadius(radius[i]);
+                writeBack[i] = cam.contains(visibilityBound) != Camera.FrustumIntersect.Outside;
+            }
+        }
+    }
+
+    private void writeBack() {
+        int written = 0;
+        for (int i = 0; i < count; i++) {
+            if (!writeBack[i]) continue;
+            written++;
+            if (local[i]) {
+                // the physics moves the local boat, only the sail needs the new factors
+                if (boatControls[i] != null) boatControls[i].setWindState(sailForce[i], windStrength[i]);
+            } else {
+                // boats are attached to the root node, their local transform is their world transform
+                Spatial boat = spatials[i];
+                boat.setLocalTranslation(px[i], py[i], pz[i]);
+                boat.setLocalRotation(tmpRotation.set(qx[i], qy[i], qz[i], qw[i]));
+            }
+            BoatAnimationControl anim = animControls[i];
+            if (anim != null) {
+                anim.setSailAnim(sail[i], windFactor[i]);
+                anim.setFlagAnim(flag[i]);
+            }
+        }
+        writtenBack = written;
+    }
+
+    private void move(int from, int to) {
+        spatials[to] = spatials[from];
+        boatControls[to] = boatControls[from];
+        animControls[to] = animControls[from];
+        winds[to] = winds[from];
+        local[to] = local[from];
+        px[to] = px[from];
+        py[to] = py[from];
+        pz[to] = pz[from];
+        qx[to] = qx[from];
+        qy[to] = qy[from];
+        qz[to] = qz[from];
+        qw[to] = qw[from];
+        vx[to] = vx[from];
+        vy[to] = vy[from];
+        vz[to] = vz[from];
+        tx[to] = tx[from];
+        ty[to] = ty[from];
+        tz[to] = tz[from];
+        tqx[to] = tqx[from];
+        tqy[to] = tqy[from];
+        tqz[to] = tqz[from];
+        tqw[to] = tqw[from];
+        received[to] = received[from];
+        sail[to] = sail[from];
+        windFactor[to] = windFactor[from];
+        flag[to] = flag[from];
+        sailForce[to] = sailForce[from];
+        windStrength[to] = windStrength[from];
+        radius[to] = radius[from];
+        writeBack[to] = writeBack[from];
+    }
+
+    private void grow(int capacity) {
+        spatials = Arrays.copyOf(spatials, capacity);
+        boatControls = Arrays.copyOf(boatControls, capacity);
+        animControls = Arrays.copyOf(animControls, capacity);
+        winds = Arrays.copyOf(winds, capacity);
+        local = Arrays.copyOf(local, capacity);
+        px = Arrays.copyOf(px, capacity);
+        py = Arrays.copyOf(py, capacity);
+        pz = Arrays.copyOf(pz, capacity);
+        qx = Arrays.copyOf(qx, capacity);
+        qy = Arrays.copyOf(qy, capacity);
+        qz = Arrays.copyOf(qz, capacity);
+        qw = Arrays.copyOf(qw, capacity);
+        vx = Arrays.copyOf(vx, capacity);
+        vy = Arrays.copyOf(vy, capacity);
+        vz = Arrays.copyOf(vz, capacity);
+        tx = Arrays.copyOf(tx, capacity);
+        ty = Arrays.copyOf(ty, capacity);
+        tz = Arrays.copyOf(tz, capacity);
+        tqx = Arrays.copyOf(tqx, capacity);
+        tqy = Arrays.copyOf(tqy, capacity);
+        tqz = Arrays.copyOf(tqz, capacity);
+        tqw = Arrays.copyOf(tqw, capacity);
+        received = Arrays.copyOf(received, capacity);
+        sail = Arrays.copyOf(sail, capacity);
+        windFactor = Arrays.copyOf(windFactor, capacity);
+        flag = Arrays.copyOf(flag, capacity);
+        sailForce = Arrays.copyOf(sailForce, capacity);
+        windStrength = Arrays.copyOf(windStrength, capacity);
+        radius = Arrays.copyOf(radius, capacity);
+        writeBack = Arrays.copyOf(writeBack, capacity);
+    }
+}
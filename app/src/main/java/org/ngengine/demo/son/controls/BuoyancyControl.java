@@ -35,26 +35,18 @@ import com.jme3.audio.AudioData.DataType;
 import com.jme3.audio.AudioNode;
 import com.jme3.audio.AudioSource;
 import com.jme3.bounding.BoundingBox;
-import com.jme3.bullet.BulletAppState;
-import com.jme3.bullet.PhysicsSpace;
-import com.jme3.bullet.PhysicsTickListener;
 import com.jme3.bullet.control.RigidBodyControl;
-import com.jme3.effect.ParticleEmitter;
-import com.jme3.effect.ParticleMesh.Type;
-import com.jme3.effect.influencers.NewtonianParticleInfluencer;
-import com.jme3.effect.shapes.EmitterSphereShape;
-import com.jme3.material.Material;
-import com.jme3.math.ColorRGBA;
 import com.jme3.math.FastMath;
 import com.jme3.math.Quaternion;
 import com.jme3.math.Vector3f;
 import com.jme3.renderer.RenderManager;
 import com.jme3.renderer.ViewPort;
 import com.jme3.scene.Node;
-import com.jme3.scene.control.AbstractControl;
+import org.ngengine.demo.son.fx.ParticleManager;
 import org.ngengine.demo.son.ocean.OceanAppState;
+import org.ngengine.demo.son.ocean.WaterHeightBatch;
 
-public class BuoyancyControl extends AbstractControl implements PhysicsTickListener {
+public class BuoyancyControl extends TieredControl {
 
     public static class SamplingPoint {
 
@@ -63,7 +55,6 @@ public class BuoyancyControl extends AbstractControl implements PhysicsTickListe
     }
 
     private transient OceanAppState appState;
-    private boolean appendedToPhysicsSpace = false;
     private float waterDensity = 1000f;
 
     private Vector3f prevVelocity = new Vector3f();
@@ -84,34 +75,149 @@ public class BuoyancyControl extends AbstractControl implements PhysicsTickListe
     private float objectLength = 0.5f; // Length of the object in meters
     private float objectWidth = 0.5f; // Width of the object in meters
 
+    // hull sample points in model space (x,y,z triplets), when set they replace the five point model
+    private float[] hullPoints;
+    private int hullPointCount;
+
+    // physics thread state: index of the center sample in the ocean batch and scratch vectors
+    private int batchOffset = -1;
+    private final Vector3f bodyLocation = new Vector3f();
+    private final Quaternion bodyRotation = new Quaternion();
+    private final Vector3f pointOffset = new Vector3f();
+    private final Vector3f pointForce = new Vector3f();
+    private final Vector3f bodyVelocity = new Vector3f();
+    private final Vector3f bodyForward = new Vector3f();
+    private final Vector3f bodyRight = new Vector3f();
+    private final Quaternion tiltRotation = new Quaternion();
+    private final float[] angles = new float[3];
+
     private AudioNode splash;
-    private ParticleEmitter splashParticles;
-    private Material splashParticlesMaterial;
+    private ParticleManager particles;
 
     public void setAppState(OceanAppState appState) {
         this.appState = appState;
-        if (spatial instanceof Node) {
+        if (appState == null) {
+            if (splash != null) {
+                splash.stop();
+                splash.removeFromParent();
+                splash = null;
+            }
+            return;
+        }
+        if (splash == null && spatial instanceof Node) {
             Node node = (Node) spatial;
             splash = new AudioNode(appState.getAssetManager(), "Sounds/watersplash.ogg", DataType.Buffer);
             splash.setPositional(true);
             node.attachChild(splash);
             splash.setPositional(true);
+        }
+    }
 
-            splashParticles = new ParticleEmitter("Splash Particles", Type.Triangle, 30);
-            splashParticles.setInWorldSpace(false);
-            splashParticles.setShape(new EmitterSphereShape(new Vector3f(0, 0, 0), 1f));
-            splashParticles.setParticleInfluencer(new NewtonianParticleInfluencer());
-            splashParticles.setParticlesPerSec(0);
+    public void setParticleManager(ParticleManager particles) {
+        this.particles = particles;
+    }
+
+    /**
+     * Switches to the hull point model: the water pushes on each point, at its offset from the center of
+     * mass, so pitch and roll come from the physics instead of being forced on the body.
+     *
+     * @param points
+     *            the points in model space as x,y,z triplets, see
+     *            {@link org.ngengine.demo.son.utils.HullSamplePoints}, or null to go back to the five point
+     *            model
+     */
+    public void setHullPoints(float[] points) {
+        if (points == null || points.length < 3) {
+            hullPoints = null;
+            hullPointCount = 0;
+        } else {
+            hullPoints = points;
+            hullPointCount = points.length / 3;
+        }
+    }
 
-            node.attachChild(splashParticles);
+    public int getHullPointCount() {
+        return hullPointCount;
+    }
 
-            splashParticlesMaterial = new Material(appState.getAssetManager(), "Common/MatDefs/Misc/Particle.j3md");
-            // splashParticlesMaterial.setTexture("Texture",
-            //         appState.getApplication().getAssetManager().loadTexture("Effects/Explosion/flame.png"));
-            splashParticles.setMaterial(splashParticlesMaterial);
+    /**
+     * Queues the points to sample for this object, at the current physics transform. Called on the physics
+     * thread by the ocean for all the floating objects before one batched water query.
+     */
+    public void queueWaterSamples(WaterHeightBatch batch) {
+        reserveWaterSamples(batch);
+        writeWaterSamples(batch);
+    }
+
+    /**
+     * First half of {@link #queueWaterSamples(WaterHeightBatch)}: reserves the points of this object in the
+     * batch. Must be called for every object from a single thread.
+     */
+    public void reserveWaterSamples(WaterHeightBatch batch) {
+        batchOffset = -1;
+        if (spatial == null || spatial.getControl(RigidBodyControl.class) == null) return;
+        batchOffset = batch.reserve(1 + (hullPointCount > 0 ? hullPointCount : 4));
+    }
+
+    /**
+     * Second half of {@link #queueWaterSamples(WaterHeightBatch)}: writes the reserved points, different
+     * objects can be written by different threads.
+     */
+    public void writeWaterSamples(WaterHeightBatch batch) {
+        if (batchOffset < 0) return;
+        RigidBodyControl rb = spatial.getControl(RigidBodyControl.class);
+        rb.getPhysicsLocation(bodyLocation);
+        rb.getPhysicsRotation(bodyRotation);
+
+        batch.set(batchOffset, bodyLocation.x, bodyLocation.z);
+        if (hullPointCount > 0) {
+            for (int i = 0; i < hullPointCount; i++) {
+                writePoint(batch, batchOffset + 1 + i, hullPoints[i * 3], hullPoints[i * 3 + 1], hullPoints[i * 3 + 2]);
+            }
+        } else {
+            float zEX = objectLength / 2f;
+            float xEX = objectWidth / 2f;
+            writePoint(batch, batchOffset + 1, 0, 0, zEX); // front
+            writePoint(batch, batchOffset + 2, 0, 0, -zEX); // back
+            writePoint(batch, batchOffset + 3, -xEX, 0, 0); // left
+            writePoint(batch, batchOffset + 4, xEX, 0, 0); // right
         }
     }
 
+    private void writePoint(WaterHeightBatch batch, int index, float x, float y, float z) {
+        bodyRotation.mult(pointOffset.set(x, y, z), pointOffset);
+        batch.set(index, bodyLocation.x + pointOffset.x, bodyLocation.z + pointOffset.z);
+    }
+
+    /**
+     * Applies the buoyancy forces using the heights sampled for the points queued by
+     * {@link #queueWaterSamples(WaterHeightBatch)}. Called on the physics thread.
+     */
+    public void applyBuoyancy(WaterHeightBatch batch, float tpf) {
+        if (batchOffset < 0 || appState == null) return;
+        RigidBodyControl rb = spatial.getControl(RigidBodyControl.class);
+        if (rb == null) return;
+
+        s0.x = bodyLocation.x;
+        s0.y = bodyLocation.y;
+        s0.z = bodyLocation.z;
+        s0.waterHeight = batch.getHeight(batchOffset);
+
+        if (hullPointCount > 0) {
+            applyHullForces(rb, batch);
+        } else {
+            sf.waterHeight = batch.getHeight(batchOffset + 1);
+            sb.waterHeight = batch.getHeight(batchOffset + 2);
+            sl.waterHeight = batch.getHeight(batchOffset + 3);
+            sr.waterHeight = batch.getHeight(batchOffset + 4);
+            applyFivePointForces(rb, tpf);
+        }
+
+        // Apply damping
+        rb.setLinearDamping(0.9f);
+        rb.setAngularDamping(0.9f);
+    }
+
     public float getWaterHeight() {
         if (appState == null) {
             return 0;
@@ -133,90 +239,23 @@ public class BuoyancyControl extends AbstractControl implements PhysicsTickListe
         }
     }
 
-    Vector3f samplingPos = new Vector3f();
-
     @Override
     protected void controlUpdate(float tpf) {
         if (appState == null) return;
+        // the water is sampled on the physics thread, only react to it here
+        checkSplash(spatial.getWorldTranslation());
+    }
 
-        // Ensure this control is registered as a physics tick listener
-        if (!appendedToPhysicsSpace) {
-            BulletAppState bulletAppState = appState.getPhysics();
-            if (bulletAppState != null) {
-                bulletAppState.getPhysicsSpace().addTickListener(this);
-                appendedToPhysicsSpace = true;
-            }
-        }
-
-        Vector3f wpos = spatial.getWorldTranslation();
-        Quaternion wrot = spatial.getWorldRotation();
-
-        // sample at wpos
-        s0.x = wpos.x;
-        s0.y = wpos.y;
-        s0.z = wpos.z;
-        s0.waterHeight = appState.getWaterHeightAt(s0.x, s0.z);
-
-        // sample in front of wpos
-
-        float zEX = objectLength / 2f;
-        float xEX = objectWidth / 2f;
-        Vector3f at = wpos.add(wrot.mult(new Vector3f(0, 0, zEX)));
-        sf.x = at.x;
-        sf.y = at.y;
-        sf.z = at.z;
-        sf.waterHeight = appState.getWaterHeightAt(sf.x, sf.z);
-
-        // sample behind wpos
-        at = wpos.add(wrot.mult(new Vector3f(0, 0, -zEX)));
-        sb.x = at.x;
-        sb.y = at.y;
-        sb.z = at.z;
-        sb.waterHeight = appState.getWaterHeightAt(sb.x, sb.z);
-
-        // sample to the left of wpos
-        at = wpos.add(wrot.mult(new Vector3f(-xEX, 0, 0)));
-        sl.x = at.x;
-        sl.y = at.y;
-        sl.z = at.z;
-        sl.waterHeight = appState.getWaterHeightAt(sl.x, sl.z);
-
-        // sample to the right of wpos
-        at = wpos.add(wrot.mult(new Vector3f(xEX, 0, 0)));
-        sr.x = at.x;
-        sr.y = at.y;
-        sr.z = at.z;
-        sr.waterHeight = appState.getWaterHeightAt(sr.x, sr.z);
-
-        // System.out.println("s0: " + s0.waterHeight + " sf: " + sf.waterHeight + " sb: " + sb.waterHeight + " sl: " + sl.waterHeight + " sr: " + sr.waterHeight);
-
+    private void checkSplash(Vector3f wpos) {
         float d = Math.abs(s0.waterHeight - s0.y);
         if (d > 1.4f) {
             if (splash != null && splash.getStatus() != AudioSource.Status.Playing) {
                 splash.setPitch(0.9f);
                 splash.setVolume(2f); //Math.clamp(d-0.4f, 0.4f, 1f ));
                 splash.play();
-                splashParticles.setLowLife(1.9f);
-                splashParticles.setHighLife(1.9f);
-                splashParticles.setEndSize(1.8f);
-                splashParticles.setStartSize(.3f);
-                splashParticles.setStartColor(new ColorRGBA(35.0f / 255.0f, 0.0f, 110f / 255.0f, 1f).setAlpha(0.8f));
-                splashParticles.setEndColor(new ColorRGBA(35.0f / 255.0f, 0.0f, 110f / 255.0f, 1f).setAlpha(0.0f));
-
-                EmitterSphereShape shape = (EmitterSphereShape) splashParticles.getShape();
-                shape.setRadius(8f);
-                NewtonianParticleInfluencer rp = (NewtonianParticleInfluencer) splashParticles.getParticleInfluencer();
-                // rp.setRadialVelocity(20f);
-                // rp.setSurfaceTangentFactor(0f);
-                // rp.setVelocityVariation(0f);
-                rp.setVelocityVariation(0.2f);
-                rp.setNormalVelocity(1f);
-                // rp.setRadialVelocity(100f);
-                rp.setInitialVelocity(new Vector3f(0, 0.6f, 0));
-                splashParticles.setGravity(0, 12.81f, 0);
-                // rp.setHorizontal(true);
-
-                // splashParticles.emitParticles(22);
+                if (particles != null) {
+                    particles.emitSplash(wpos, 8f);
+                }
             }
         }
     }
@@ -224,13 +263,9 @@ public class BuoyancyControl extends AbstractControl implements PhysicsTickListe
     @Override
     protected void controlRender(RenderManager rm, ViewPort vp) {}
 
-    @Override
-    public void prePhysicsTick(PhysicsSpace space, float tpf) {
-        RigidBodyControl rb = spatial.getControl(RigidBodyControl.class);
-        if (rb == null || appState == null) return;
-
-        float angles[] = new float[3];
-        rb.getPhysicsRotation().toAngles(angles);
+    private void applyFivePointForces(RigidBodyControl rb, float tpf) {
+        // the rotation was read from the body when the samples were queued in this same tick
+        bodyRotation.toAngles(angles);
 
         // Apply buoyancy force
         {
@@ -239,11 +274,7 @@ public class BuoyancyControl extends AbstractControl implements PhysicsTickListe
 
             float heightDiff = higherWaterHeight - lowestSurfaceY;
             float buoyancyForce = heightDiff * waterDensity * 0.81f;
-            if (buoyancyForce > 0) {
-                rb.applyCentralForce(new Vector3f(0, buoyancyForce, 0));
-            } else {
-                rb.applyCentralForce(new Vector3f(0, buoyancyForce, 0));
-            }
+            rb.applyCentralForce(pointForce.set(0, buoyancyForce, 0));
         }
 
         // 1. Improved water-based tilt calculations with smooth proportional response
@@ -270,9 +301,9 @@ public class BuoyancyControl extends AbstractControl implements PhysicsTickListe
         targetWaterRoll = smoothedWaterRoll;
 
         // 2. Velocity-based tilt calculations
-        Vector3f velocity = rb.getLinearVelocity();
-        Vector3f forward = rb.getPhysicsRotation().mult(Vector3f.UNIT_Z);
-        Vector3f right = rb.getPhysicsRotation().mult(Vector3f.UNIT_X);
+        Vector3f velocity = rb.getLinearVelocity(bodyVelocity);
+        Vector3f forward = bodyRotation.mult(Vector3f.UNIT_Z, bodyForward);
+        Vector3f right = bodyRotation.mult(Vector3f.UNIT_X, bodyRight);
 
         // Calculate forward and lateral components of velocity
         float forwardSpeed = velocity.dot(forward);
@@ -320,14 +351,20 @@ public class BuoyancyControl extends AbstractControl implements PhysicsTickListe
         }
 
         // Apply the rotation
-        Quaternion q = new Quaternion().fromAngles(angles);
-        rb.setPhysicsRotation(q);
-
-        // Apply damping
-        rb.setLinearDamping(0.9f);
-        rb.setAngularDamping(0.9f);
+        rb.setPhysicsRotation(tiltRotation.fromAngles(angles));
     }
 
-    @Override
-    public void physicsTick(PhysicsSpace space, float tpf) {}
+    private void applyHullForces(RigidBodyControl rb, WaterHeightBatch batch) {
+        // same total force as the five point model for the same average depth
+        float forcePerMeter = waterDensity * 0.81f / hullPointCount;
+        for (int i = 0; i < hullPointCount; i++) {
+            pointOffset.set(hullPoints[i * 3], hullPoints[i * 3 + 1], hullPoints[i * 3 + 2]);
+            bodyRotation.mult(pointOffset, pointOffset);
+            float depth = batch.getHeight(batchOffset + 1 + i) - (bodyLocation.y + pointOffset.y);
+            if (depth <= 0) continue;
+            pointForce.set(0, depth * forcePerMeter, 0);
+            // the offset is relative to the center of mass, in world orientation
+            rb.applyForce(pointForce, pointOffset);
+        }
+    }
 }
@@ -31,14 +31,6 @@
  */
 package org.ngengine.demo.son.controls;
 
-import com.jme3.asset.AssetManager;
-import com.jme3.effect.Particle;
-import com.jme3.effect.ParticleEmitter;
-import com.jme3.effect.ParticleMesh.Type;
-import com.jme3.effect.influencers.EmptyParticleInfluencer;
-import com.jme3.material.Material;
-import com.jme3.material.RenderState.BlendMode;
-import com.jme3.math.ColorRGBA;
 import com.jme3.math.Quaternion;
 import com.jme3.math.Transform;
 import com.jme3.math.Vector3f;
@@ -46,66 +38,133 @@ import com.jme3.network.HostedConnection;
 import com.jme3.network.Message;
 import com.jme3.renderer.RenderManager;
 import com.jme3.renderer.ViewPort;
-import com.jme3.scene.Node;
 import com.jme3.scene.Spatial;
-import com.jme3.scene.control.AbstractControl;
-import java.time.Instant;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
 import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import org.ngengine.demo.son.packets.AnimPacket;
-import org.ngengine.demo.son.packets.TransformPacket;
+import org.ngengine.demo.son.fx.ParticleManager;
+import org.ngengine.demo.son.packets.AckPacket;
+import org.ngengine.demo.son.packets.BoatSnapshot;
+import org.ngengine.demo.son.packets.BoatState;
+import org.ngengine.demo.son.packets.EncodedPacket;
+import org.ngengine.demo.son.packets.PacketEncoder;
+import org.ngengine.demo.son.packets.WireFormat;
+import org.ngengine.demo.son.perf.PerfStats;
 import org.ngengine.network.RemotePeer;
 
-public class NetworkControl extends AbstractControl {
+public class NetworkControl extends TieredControl {
 
     private static final Logger log = Logger.getLogger(NetworkControl.class.getName());
 
-    private ParticleEmitter dataParticle;
-    private Material dataParticleMaterial;
-    private List<Particle> emittedParticle = new ArrayList<>(1);
+    private final ParticleManager particles;
     private final double NETSYNC_MIN_RATE = 1000.0 / 5.0;
     private final double NETSYNC_MAX_RATE = 1000.0 / 25.0;
     private final double MAX_D = 2000.0;
     private final int EMIT_PARTICLE_EVERY_N_PACKETS = 3;
+    // states kept on both sides to delta encode against, must be a power of two
+    private static final int BASELINE_HISTORY = 256;
+    // full states are sent when the receiver did not acknowledge anything sent in this time
+    private static final long BASELINE_TIMEOUT = 3000;
+    // weight of a new round trip sample in the smoothed round trip time
+    private static final float RTT_SMOOTHING = 0.125f;
+    // snapshots and acks go on the unreliable channel, -Dnetwork.reliablesnapshots=true sends them reliably
+    private static final boolean RELIABLE_SNAPSHOTS = Boolean.getBoolean("network.reliablesnapshots");
+    private final float DATA_PARTICLE_SPEED = 80.3f;
     private Spatial dataStreamSpatial;
-    private Instant lastReceivedTransformPacket = Instant.ofEpochMilli(0);
+    // network ticks, counted once per send and used to drop snapshots older than the last applied one
+    private long tick = 0;
+    private short lastSnapshotTick;
+    private boolean receivedSnapshot = false;
+    // packets are copied into their encoded bytes before sending, so the same instances are refilled for every update
+    private final PacketEncoder encoder;
+    private final BoatSnapshot snapshotOut = new BoatSnapshot();
+    private final AckPacket ackOut = new AckPacket();
+    private final BoatState stateOut = new BoatState();
+    private final Vector3f velocityOut = new Vector3f();
+    // states received from the remote boat, by tick, and whether the newest one still has to be acknowledged
+    private BoatState[] receivedStates;
+    private short[] receivedStateTicks;
+    private boolean ackPending = false;
+    private final Vector3f receivedPosition = new Vector3f();
+    private final Quaternion receivedRotation = new Quaternion();
+    private final Vector3f receivedVelocity = new Vector3f();
     private int particlesSkipPackets = 0;
+    private BoatSystem boatSystem;
 
-    public NetworkControl(AssetManager assetManager) {
-        dataParticleMaterial = new Material(assetManager, "Common/MatDefs/Misc/Particle.j3md");
-        dataParticleMaterial.setTexture("Texture", assetManager.loadTexture("Textures/matrixhex.png"));
-        dataParticleMaterial.getAdditionalRenderState().setBlendMode(BlendMode.AlphaAdditive);
-
-        dataParticle = new ParticleEmitter("Data Particles", Type.Triangle, 101);
-        dataParticle.setParticleInfluencer(new EmptyParticleInfluencer());
-        dataParticle.setInWorldSpace(true);
-        dataParticle.setMaterial(dataParticleMaterial);
-        dataParticle.setParticlesPerSec(0);
-        dataParticle.setImagesX(6);
-        dataParticle.setImagesY(7);
-        dataParticle.setSelectRandomImage(true);
-
-        dataParticle.setStartColor(ColorRGBA.Magenta.mult(10f).setAlpha(0.5f));
-        dataParticle.setEndColor(ColorRGBA.Magenta.mult(10f).setAlpha(0.1f));
-        dataParticle.setStartSize(5f);
-        dataParticle.setEndSize(6.3f);
-        dataParticle.setLowLife(4.5f);
-        dataParticle.setHighLife(4.5f);
-
+    public NetworkControl(ParticleManager particles, PacketEncoder encoder) {
+        this.particles = particles;
+        this.encoder = encoder;
+        snapshotOut.setReliable(RELIABLE_SNAPSHOTS);
+        ackOut.setReliable(RELIABLE_SNAPSHOTS);
     }
 
     @Override
     public void setSpatial(Spatial spatial) {
         super.setSpatial(spatial);
-        if (spatial != null && spatial instanceof Node) {
-            Node node = (Node) spatial;
-            node.attachChild(dataParticle);
+        dataStreamSpatial = spatial;
+        if (spatial != null) {
+            spatial.depthFirstTraversal(sx -> {
+                if (sx.getUserData("datastreamemitter") != null) {
+                    dataStreamSpatial = sx;
+                }
+            });
         }
-        dataStreamSpatial = null;
+    }
+
+    /**
+     * Hands the received snapshots to the boat system instead of applying them to the spatial directly.
+     */
+    public void setBoatSystem(BoatSystem boatSystem) {
+        this.boatSystem = boatSystem;
+    }
+
+    /**
+     * States sent to a peer, by tick, and the newest one it acknowledged.
+     */
+    private static final class PeerBaselines {
+
+        final NetworkControl owner;
+        final BoatState[] states = new BoatState[BASELINE_HISTORY];
+        final long[] ticks = new long[BASELINE_HISTORY];
+        final long[] sentTimes = new long[BASELINE_HISTORY];
+        long ackedTick = -1;
+        // smoothed time from a send to its ack, in milliseconds on the local clock, negative until measured
+        float rtt = -1f;
+
+        PeerBaselines(NetworkControl owner) {
+            this.owner = owner;
+            Arrays.fill(ticks, -1);
+        }
+
+        /**
+         * Returns the acknowledged state to encode the given tick against, or null if a full state must be sent.
+         */
+        BoatState get(long tick, long now) {
+            if (ackedTick < 0 || tick - ackedTick >= BASELINE_HISTORY) return null;
+            int slot = (int) (ackedTick & (BASELINE_HISTORY - 1));
+            if (ticks[slot] != ackedTick || now - sentTimes[slot] > BASELINE_TIMEOUT) return null;
+            return states[slot];
+        }
+
+        void record(long tick, long now, BoatState state) {
+            int slot = (int) (tick & (BASELINE_HISTORY - 1));
+            if (states[slot] == null) states[slot] = new BoatState();
+            states[slot].set(state);
+            ticks[slot] = tick;
+            sentTimes[slot] = now;
+        }
+    }
+
+    private PeerBaselines getBaselines(HostedConnection conn) {
+        PeerBaselines baselines = conn.getAttribute("pbl");
+        // ticks restart with every boat, so baselines of a previous one are useless
+        if (baselines == null || baselines.owner != this) {
+            baselines = new PeerBaselines(this);
+            conn.setAttribute("pbl", baselines);
+        }
+        return baselines;
     }
 
     long lastTimestamp = 0;
@@ -116,34 +175,17 @@ public class NetworkControl extends AbstractControl {
             return; 
         }
         particlesSkipPackets = 0;
-   
-
-        emittedParticle.clear();
-        dataParticle.emitParticles(1, emittedParticle);
-        Particle particle = emittedParticle.size() > 0 ? emittedParticle.get(0) : null;
-        if (particle == null) return;
-        if (dataStreamSpatial == null) {
-            spatial.depthFirstTraversal(sx -> {
-                if (sx.getUserData("datastreamemitter") != null) {
-                    dataStreamSpatial = sx;
-                }
-            });
-            if (dataStreamSpatial == null) {
-                dataStreamSpatial = spatial;
-            }
-        }
-        particle.position.set(dataStreamSpatial.getWorldTranslation());
-        particle.angle = 0f;
-        particle.rotateSpeed = 0f;
-        particle.velocity.set(to.subtract(particle.position).normalizeLocal().mult(80.3f));
+        if (particles == null || dataStreamSpatial == null) return;
+        particles.emitDataStream(dataStreamSpatial.getWorldTranslation(), to, DATA_PARTICLE_SPEED);
     }
 
     public void sendUpdatePackets(Set<Map.Entry<HostedConnection, Spatial>> peers) {
+        long perfStart = PerfStats.begin();
         Transform localTransform = getSpatial().getWorldTransform();
-        TransformPacket positionPacket = null;
-        AnimPacket animPacket = null;
+        boolean stateOutReady = false;
 
-        long now = Instant.now().toEpochMilli();
+        long now = System.currentTimeMillis();
+        tick++;
 
         double baseMinRate = NETSYNC_MIN_RATE;
         double baseMmaxRate = NETSYNC_MAX_RATE;
@@ -168,81 +210,170 @@ public class NetworkControl extends AbstractControl {
                 double scale = Math.clamp((double) (dist / maxDistance), 0.0, 1.0);
                 double expectedRate = ((1.0 - scale) * maxRate) + (scale * minRate);
 
-                Long lastSentPosition = p.getKey().getAttribute("lspp");
-                if (lastSentPosition == null) lastSentPosition = 0l;
-
-                
-                
-                if (now - lastSentPosition >= expectedRate) {
-                    p.getKey().setAttribute("lspp", now);
-                    if (positionPacket == null) {
-                        positionPacket = new TransformPacket();
-                        positionPacket.setTransform(localTransform);
-                    }
+                // mutable holder, to avoid boxing the timestamp on every update
+                long[] lastSentPosition = p.getKey().getAttribute("lspp");
+                if (lastSentPosition == null) {
+                    lastSentPosition = new long[1];
+                    p.getKey().setAttribute("lspp", lastSentPosition);
+                }
 
-                    try {
-                        p.getKey().send(positionPacket);
-                        drawPacketSent(pPos);
-                    } catch (Exception e) {
-                        log.log(Level.WARNING, "Error sending transform packet to connection " + p.getKey().getId(), e);
+                if (now - lastSentPosition[0] >= expectedRate) {
+                    lastSentPosition[0] = now;
+                    if (!stateOutReady) {
+                        captureState(localTransform);
+                        stateOutReady = true;
                     }
 
-                    if (animPacket == null) {
-                        BoatAnimationControl animControl = getSpatial().getControl(BoatAnimationControl.class);
-                        if (animControl != null) {
-                            float flagFactor = animControl.getFlagFactor();
-                            float sailFactor = animControl.getSailFactor();
-                            float windFactor = animControl.getWindFactor();
-                            animPacket = new AnimPacket(flagFactor, sailFactor, windFactor);
-                        }
-                    }
-                    if (animPacket != null) {
-                        p.getKey().send(animPacket);
-                    }
+                    PeerBaselines baselines = getBaselines(p.getKey());
+                    snapshotOut.encode(stateOut, baselines.get(tick, now), baselines.ackedTick, tick);
+                    baselines.record(tick, now, stateOut);
+                    EncodedPacket out = encoder.encode(snapshotOut);
+                    p.getKey().send(out);
+                    PerfStats.countSent(p.getKey(), out.getSize());
+                    drawPacketSent(pPos);
                 }
             } catch (Exception e) {
                 log.log(Level.WARNING, "Error sending network update to connection " + p.getKey().getId(), e);
             }
         }
+        PerfStats.end(PerfStats.Section.NET_SEND, perfStart);
     }
 
-    public void applyPacket(Message m) {
-        log.info("Received message: " + m);
-        if (m instanceof TransformPacket) {
-            TransformPacket packet = (TransformPacket) m;
-            if (packet.getTimestamp().isBefore(lastReceivedTransformPacket)) {
-                log.finer("Received old packet");
-                return;
-            }
-            Spatial boat = getSpatial();
-            Vector3f parentPosition = boat.getParent().getWorldTranslation();
-            Vector3f localPosition = boat.getLocalTranslation();
-            localPosition.set(packet.getTransform().getTranslation());
-            localPosition.subtractLocal(parentPosition);
-            boat.setLocalTranslation(localPosition);
-
-            Quaternion parentRotation = boat.getParent().getWorldRotation();
-            Quaternion localRotation = boat.getLocalRotation();
-            localRotation.set(packet.getTransform().getRotation());
-            localRotation.multLocal(parentRotation);
-            boat.setLocalRotation(localRotation);
-        } else if (m instanceof AnimPacket) {
-            AnimPacket animPacket = (AnimPacket) m;
-            if (animPacket.getTimestamp().isBefore(lastReceivedTransformPacket)) {
-                log.finer("Received old packet");
-                return;
+    private void captureState(Transform localTransform) {
+        stateOut.setPose(localTransform.getTranslation(), localTransform.getRotation());
+        BoatControl boatControl = getSpatial().getControl(BoatControl.class);
+        if (boatControl != null) {
+            stateOut.setVelocity(boatControl.getLinearVelocity(velocityOut));
+        }
+        BoatAnimationControl animControl = getSpatial().getControl(BoatAnimationControl.class);
+        if (animControl != null) {
+            stateOut.setAnim(animControl.getFlagFactor(), animControl.getSailFactor(), animControl.getWindFactor());
+        }
+    }
+
+    /**
+     * Records that a peer received the snapshot sent with the given tick, following snapshots are encoded
+     * against it.
+     */
+    public void applyAck(HostedConnection source, AckPacket ack) {
+        PeerBaselines baselines = getBaselines(source);
+        long acked = tick + WireFormat.tickDelta(ack.getTick(), WireFormat.packTick(tick));
+        if (acked > baselines.ackedTick && acked <= tick) {
+            baselines.ackedTick = acked;
+            int slot = (int) (acked & (BASELINE_HISTORY - 1));
+            if (baselines.ticks[slot] == acked) {
+                float sample = System.currentTimeMillis() - baselines.sentTimes[slot];
+                baselines.rtt = baselines.rtt < 0 ? sample : baselines.rtt + (sample - baselines.rtt) * RTT_SMOOTHING;
             }
-            Spatial boat = getSpatial();
-            BoatAnimationControl animControl = boat.getControl(BoatAnimationControl.class);
-            if (animControl != null) {
-                animControl.setFlagAnim(animPacket.getFlagFactor());
-                animControl.setSailAnim(animPacket.getSailFactor(), animPacket.getWindFactor());
-            } else {
-                log.warning("No BoatControl found for remote boat of connection: " + spatial);
+        }
+    }
+
+    /**
+     * Estimated one way latency to a peer in seconds, half of the round trip measured with its acks, or 0
+     * if no ack was received yet. Only local clock readings are used, so the clock skew between the peers
+     * does not matter.
+     */
+    public float getLatency(HostedConnection conn) {
+        PeerBaselines baselines = conn.getAttribute("pbl");
+        if (baselines == null || baselines.owner != this || baselines.rtt < 0) return 0f;
+        return baselines.rtt * 0.5f / 1000f;
+    }
+
+    /**
+     * Acknowledges the newest snapshot received from the remote boat, if it was not acknowledged yet.
+     */
+    public void sendAck(HostedConnection conn) {
+        if (!ackPending) return;
+        ackPending = false;
+        ackOut.setTick(lastSnapshotTick);
+        try {
+            EncodedPacket out = encoder.encode(ackOut);
+            conn.send(out);
+            PerfStats.countSent(conn, out.getSize());
+        } catch (Exception e) {
+            log.log(Level.WARNING, "Error sending ack to connection " + conn.getId(), e);
+        }
+    }
+
+    /**
+     * Payload size of a packet, used only for the network statistics.
+     */
+    public static int getEstimatedSize(Message m) {
+        if (m instanceof EncodedPacket) return ((EncodedPacket) m).getSize();
+        return 0;
+    }
+
+    /**
+     * Applies a snapshot received from the remote boat.
+     *
+     * @return false if the snapshot was dropped, because a newer one was already applied or its baseline is
+     *         missing
+     */
+    public boolean applyPacket(Message m) {
+        if (log.isLoggable(Level.FINEST)) log.finest("Received message: " + m);
+        if (!(m instanceof BoatSnapshot)) {
+            log.warning("Received unknown message type: " + m.getClass().getName());
+            return false;
+        }
+        BoatSnapshot packet = (BoatSnapshot) m;
+        // snapshots are unordered, the tick is their sequence number
+        if (receivedSnapshot && WireFormat.tickDelta(packet.getTick(), lastSnapshotTick) <= 0) {
+            log.finer("Received old packet");
+            return false;
+        }
+        if (receivedStates == null) {
+            receivedStates = new BoatState[BASELINE_HISTORY];
+            receivedStateTicks = new short[BASELINE_HISTORY];
+        }
+        BoatState baseline = null;
+        if (packet.hasBaseline()) {
+            int baseSlot = packet.getBaselineTick() & (BASELINE_HISTORY - 1);
+            baseline = receivedStates[baseSlot];
+            if (baseline == null || receivedStateTicks[baseSlot] != packet.getBaselineTick()) {
+                // not acknowledged, the sender falls back to a full state after a timeout
+                log.finer("Received snapshot for a missing baseline");
+                return false;
             }
+        }
+        int slot = packet.getTick() & (BASELINE_HISTORY - 1);
+        if (receivedStates[slot] == null) receivedStates[slot] = new BoatState();
+        BoatState state = packet.decode(baseline, receivedStates[slot]);
+        receivedStateTicks[slot] = packet.getTick();
+        receivedSnapshot = true;
+        lastSnapshotTick = packet.getTick();
+        ackPending = true;
+
+        Spatial boat = getSpatial();
+        Vector3f position = state.getPosition(receivedPosition);
+        Quaternion rotation = state.getRotation(receivedRotation);
+        Vector3f velocity = state.getVelocity(receivedVelocity);
+        if (
+            boatSystem != null &&
+            boatSystem.applyTransform(boat, position, rotation, velocity) &&
+            boatSystem.applyAnim(boat, state.getSailFactor(), state.getWindFactor(), state.getFlagFactor())
+        ) {
+            return true;
+        }
+        Vector3f parentPosition = boat.getParent().getWorldTranslation();
+        Vector3f localPosition = boat.getLocalTranslation();
+        localPosition.set(position);
+        localPosition.subtractLocal(parentPosition);
+        boat.setLocalTranslation(localPosition);
+
+        Quaternion parentRotation = boat.getParent().getWorldRotation();
+        Quaternion localRotation = boat.getLocalRotation();
+        localRotation.set(rotation);
+        localRotation.multLocal(parentRotation);
+        boat.setLocalRotation(localRotation);
+
+        BoatAnimationControl animControl = boat.getControl(BoatAnimationControl.class);
+        if (animControl != null) {
+            animControl.setFlagAnim(state.getFlagFactor());
+            animControl.setSailAnim(state.getSailFactor(), state.getWindFactor());
         } else {
-            log.warning("Received unknown message type: " + m.getClass().getName());
+            log.warning("No BoatControl found for remote boat of connection: " + spatial);
         }
+        return true;
     }
 
     @Override
@@ -0,0 +1,164 @@
+/**
+ * Copyright (c) 2025, Nostr Game Engine
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * Nostr Game Engine is a fork of the jMonkeyEngine, which is licensed under
+ * the BSD 3-Clause License. The original jMonkeyEngine license is as follows:
+ */
+package org.ngengine.demo.son.controls;
+
+import com.jme3.bullet.PhysicsSpace;
+import com.jme3.bullet.control.RigidBodyControl;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Spatial;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+import org.ngengine.demo.son.utils.CollisionShapeCache;
+
+/**
+ * Keeps remote boats out of the physics space. Their pose comes from the network, so they only need a body
+ * when they are close enough to collide with the local boat: a boat is promoted to a kinematic body when it
+ * enters the collision radius and demoted when it leaves it again, so the broadphase only holds the boats
+ * nearby instead of every peer.
+ */
+public class RemoteBoatProxies {
+
+    private static final Logger log = Logger.getLogger(RemoteBoatProxies.class.getName());
+
+    private static class Proxy {
+
+        final Spatial boat;
+        RigidBodyControl body;
+        boolean promoted;
+
+        Proxy(Spatial boat) {
+            this.boat = boat;
+        }
+    }
+
+    private final List<Proxy> proxies = new ArrayList<>();
+    private PhysicsSpace space;
+    private float collisionRadius = 150f;
+    // demote a bit further than the promotion radius, so boats on the edge do not flip every frame
+    private float hysteresis = 1.25f;
+    private int promotedCount = 0;
+
+    public void setPhysicsSpace(PhysicsSpace space) {
+        if (this.space == space) return;
+        for (int i = 0; i < proxies.size(); i++) {
+            demote(proxies.get(i));
+        }
+        this.space = space;
+    }
+
+    public void setCollisionRadius(float collisionRadius, float hysteresis) {
+        this.collisionRadius = collisionRadius;
+        this.hysteresis = Math.max(1f, hysteresis);
+    }
+
+    public float getCollisionRadius() {
+        return collisionRadius;
+    }
+
+    public void add(Spatial boat) {
+        proxies.add(new Proxy(boat));
+    }
+
+    public void remove(Spatial boat) {
+        for (int i = 0; i < proxies.size(); i++) {
+            Proxy proxy = proxies.get(i);
+            if (proxy.boat == boat) {
+                demote(proxy);
+                proxies.remove(i);
+                return;
+            }
+        }
+    }
+
+    public void clear() {
+        for (int i = 0; i < proxies.size(); i++) {
+            demote(proxies.get(i));
+        }
+        proxies.clear();
+    }
+
+    /**
+     * Number of remote boats that currently have a body in the physics space.
+     */
+    public int getPromotedCount() {
+        return promotedCount;
+    }
+
+    /**
+     * Must be called once per frame, outside of the physics step.
+     *
+     * @param localPosition
+     *            position of the local boat
+     */
+    public void update(Vector3f localPosition) {
+        if (space == null) return;
+        float promoteDistSq = collisionRadius * collisionRadius;
+        float demoteDist = collisionRadius * hysteresis;
+        float demoteDistSq = demoteDist * demoteDist;
+        for (int i = 0; i < proxies.size(); i++) {
+            Proxy proxy = proxies.get(i);
+            float distSq = proxy.boat.getWorldTranslation().distanceSquared(localPosition);
+            if (!proxy.promoted && distSq < promoteDistSq) {
+                promote(proxy);
+            } else if (proxy.promoted && distSq > demoteDistSq) {
+                demote(proxy);
+            }
+        }
+    }
+
+    private void promote(Proxy proxy) {
+        if (proxy.body == null) {
+            // the body is kept after a demotion, the shape is shared with every boat of the same model
+            proxy.body =
+                new RigidBodyControl(
+                    CollisionShapeCache.get(proxy.boat, CollisionShapeCache.Approximation.HULL),
+                    100f
+                );
+            proxy.body.setKinematic(true);
+        }
+        proxy.boat.addControl(proxy.body);
+        space.add(proxy.body);
+        proxy.promoted = true;
+        promotedCount++;
+        log.fine("Promoted remote boat " + proxy.boat.getName());
+    }
+
+    private void demote(Proxy proxy) {
+        if (!proxy.promoted) return;
+        if (space != null) space.remove(proxy.body);
+        proxy.boat.removeControl(proxy.body);
+        proxy.promoted = false;
+        promotedCount--;
+        log.fine("Demoted remote boat " + proxy.boat.getName());
+    }
+}
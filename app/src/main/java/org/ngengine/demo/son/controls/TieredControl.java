@@ -0,0 +1,76 @@
+/**
+ * Copyright (c) 2025, Nostr Game Engine
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * Nostr Game Engine is a fork of the jMonkeyEngine, which is licensed under
+ * the BSD 3-Clause License. The original jMonkeyEngine license is as follows:
+ */
+package org.ngengine.demo.son.controls;
+
+import com.jme3.scene.control.AbstractControl;
+
+/**
+ * A control that runs at the rate of its boat's update tier. Skipped frames are accumulated and passed to
+ * the next {@link #controlUpdate(float)}. Without an {@link UpdateTierControl} on the spatial it updates
+ * every frame.
+ */
+public abstract class TieredControl extends AbstractControl {
+
+    private transient UpdateTierControl tier;
+
+    @Override
+    public void setSpatial(com.jme3.scene.Spatial spatial) {
+        super.setSpatial(spatial);
+        tier = null;
+    }
+
+    protected UpdateTierControl getUpdateTier() {
+        if (tier == null || tier.getSpatial() != spatial) {
+            tier = spatial.getControl(UpdateTierControl.class);
+        }
+        return tier;
+    }
+
+    @Override
+    public void update(float tpf) {
+        if (!isEnabled()) return;
+        UpdateTierControl tier = getUpdateTier();
+        if (tier == null) {
+            controlUpdate(tpf);
+        } else if (tier.isDue()) {
+            controlUpdate(tier.getElapsed());
+        } else {
+            tier.countSkippedUpdate();
+            controlSkipped(tpf);
+        }
+    }
+
+    /**
+     * Called instead of {@link #controlUpdate(float)} on the frames skipped by the update tier.
+     */
+    protected void controlSkipped(float tpf) {}
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright (c) 2025, Nostr Game Engine
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * Nostr Game Engine is a fork of the jMonkeyEngine, which is licensed under
+ * the BSD 3-Clause License. The original jMonkeyEngine license is as follows:
+ */
+package org.ngengine.demo.son.controls;
+
+import com.jme3.math.FastMath;
+import com.jme3.renderer.RenderManager;
+import com.jme3.renderer.ViewPort;
+import com.jme3.scene.control.AbstractControl;
+import org.ngengine.demo.son.controls.UpdateTierScheduler.Tier;
+
+/**
+ * Per boat update tier state, written by the {@link UpdateTierScheduler} and read by the boat's
+ * {@link TieredControl}s.
+ */
+public class UpdateTierControl extends AbstractControl {
+
+    private final UpdateTierScheduler scheduler;
+    private final boolean local;
+    private Tier tier = Tier.FULL;
+    private float elapsed;
+    private boolean due = false;
+
+    UpdateTierControl(UpdateTierScheduler scheduler, boolean local) {
+        this.scheduler = scheduler;
+        this.local = local;
+        // spread the updates of boats in the same tier over different frames
+        this.elapsed = -FastMath.nextRandomFloat() * 0.25f;
+    }
+
+    public boolean isLocal() {
+        return local;
+    }
+
+    public Tier getTier() {
+        return tier;
+    }
+
+    /**
+     * True if the controls of this boat should update this frame.
+     */
+    public boolean isDue() {
+        return due;
+    }
+
+    /**
+     * Time elapsed since the last frame the boat was due, including the current frame.
+     */
+    public float getElapsed() {
+        return elapsed;
+    }
+
+    void advance(Tier tier, float rate, float tpf) {
+        if (due) {
+            elapsed = 0;
+        }
+        this.tier = tier;
+        elapsed += tpf;
+        due = rate <= 0f || elapsed >= 1f / rate;
+        if (due && elapsed < 0f) {
+            elapsed = tpf;
+        }
+    }
+
+    void countSkippedUpdate() {
+        scheduler.countSkippedUpdate();
+    }
+
+    @Override
+    protected void controlUpdate(float tpf) {}
+
+    @Override
+    protected void controlRender(RenderManager rm, ViewPort vp) {}
+}
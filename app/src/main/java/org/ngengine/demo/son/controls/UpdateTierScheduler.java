@@ -0,0 +1,127 @@
+/**
+ * Copyright (c) 2025, Nostr Game Engine
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * Nostr Game Engine is a fork of the jMonkeyEngine, which is licensed under
+ * the BSD 3-Clause License. The original jMonkeyEngine license is as follows:
+ */
+package org.ngengine.demo.son.controls;
+
+import com.jme3.bounding.BoundingVolume;
+import com.jme3.renderer.Camera;
+import com.jme3.scene.Spatial;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Assigns every boat an update tier from its distance to the camera and its visibility, and decides once per
+ * frame which tiers are due for an update. Controls extending {@link TieredControl} skip their update until
+ * their boat is due and then receive the whole elapsed time.
+ */
+public class UpdateTierScheduler {
+
+    public static enum Tier {
+        FULL,
+        REDUCED,
+        MINIMAL,
+    }
+
+    // updates per second for each tier, 0 means every frame
+    private final float[] tierRates = { 0f, 20f, 4f };
+    private float fullRateDistance = 300f;
+    private float reducedRateDistance = 1200f;
+
+    private final List<UpdateTierControl> boats = new ArrayList<>();
+    private int savedUpdates = 0;
+    private int savedUpdatesLastFrame = 0;
+
+    public void setTierRate(Tier tier, float updatesPerSecond) {
+        tierRates[tier.ordinal()] = updatesPerSecond;
+    }
+
+    public float getTierRate(Tier tier) {
+        return tierRates[tier.ordinal()];
+    }
+
+    public void setTierDistances(float fullRateDistance, float reducedRateDistance) {
+        this.fullRateDistance = fullRateDistance;
+        this.reducedRateDistance = reducedRateDistance;
+    }
+
+    public UpdateTierControl add(Spatial boat, boolean local) {
+        UpdateTierControl tier = boat.getControl(UpdateTierControl.class);
+        if (tier == null) {
+            tier = new UpdateTierControl(this, local);
+            boat.addControl(tier);
+        }
+        boats.add(tier);
+        return tier;
+    }
+
+    public void remove(Spatial boat) {
+        UpdateTierControl tier = boat.getControl(UpdateTierControl.class);
+        if (tier != null) {
+            boats.remove(tier);
+            boat.removeControl(tier);
+        }
+    }
+
+    /**
+     * Number of control updates skipped during the last complete frame.
+     */
+    public int getSavedUpdates() {
+        return savedUpdatesLastFrame;
+    }
+
+    void countSkippedUpdate() {
+        savedUpdates++;
+    }
+
+    /**
+     * Must be called once per frame before the scene graph is updated.
+     */
+    public void update(Camera cam, float tpf) {
+        savedUpdatesLastFrame = savedUpdates;
+        savedUpdates = 0;
+        for (int i = 0; i < boats.size(); i++) {
+            UpdateTierControl boat = boats.get(i);
+            Spatial spatial = boat.getSpatial();
+            if (spatial == null) continue;
+            Tier tier = boat.isLocal() ? Tier.FULL : computeTier(cam, spatial);
+            boat.advance(tier, tierRates[tier.ordinal()], tpf);
+        }
+    }
+
+    protected Tier computeTier(Camera cam, Spatial spatial) {
+        float dist = cam.getLocation().distance(spatial.getWorldTranslation());
+        if (dist < fullRateDistance) return Tier.FULL;
+        BoundingVolume bound = spatial.getWorldBound();
+        boolean visible = bound == null || cam.contains(bound) != Camera.FrustumIntersect.Outside;
+        if (visible && dist < reducedRateDistance) return Tier.REDUCED;
+        return Tier.MINIMAL;
+    }
+}
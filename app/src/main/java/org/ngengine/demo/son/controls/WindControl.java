@@ -35,10 +35,9 @@ import com.jme3.material.MatParamOverride;
 import com.jme3.math.Vector3f;
 import com.jme3.renderer.RenderManager;
 import com.jme3.renderer.ViewPort;
-import com.jme3.scene.control.AbstractControl;
 import com.jme3.shader.VarType;
 
-public class WindControl extends AbstractControl {
+public class WindControl extends TieredControl {
 
     private Vector3f wind = new Vector3f(0, 0, 1f);
 
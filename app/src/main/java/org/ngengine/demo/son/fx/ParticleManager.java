@@ -0,0 +1,218 @@
+/**
+ * Copyright (c) 2025, Nostr Game Engine
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * Nostr Game Engine is a fork of the jMonkeyEngine, which is licensed under
+ * the BSD 3-Clause License. The original jMonkeyEngine license is as follows:
+ */
+package org.ngengine.demo.son.fx;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.material.Material;
+import com.jme3.material.RenderState.BlendMode;
+import com.jme3.math.ColorRGBA;
+import com.jme3.math.FastMath;
+import com.jme3.math.Vector3f;
+import com.jme3.post.FilterPostProcessor;
+import com.jme3.renderer.ViewPort;
+import com.jme3.scene.Node;
+import java.util.logging.Logger;
+import org.ngengine.components.Component;
+import org.ngengine.components.ComponentManager;
+import org.ngengine.components.fragments.AssetLoadingFragment;
+import org.ngengine.components.fragments.MainViewPortFragment;
+import org.ngengine.runner.Runner;
+import org.ngengine.store.DataStoreProvider;
+
+/**
+ * Scene wide particle effects. Every effect type is rendered by a single pooled emitter in world space, so
+ * the cost of particles does not depend on the number of boats, and the total number of live particles
+ * is capped by a global budget.
+ */
+public class ParticleManager implements Component<Object>, AssetLoadingFragment, MainViewPortFragment {
+
+    private static final Logger log = Logger.getLogger(ParticleManager.class.getName());
+
+    private static final int SPLASH_CAPACITY = 512;
+    private static final int DATA_STREAM_CAPACITY = 1024;
+    private static final int SMOKE_CAPACITY = 512;
+    private static final int SPLASH_PARTICLES = 22;
+
+    private AssetManager assetManager;
+    private ViewPort viewPort;
+    private final Node particlesNode = new Node("Particles");
+    private ParticlePool splash;
+    private ParticlePool dataStream;
+    private ParticlePool smoke;
+    private int budget = SPLASH_CAPACITY + DATA_STREAM_CAPACITY + SMOKE_CAPACITY;
+
+    @Override
+    public void loadAssets(AssetManager assetManager) {
+        this.assetManager = assetManager;
+    }
+
+    @Override
+    public void receiveMainViewPort(ViewPort viewPort) {
+        this.viewPort = viewPort;
+    }
+
+    @Override
+    public void onEnable(ComponentManager mng, Runner runner, DataStoreProvider dataStore, boolean firstTime, Object arg) {
+        if (firstTime) {
+            Material splashMaterial = new Material(assetManager, "Common/MatDefs/Misc/Particle.j3md");
+            splash = new ParticlePool("Splash Particles", SPLASH_CAPACITY, splashMaterial);
+            splash
+                .setColors(
+                    new ColorRGBA(35.0f / 255.0f, 0.0f, 110f / 255.0f, 0.8f),
+                    new ColorRGBA(35.0f / 255.0f, 0.0f, 110f / 255.0f, 0.0f)
+                )
+                .setSizes(0.3f, 1.8f)
+                .setLife(1.9f, 1.9f)
+                .setGravity(12.81f);
+
+            Material dataMaterial = new Material(assetManager, "Common/MatDefs/Misc/Particle.j3md");
+            dataMaterial.setTexture("Texture", assetManager.loadTexture("Textures/matrixhex.png"));
+            dataMaterial.getAdditionalRenderState().setBlendMode(BlendMode.AlphaAdditive);
+            dataStream = new ParticlePool("Data Particles", DATA_STREAM_CAPACITY, dataMaterial);
+            dataStream
+                .setColors(ColorRGBA.Magenta.mult(10f).setAlpha(0.5f), ColorRGBA.Magenta.mult(10f).setAlpha(0.1f))
+                .setSizes(5f, 6.3f)
+                .setLife(4.5f, 4.5f)
+                .setImages(6, 7);
+
+            Material smokeMaterial = new Material(assetManager, "Common/MatDefs/Misc/Particle.j3md");
+            smoke = new ParticlePool("Smoke Particles", SMOKE_CAPACITY, smokeMaterial);
+            smoke
+                .setColors(new ColorRGBA(0.2f, 0.2f, 0.2f, 0.9f), new ColorRGBA(0.6f, 0.6f, 0.6f, 0f))
+                .setSizes(0.8f, 2.5f)
+                .setLife(0.6f, 0.8f);
+
+            particlesNode.attachChild(splash.getGeometry());
+            particlesNode.attachChild(dataStream.getGeometry());
+            particlesNode.attachChild(smoke.getGeometry());
+        }
+        getRootNode(viewPort).attachChild(particlesNode);
+    }
+
+    @Override
+    public void onDisable(ComponentManager mng, Runner runner, DataStoreProvider dataStore) {
+        particlesNode.removeFromParent();
+        splash.clear();
+        dataStream.clear();
+        smoke.clear();
+    }
+
+    /**
+     * Sets the maximum number of live particles across all the effects.
+     */
+    public void setBudget(int budget) {
+        this.budget = budget;
+        log.fine("Particle budget set to " + budget);
+    }
+
+    public int getBudget() {
+        return budget;
+    }
+
+    public int getAliveCount() {
+        return splash.getAliveCount() + dataStream.getAliveCount() + smoke.getAliveCount();
+    }
+
+    private boolean hasBudget() {
+        return getAliveCount() < budget;
+    }
+
+    /**
+     * Spawns a burst of splash particles on a sphere around the given position, moving outwards.
+     */
+    public void emitSplash(Vector3f center, float radius) {
+        for (int i = 0; i < SPLASH_PARTICLES && hasBudget(); i++) {
+            float nx = FastMath.nextRandomFloat() * 2f - 1f;
+            float ny = FastMath.nextRandomFloat() * 2f - 1f;
+            float nz = FastMath.nextRandomFloat() * 2f - 1f;
+            float len = FastMath.sqrt(nx * nx + ny * ny + nz * nz);
+            if (len < FastMath.FLT_EPSILON) continue;
+            nx /= len;
+            ny /= len;
+            nz /= len;
+            float variation = 0.2f;
+            float vy = 0.6f + ny + (FastMath.nextRandomFloat() * 2f - 1f) * variation;
+            if (
+                !splash.emit(
+                    center.x + nx * radius,
+                    center.y + ny * radius,
+                    center.z + nz * radius,
+                    nx,
+                    vy,
+                    nz
+                )
+            ) break;
+        }
+    }
+
+    /**
+     * Spawns a data stream particle at the given position, flying towards the target.
+     */
+    public void emitDataStream(Vector3f from, Vector3f to, float speed) {
+        if (!hasBudget()) return;
+        float dx = to.x - from.x;
+        float dy = to.y - from.y;
+        float dz = to.z - from.z;
+        float len = FastMath.sqrt(dx * dx + dy * dy + dz * dz);
+        float s = len > FastMath.FLT_EPSILON ? speed / len : 0f;
+        dataStream.emit(from.x, from.y, from.z, dx * s, dy * s, dz * s);
+    }
+
+    /**
+     * Spawns a puff of smoke, used for the trail of the cannon balls.
+     */
+    public void emitSmoke(float x, float y, float z) {
+        if (!hasBudget()) return;
+        float drift = 0.3f;
+        smoke.emit(
+            x,
+            y,
+            z,
+            (FastMath.nextRandomFloat() * 2f - 1f) * drift,
+            FastMath.nextRandomFloat() * drift,
+            (FastMath.nextRandomFloat() * 2f - 1f) * drift
+        );
+    }
+
+    @Override
+    public void updateMainViewPort(ViewPort viewPort, float tpf) {
+        splash.update(tpf, viewPort.getCamera());
+        dataStream.update(tpf, viewPort.getCamera());
+        smoke.update(tpf, viewPort.getCamera());
+    }
+
+    @Override
+    public void loadMainViewPortFilterPostprocessor(AssetManager assetManager, FilterPostProcessor fpp) {}
+
+    @Override
+    public void receiveMainViewPortFilterPostProcessor(FilterPostProcessor fpp) {}
+}
@@ -0,0 +1,266 @@
+/**
+ * Copyright (c) 2025, Nostr Game Engine
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * Nostr Game Engine is a fork of the jMonkeyEngine, which is licensed under
+ * the BSD 3-Clause License. The original jMonkeyEngine license is as follows:
+ */
+package org.ngengine.demo.son.fx;
+
+import com.jme3.material.Material;
+import com.jme3.math.ColorRGBA;
+import com.jme3.math.FastMath;
+import com.jme3.renderer.Camera;
+import com.jme3.renderer.queue.RenderQueue.Bucket;
+import com.jme3.renderer.queue.RenderQueue.ShadowMode;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.util.BufferUtils;
+import java.nio.FloatBuffer;
+
+/**
+ * A fixed capacity pool of world space point sprite particles sharing the same look. Particle state is kept
+ * in primitive arrays, dead particles are swapped with the last live one so the live particles are always
+ * packed at the start of the arrays.
+ */
+public class ParticlePool {
+
+    private final int capacity;
+    private final Geometry geometry;
+    private final Mesh mesh;
+    private final FloatBuffer positionBuffer;
+    private final FloatBuffer colorBuffer;
+    private final FloatBuffer sizeBuffer;
+    private final FloatBuffer texCoordBuffer;
+
+    private final float[] px, py, pz;
+    private final float[] vx, vy, vz;
+    private final float[] age, life;
+    private final float[] u0, v0, u1, v1;
+    private int alive = 0;
+    private int renderedCount = 0;
+    private float quadratic = -1f;
+
+    private final ColorRGBA startColor = new ColorRGBA(1, 1, 1, 1);
+    private final ColorRGBA endColor = new ColorRGBA(1, 1, 1, 0);
+    private float startSize = 1f;
+    private float endSize = 1f;
+    private float lowLife = 1f;
+    private float highLife = 1f;
+    private float gravity = 0f;
+    private int imagesX = 1;
+    private int imagesY = 1;
+
+    public ParticlePool(String name, int capacity, Material material) {
+        this.capacity = capacity;
+        px = new float[capacity];
+        py = new float[capacity];
+        pz = new float[capacity];
+        vx = new float[capacity];
+        vy = new float[capacity];
+        vz = new float[capacity];
+        age = new float[capacity];
+        life = new float[capacity];
+        u0 = new float[capacity];
+        v0 = new float[capacity];
+        u1 = new float[capacity];
+        v1 = new float[capacity];
+
+        positionBuffer = BufferUtils.createFloatBuffer(capacity * 3);
+        colorBuffer = BufferUtils.createFloatBuffer(capacity * 4);
+        sizeBuffer = BufferUtils.createFloatBuffer(capacity);
+        texCoordBuffer = BufferUtils.createFloatBuffer(capacity * 4);
+
+        mesh = new Mesh();
+        mesh.setMode(Mesh.Mode.Points);
+        mesh.setBuffer(VertexBuffer.Type.Position, 3, positionBuffer);
+        mesh.setBuffer(VertexBuffer.Type.Color, 4, colorBuffer);
+        mesh.setBuffer(VertexBuffer.Type.Size, 1, sizeBuffer);
+        mesh.setBuffer(VertexBuffer.Type.TexCoord, 4, texCoordBuffer);
+        mesh.getBuffer(VertexBuffer.Type.Position).setUsage(VertexBuffer.Usage.Stream);
+        mesh.getBuffer(VertexBuffer.Type.Color).setUsage(VertexBuffer.Usage.Stream);
+        mesh.getBuffer(VertexBuffer.Type.Size).setUsage(VertexBuffer.Usage.Stream);
+        mesh.getBuffer(VertexBuffer.Type.TexCoord).setUsage(VertexBuffer.Usage.Stream);
+
+        material.setBoolean("PointSprite", true);
+        geometry = new Geometry(name, mesh);
+        geometry.setMaterial(material);
+        geometry.setQueueBucket(Bucket.Transparent);
+        geometry.setShadowMode(ShadowMode.Off);
+        geometry.setCullHint(Spatial.CullHint.Always);
+    }
+
+    public Geometry getGeometry() {
+        return geometry;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getAliveCount() {
+        return alive;
+    }
+
+    public ParticlePool setColors(ColorRGBA start, ColorRGBA end) {
+        startColor.set(start);
+        endColor.set(end);
+        return this;
+    }
+
+    public ParticlePool setSizes(float start, float end) {
+        startSize = start;
+        endSize = end;
+        return this;
+    }
+
+    public ParticlePool setLife(float low, float high) {
+        lowLife = low;
+        highLife = high;
+        return this;
+    }
+
+    public ParticlePool setGravity(float gravity) {
+        this.gravity = gravity;
+        return this;
+    }
+
+    public ParticlePool setImages(int imagesX, int imagesY) {
+        this.imagesX = imagesX;
+        this.imagesY = imagesY;
+        return this;
+    }
+
+    /**
+     * Spawns a particle at the given world position.
+     *
+     * @return false if the pool is full
+     */
+    public boolean emit(float x, float y, float z, float velX, float velY, float velZ) {
+        if (alive >= capacity) return false;
+        int i = alive++;
+        px[i] = x;
+        py[i] = y;
+        pz[i] = z;
+        vx[i] = velX;
+        vy[i] = velY;
+        vz[i] = velZ;
+        age[i] = 0f;
+        life[i] = lowLife + (highLife - lowLife) * FastMath.nextRandomFloat();
+
+        int image = imagesX * imagesY > 1 ? FastMath.nextRandomInt(0, imagesX * imagesY - 1) : 0;
+        float w = 1f / imagesX;
+        float h = 1f / imagesY;
+        u0[i] = (image % imagesX) * w;
+        v0[i] = (image / imagesX) * h;
+        u1[i] = u0[i] + w;
+        v1[i] = v0[i] + h;
+        return true;
+    }
+
+    public void clear() {
+        alive = 0;
+    }
+
+    public void update(float tpf, Camera cam) {
+        for (int i = 0; i < alive;) {
+            age[i] += tpf;
+            if (age[i] >= life[i]) {
+                copy(--alive, i);
+                continue;
+            }
+            vy[i] -= gravity * tpf;
+            px[i] += vx[i] * tpf;
+            py[i] += vy[i] * tpf;
+            pz[i] += vz[i] * tpf;
+            i++;
+        }
+
+        if (alive == 0 && renderedCount == 0) {
+            geometry.setCullHint(Spatial.CullHint.Always);
+            return;
+        }
+        geometry.setCullHint(Spatial.CullHint.Never);
+
+        positionBuffer.clear();
+        colorBuffer.clear();
+        sizeBuffer.clear();
+        texCoordBuffer.clear();
+        for (int i = 0; i < alive; i++) {
+            float t = age[i] / life[i];
+            positionBuffer.put(px[i]).put(py[i]).put(pz[i]);
+            colorBuffer
+                .put(startColor.r + (endColor.r - startColor.r) * t)
+                .put(startColor.g + (endColor.g - startColor.g) * t)
+                .put(startColor.b + (endColor.b - startColor.b) * t)
+                .put(startColor.a + (endColor.a - startColor.a) * t);
+            sizeBuffer.put(startSize + (endSize - startSize) * t);
+            texCoordBuffer.put(u0[i]).put(v0[i]).put(u1[i]).put(v1[i]);
+        }
+        // hide the slots that were rendered last frame and are now dead
+        for (int i = alive; i < renderedCount; i++) {
+            positionBuffer.put(0).put(0).put(0);
+            colorBuffer.put(0).put(0).put(0).put(0);
+            sizeBuffer.put(0);
+            texCoordBuffer.put(0).put(0).put(0).put(0);
+        }
+        renderedCount = alive;
+        positionBuffer.clear();
+        colorBuffer.clear();
+        sizeBuffer.clear();
+        texCoordBuffer.clear();
+
+        mesh.getBuffer(VertexBuffer.Type.Position).setUpdateNeeded();
+        mesh.getBuffer(VertexBuffer.Type.Color).setUpdateNeeded();
+        mesh.getBuffer(VertexBuffer.Type.Size).setUpdateNeeded();
+        mesh.getBuffer(VertexBuffer.Type.TexCoord).setUpdateNeeded();
+
+        // same point size attenuation used by the engine ParticleEmitter
+        float c = cam.getProjectionMatrix().m00 * cam.getWidth() * 0.5f;
+        if (c != quadratic) {
+            quadratic = c;
+            geometry.getMaterial().setFloat("Quadratic", c);
+        }
+    }
+
+    private void copy(int from, int to) {
+        px[to] = px[from];
+        py[to] = py[from];
+        pz[to] = pz[from];
+        vx[to] = vx[from];
+        vy[to] = vy[from];
+        vz[to] = vz[from];
+        age[to] = age[from];
+        life[to] = life[from];
+        u0[to] = u0[from];
+        v0[to] = v0[from];
+        u1[to] = u1[from];
+        v1[to] = v1[from];
+    }
+}
@@ -50,7 +50,6 @@ import com.jme3.texture.Texture.WrapMode;
 import com.jme3.texture.Texture2D;
 import com.jme3.texture.TextureArray;
 import java.io.IOException;
-import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -64,6 +63,14 @@ public class IBOcean implements Savable {
     private Vector2f tileSize;
     private transient Vector3f wind = new Vector3f(0, 0, 1f);
     private transient Material material;
+    private final transient Vector3f windDirection = new Vector3f();
+    private final transient Vector3f layerWindDir = new Vector3f();
+
+    // state used to sample the water: x,y,z scale then the scroll offset of each layer
+    private transient float[] liveState;
+    // double buffered copy of the state for other threads, see Sampler
+    private final transient float[][] publishedStates = new float[2][];
+    private transient volatile long publishedVersion = 0;
 
     public IBOcean() {}
 
@@ -106,16 +113,74 @@ public class IBOcean implements Savable {
         return height / layers.size();
     }
 
+    /**
+     * Samples the water height at many points at once, layer by layer.
+     *
+     * @param xs
+     *            world x of the points
+     * @param zs
+     *            world z of the points
+     * @param heights
+     *            receives the water height of each point
+     * @param count
+     *            number of points
+     */
+    public void getWaterHeights(float[] xs, float[] zs, float[] heights, int count) {
+        if (liveState == null) {
+            liveState = new float[3 + layers.size() * 2];
+        }
+        writeState(liveState);
+        sampleHeights(liveState, xs, zs, heights, 0, count);
+    }
+
+    private void writeState(float[] state) {
+        state[0] = scale.x * baseScale.x;
+        state[1] = scale.y * baseScale.y / layers.size();
+        state[2] = scale.z * baseScale.z;
+        for (int i = 0; i < scrolls.length; i++) {
+            state[3 + i * 2] = scrolls[i].x;
+            state[4 + i * 2] = scrolls[i].y;
+        }
+    }
+
+    private void sampleHeights(float[] state, float[] xs, float[] zs, float[] heights, int from, int to) {
+        int numLayers = layers.size();
+        for (int p = from; p < to; p++) {
+            heights[p] = 0;
+        }
+        float sx = state[0];
+        float sy = state[1];
+        float sz = state[2];
+        for (int i = 0; i < numLayers; i++) {
+            IBOceanLayer layer = layers.get(i);
+            float ox = state[3 + i * 2];
+            float oz = state[4 + i * 2];
+            for (int p = from; p < to; p++) {
+                float u = (xs[p] + ox) * sx;
+                float v = (zs[p] + oz) * sz;
+                u = ((u % tileSize.x) + tileSize.x) % tileSize.x;
+                v = ((v % tileSize.y) + tileSize.y) % tileSize.y;
+                heights[p] += layer.sample(u / tileSize.x, v / tileSize.y) * sy;
+            }
+        }
+    }
+
+    /**
+     * Updates the scrolling of the layers and the material parameters, does not allocate.
+     *
+     * @param timeMillis
+     *            the current time in milliseconds since the epoch
+     */
     public void update(
-        Instant time,
+        long timeMillis,
         AssetManager assetManager,
         Texture2D reflectionMap,
         Matrix4f refViewProjection,
         Vector3f wind
     ) {
-        double tt = (double) Instant.now().toEpochMilli() / 1000.0;
+        double tt = (double) timeMillis / 1000.0;
         tt %= 60 * 60 * 10;
-        Vector3f windDirection = wind.normalize();
+        windDirection.set(wind).normalizeLocal();
         float windFactor = wind.length();
         windFactor *= 1.02f;
         windFactor = FastMath.clamp(windFactor, 0.1f, 10f);
@@ -126,7 +191,7 @@ public class IBOcean implements Savable {
             float windInfluence = FastMath.clamp(windFactor * 0.3f, 0.2f, 1.5f);
             float scrollSpeed = baseSpeed * windInfluence;
             float angleVariation = (i - 1) * 0.15f; // Small angle differences between layers
-            Vector3f layerWindDir = rotateVector(windDirection, angleVariation);
+            rotateVector(windDirection, angleVariation, layerWindDir);
             float speedMultiplier = getLayerSpeedMultiplier(i);
             scrollSpeed *= speedMultiplier;
             Vector2f offset = scrolls[i];
@@ -137,14 +202,78 @@ public class IBOcean implements Savable {
         }
 
         scale.set(1f, 13, 1f);
+        publishState();
         Material mat = getMaterial(assetManager);
-        wind.set(wind);
+        this.wind.set(wind);
         mat.setTexture("RefMap", reflectionMap);
         mat.setMatrix4("ReflViewProj", refViewProjection);
-        mat.setVector3("Wind", wind);
+        mat.setVector3("Wind", this.wind);
         mat.setVector3("BaseScale", baseScale);
     }
 
+    private void publishState() {
+        long next = publishedVersion + 1;
+        int buffer = (int) (next & 1);
+        float[] state = publishedStates[buffer];
+        if (state == null) {
+            state = new float[3 + layers.size() * 2];
+            publishedStates[buffer] = state;
+        }
+        writeState(state);
+        publishedVersion = next;
+    }
+
+    /**
+     * Creates a water sampler for another thread, each thread needs its own.
+     */
+    public Sampler createSampler() {
+        return new Sampler();
+    }
+
+    /**
+     * Samples the water as it was at the last {@link IBOcean#update}, without touching the state used by the
+     * render thread. The state is published double buffered by update and copied by {@link #sync()}, so the
+     * sampler can be used while the next frame is being prepared.
+     */
+    public class Sampler {
+
+        private final float[] state = new float[3 + layers.size() * 2];
+        private long version = 0;
+
+        private Sampler() {}
+
+        /**
+         * Copies the most recently published state.
+         *
+         * @return false if the ocean was never updated
+         */
+        public boolean sync() {
+            while (true) {
+                long v = publishedVersion;
+                if (v == 0) return false;
+                if (v == version) return true;
+                System.arraycopy(publishedStates[(int) (v & 1)], 0, state, 0, state.length);
+                // the writer reuses this buffer only after publishing v + 1, the copy is whole if v is still current
+                if (publishedVersion == v) {
+                    version = v;
+                    return true;
+                }
+            }
+        }
+
+        public void getWaterHeights(float[] xs, float[] zs, float[] heights, int count) {
+            sampleHeights(state, xs, zs, heights, 0, count);
+        }
+
+        /**
+         * Samples the points from (inclusive) to to (exclusive), different ranges can be sampled by different
+         * threads after a single {@link #sync()}.
+         */
+        public void getWaterHeights(float[] xs, float[] zs, float[] heights, int from, int to) {
+            sampleHeights(state, xs, zs, heights, from, to);
+        }
+    }
+
     public Material getMaterial(AssetManager assetManager) {
         if (material == null) {
             material = new Material(assetManager, "ibocean/Ocean.j3md");
@@ -253,9 +382,9 @@ public class IBOcean implements Savable {
         }
     }
 
-    private Vector3f rotateVector(Vector3f vector, float angleRad) {
+    private Vector3f rotateVector(Vector3f vector, float angleRad, Vector3f store) {
         float cos = FastMath.cos(angleRad);
         float sin = FastMath.sin(angleRad);
-        return new Vector3f(vector.x * cos - vector.z * sin, vector.y, vector.x * sin + vector.z * cos);
+        return store.set(vector.x * cos - vector.z * sin, vector.y, vector.x * sin + vector.z * cos);
     }
 }
@@ -45,6 +45,7 @@ public class IBOceanLayer implements Savable {
 
     private Image image;
     private transient ImageRaster imageRaster;
+    private final transient ColorRGBA pixel = new ColorRGBA();
 
     protected IBOceanLayer() {}
 
@@ -56,17 +57,26 @@ public class IBOceanLayer implements Savable {
         return image;
     }
 
+    /**
+     * Returns the height stored in the alpha channel. Safe to call from any thread.
+     */
     public float sample(float xf, float yf) {
-        if (imageRaster == null) {
-            imageRaster = ImageRaster.create(image);
-        }
         int x = (int) (xf * image.getWidth());
         int y = (int) (yf * image.getHeight());
         if (x < 0 || x >= image.getWidth() || y < 0 || y >= image.getHeight()) {
             return 0.0f;
         }
-        ColorRGBA c = imageRaster.getPixel(x, y);
-        return c.a;
+        if (image.getFormat() == Image.Format.RGBA8) {
+            // absolute reads do not touch the buffer position
+            int i = (y * image.getWidth() + x) * 4 + 3;
+            return (image.getData(0).get(i) & 0xFF) / 255f;
+        }
+        synchronized (pixel) {
+            if (imageRaster == null) {
+                imageRaster = ImageRaster.create(image);
+            }
+            return imageRaster.getPixel(x, y, pixel).a;
+        }
     }
 
     @Override
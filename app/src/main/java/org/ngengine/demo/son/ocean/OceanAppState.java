@@ -35,6 +35,8 @@ import com.jme3.asset.AssetManager;
 import com.jme3.audio.AudioData.DataType;
 import com.jme3.audio.AudioNode;
 import com.jme3.bullet.BulletAppState;
+import com.jme3.bullet.PhysicsSpace;
+import com.jme3.bullet.PhysicsTickListener;
 import com.jme3.material.Material;
 import com.jme3.material.RenderState;
 import com.jme3.material.RenderState.FaceCullMode;
@@ -59,19 +61,22 @@ import com.jme3.texture.Image.Format;
 import com.jme3.texture.Texture2D;
 import com.jme3.util.TempVars;
 import com.jme3.util.mikktspace.MikktspaceTangentGenerator;
-import java.time.Instant;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.logging.Logger;
 import org.ngengine.components.Component;
 import org.ngengine.components.ComponentManager;
 import org.ngengine.components.fragments.AssetLoadingFragment;
 import org.ngengine.components.fragments.MainViewPortFragment;
 import org.ngengine.components.fragments.RenderFragment;
+import org.ngengine.demo.son.FrameJobs;
 import org.ngengine.demo.son.PhysicsManager;
 import org.ngengine.demo.son.controls.BuoyancyControl;
 import org.ngengine.demo.son.controls.WindControl;
+import org.ngengine.demo.son.perf.PerfStats;
+import org.ngengine.demo.son.perf.QualityPreset;
 import org.ngengine.demo.son.utils.GridMesh;
+import org.ngengine.demo.son.utils.HullSamplePoints;
 import org.ngengine.demo.son.utils.ReflectionBaker;
 import org.ngengine.runner.Runner;
 import org.ngengine.store.DataStore;
@@ -83,15 +88,52 @@ public class OceanAppState implements Component<Object>, MainViewPortFragment, R
     private Geometry oceanGeometry;
 
     private int VERTEX_DENSITY = 256;
-    private final int IBOCEAN_RESOLUTION = 1024;
+    private int IBOCEAN_RESOLUTION = 1024;
     private final int IBOCEAN_LAYERS = 3;
 
     private final float GRID_SIZE = 1024;
     private final float HORIZON_EXTENT = 3000f;
     private final Format reflectionsFormat = Image.Format.RGBA16F;
-    private final int reflectionSize = 1024;
+    private int reflectionSize = 1024;
+    private int reflectionUpdateInterval = 1;
+    private int reflectionFrame = 0;
+
+    // read by the physics thread, that can run in parallel with the render thread
+    private final List<BuoyancyControl> controls = new CopyOnWriteArrayList<>();
+    private final WaterHeightBatch waterBatch = new WaterHeightBatch(256);
+    private int hullPointCount = 16;
+    private volatile IBOcean.Sampler waterSampler;
+    private PhysicsSpace buoyancySpace;
+    // snapshot of the controls for the physics thread, taken again only when the list changes
+    private volatile boolean controlsChanged = true;
+    private BuoyancyControl[] tickControls = new BuoyancyControl[0];
+    private IBOcean.Sampler tickSampler;
+    private float tickTimeStep;
+    // each boat and each point is independent, so the buoyancy is split over the frame job workers
+    private FrameJobs jobs;
+    private FrameJobs.Job queueJob;
+    private FrameJobs.Job sampleJob;
+    private FrameJobs.Job applyJob;
+    private final FrameJobs.RangeBody queueBody = (from, to) -> {
+        for (int i = from; i < to; i++) {
+            tickControls[i].writeWaterSamples(waterBatch);
+        }
+    };
+    private final FrameJobs.RangeBody sampleBody = (from, to) -> waterBatch.sample(tickSampler, from, to);
+    private final FrameJobs.RangeBody applyBody = (from, to) -> {
+        for (int i = from; i < to; i++) {
+            tickControls[i].applyBuoyancy(waterBatch, tickTimeStep);
+        }
+    };
+    private final PhysicsTickListener buoyancyTick = new PhysicsTickListener() {
+        @Override
+        public void prePhysicsTick(PhysicsSpace space, float timeStep) {
+            applyBuoyancy(timeStep);
+        }
 
-    private final List<BuoyancyControl> controls = new ArrayList<>();
+        @Override
+        public void physicsTick(PhysicsSpace space, float timeStep) {}
+    };
     private final Vector3f WAVE_SCALE = new Vector3f(1f, 60f, 1f);
     private final Vector3f WIND = new Vector3f(0, 0, 64f);
 
@@ -123,6 +165,12 @@ public class OceanAppState implements Component<Object>, MainViewPortFragment, R
         this(256);
     }
 
+    public OceanAppState(QualityPreset quality) {
+        this(quality.getVertexDensity());
+        this.IBOCEAN_RESOLUTION = quality.getOceanResolution();
+        this.reflectionSize = quality.getReflectionSize();
+    }
+
     public AssetManager getAssetManager() {
         return assetManager;
     }
@@ -185,6 +233,12 @@ public class OceanAppState implements Component<Object>, MainViewPortFragment, R
     ) {
         this.componentManager = fragmentManager;
         Node rootNode = getRootNode(viewPort);
+        jobs = fragmentManager.getComponent(FrameJobs.class);
+        if (jobs != null && queueJob == null) {
+            queueJob = jobs.createJob("buoyancy queue", 16, queueBody);
+            sampleJob = jobs.createJob("buoyancy water", 1024, sampleBody);
+            applyJob = jobs.createJob("buoyancy forces", 16, applyBody);
+        }
 
         oceanWavesSound = new AudioNode(assetManager, "Sounds/Beach_Ocean_Waves_Fienup_001_mono.ogg", DataType.Buffer);
         oceanWavesSound.setLooping(true);
@@ -198,7 +252,7 @@ public class OceanAppState implements Component<Object>, MainViewPortFragment, R
 
         DataStore oceanData = dataStoreProvider.getDataStore("ocean");
         try {
-            ibocean = oceanData.read("iboceandata");
+            ibocean = oceanData.read(getOceanDataKey());
         } catch (Exception e) {
             log.warning("Failed to load IBOcean data, generating new ocean data.");
             ibocean = null;
@@ -213,12 +267,14 @@ public class OceanAppState implements Component<Object>, MainViewPortFragment, R
                     WIND
                 );
             try {
-                oceanData.write("iboceandata", ibocean);
+                oceanData.write(getOceanDataKey(), ibocean);
             } catch (Exception e) {
                 log.warning("Failed to save IBOcean data: " + e.getMessage());
             }
         }
 
+        waterSampler = ibocean.createSampler();
+
         oceanGeometry = new Geometry("OceanSurface", new GridMesh(VERTEX_DENSITY, GRID_SIZE, HORIZON_EXTENT));
         oceanGeometry.setMaterial(ibocean.getMaterial(assetManager));
         oceanGeometry.setQueueBucket(Bucket.Opaque);
@@ -229,16 +285,24 @@ public class OceanAppState implements Component<Object>, MainViewPortFragment, R
         MikktspaceTangentGenerator.generate(oceanGeometry);
 
         initializeReflectionView(viewPort, rootNode);
-        ibocean.update(Instant.now(), assetManager, reflectionMap, envCam.getViewProjectionMatrix(), WIND);
+        ibocean.update(System.currentTimeMillis(), assetManager, reflectionMap, envCam.getViewProjectionMatrix(), WIND);
     }
 
     @Override
     public void updateMainViewPort(ViewPort vp, float tpf) {
+        long perfStart = PerfStats.begin();
         float windStrength = 60f;
         this.WIND.set(0, 0, windStrength);
 
         Camera cam = vp.getCamera();
-        updateReflectionCam(cam, envCam, plane);
+        // the reflection camera is moved only on the frames that refresh the reflection map, so the
+        // projection used by the ocean shader always matches the content of the map
+        boolean refreshReflection = ++reflectionFrame >= reflectionUpdateInterval;
+        if (refreshReflection) {
+            reflectionFrame = 0;
+            updateReflectionCam(cam, envCam, plane);
+        }
+        reflectionViewPort.setEnabled(refreshReflection);
 
         Vector3f t = oceanGeometry.getLocalTranslation();
         t.x = cam.getLocation().getX();
@@ -246,17 +310,136 @@ public class OceanAppState implements Component<Object>, MainViewPortFragment, R
         t.y = 0;
 
         oceanGeometry.setLocalTranslation(t);
-        ibocean.update(Instant.now(), assetManager, reflectionMap, envCam.getViewProjectionMatrix(), WIND);
+        ibocean.update(System.currentTimeMillis(), assetManager, reflectionMap, envCam.getViewProjectionMatrix(), WIND);
+        attachBuoyancy();
+        PerfStats.end(PerfStats.Section.OCEAN, perfStart);
     }
 
     @Override
     public void onDisable(ComponentManager fragmentManager, Runner runner, DataStoreProvider dataStoreProvider) {
         if (oceanGeometry != null) oceanGeometry.removeFromParent();
-        if (reflectionViewPort != null) renderManager.removePreView(reflectionViewPort);
+        if (reflectionViewPort != null) {
+            renderManager.removePreView(reflectionViewPort);
+            reflectionViewPort = null;
+        }
         if (oceanWavesSound != null) {
             oceanWavesSound.stop();
             oceanWavesSound.removeFromParent();
         }
+        if (buoyancySpace != null) {
+            buoyancySpace.removeTickListener(buoyancyTick);
+            buoyancySpace = null;
+        }
+        waterSampler = null;
+    }
+
+    /**
+     * Changes the resolution of the reflection map and how often it is rendered, can be called at runtime.
+     *
+     * @param size
+     *            the size of the reflection map
+     * @param updateInterval
+     *            the reflection map is rendered once every updateInterval frames
+     */
+    public void setReflectionQuality(int size, int updateInterval) {
+        this.reflectionUpdateInterval = Math.max(1, updateInterval);
+        if (size == reflectionSize) return;
+        this.reflectionSize = size;
+        if (reflectionViewPort != null) {
+            renderManager.removePreView(reflectionViewPort);
+            initializeReflectionView(viewPort, getRootNode(viewPort));
+        }
+    }
+
+    public int getReflectionSize() {
+        return reflectionSize;
+    }
+
+    public int getReflectionUpdateInterval() {
+        return reflectionUpdateInterval;
+    }
+
+    /**
+     * Changes the density of the ocean grid, can be called at runtime.
+     */
+    public void setVertexDensity(int vertexDensity) {
+        if (vertexDensity == VERTEX_DENSITY) return;
+        this.VERTEX_DENSITY = vertexDensity;
+        if (oceanGeometry != null) {
+            oceanGeometry.setMesh(new GridMesh(VERTEX_DENSITY, GRID_SIZE, HORIZON_EXTENT));
+            MikktspaceTangentGenerator.generate(oceanGeometry);
+        }
+    }
+
+    public int getVertexDensity() {
+        return VERTEX_DENSITY;
+    }
+
+    private String getOceanDataKey() {
+        // the baked ocean depends on the resolution, keep one cache entry per quality level
+        return IBOCEAN_RESOLUTION == 1024 ? "iboceandata" : "iboceandata" + IBOCEAN_RESOLUTION;
+    }
+
+    /**
+     * Follows the physics space, it is recreated when the physics is restarted.
+     */
+    private void attachBuoyancy() {
+        BulletAppState physics = getPhysics();
+        PhysicsSpace space = physics != null ? physics.getPhysicsSpace() : null;
+        if (space == buoyancySpace) return;
+        if (buoyancySpace != null) buoyancySpace.removeTickListener(buoyancyTick);
+        if (space != null) space.addTickListener(buoyancyTick);
+        buoyancySpace = space;
+    }
+
+    /**
+     * Samples the water under every floating object with a single batched query and applies the buoyancy
+     * forces. Runs on the physics thread, against the ocean state published by the last frame.
+     */
+    private void applyBuoyancy(float tpf) {
+        IBOcean.Sampler sampler = waterSampler;
+        if (sampler == null || !sampler.sync()) return;
+        if (controlsChanged) {
+            controlsChanged = false;
+            tickControls = controls.toArray(new BuoyancyControl[0]);
+        }
+        tickSampler = sampler;
+        tickTimeStep = tpf;
+
+        waterBatch.clear();
+        for (BuoyancyControl control : tickControls) {
+            control.reserveWaterSamples(waterBatch);
+        }
+        runJob(queueJob, queueBody, tickControls.length);
+        runJob(sampleJob, sampleBody, waterBatch.size());
+        runJob(applyJob, applyBody, tickControls.length);
+    }
+
+    private void runJob(FrameJobs.Job job, FrameJobs.RangeBody body, int count) {
+        if (job != null) {
+            jobs.run(job, count);
+        } else if (count > 0) {
+            body.run(0, count);
+        }
+    }
+
+    /**
+     * Sets the number of hull points used for the buoyancy of the objects added from now on, 0 uses the
+     * five point model.
+     */
+    public void setHullPointCount(int hullPointCount) {
+        this.hullPointCount = Math.max(0, hullPointCount);
+    }
+
+    public int getHullPointCount() {
+        return hullPointCount;
+    }
+
+    /**
+     * Samples the water height at many points with a single query, from the render thread.
+     */
+    public void getWaterHeights(float[] xs, float[] zs, float[] heights, int count) {
+        ibocean.getWaterHeights(xs, zs, heights, count);
     }
 
     public float getWaterHeightAt(float x, float z) {
@@ -264,20 +447,39 @@ public class OceanAppState implements Component<Object>, MainViewPortFragment, R
     }
 
     public void add(Spatial spat) {
-        BuoyancyControl bc = spat.getControl(BuoyancyControl.class);
-        if (bc == null) {
-            bc = new BuoyancyControl();
-            spat.addControl(bc);
-        }
+        add(spat, true);
+    }
+
+    /**
+     * Adds an object to the ocean.
+     *
+     * @param spat
+     *            the object
+     * @param buoyant
+     *            false for objects whose pose comes from elsewhere (eg. the network), they get the wind and
+     *            the water mask but no buoyancy
+     */
+    public void add(Spatial spat, boolean buoyant) {
         WindControl windControl = spat.getControl(WindControl.class);
         if (windControl == null) {
             windControl = new WindControl();
             spat.addControl(windControl);
         }
         windControl.setWind(WIND);
-        bc.setAppState(this);
 
-        controls.add(bc);
+        if (buoyant) {
+            BuoyancyControl bc = spat.getControl(BuoyancyControl.class);
+            if (bc == null) {
+                bc = new BuoyancyControl();
+                spat.addControl(bc);
+            }
+            bc.setAppState(this);
+            if (hullPointCount > 0 && bc.getHullPointCount() == 0) {
+                bc.setHullPoints(HullSamplePoints.get(spat, hullPointCount));
+            }
+            controls.add(bc);
+            controlsChanged = true;
+        }
 
         spat.depthFirstTraversal(sxx -> {
             Object filterWater = sxx.getUserData("nowater");
@@ -323,6 +525,7 @@ public class OceanAppState implements Component<Object>, MainViewPortFragment, R
         BuoyancyControl bc = spat.getControl(BuoyancyControl.class);
         if (bc != null) {
             controls.remove(bc);
+            controlsChanged = true;
             bc.setAppState(null);
         }
     }
@@ -331,16 +534,13 @@ public class OceanAppState implements Component<Object>, MainViewPortFragment, R
         TempVars vars = TempVars.get();
         try {
             // Get distance to water for near plane adjustment
-            Float waterHeight = null;
-            for (BuoyancyControl control : controls) {
-                float g = control.getWaterHeight();
-                if (waterHeight == null || g < waterHeight) {
+            float waterHeight = controls.isEmpty() ? 0f : Float.MAX_VALUE;
+            for (int i = 0; i < controls.size(); i++) {
+                float g = controls.get(i).getWaterHeight();
+                if (g < waterHeight) {
                     waterHeight = g;
                 }
             }
-            if (waterHeight == null) {
-                waterHeight = 0f;
-            }
             waterHeight -= 1f;
             plane.setConstant(waterHeight);
 
@@ -0,0 +1,122 @@
+/**
+ * Copyright (c) 2025, Nostr Game Engine
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * Nostr Game Engine is a fork of the jMonkeyEngine, which is licensed under
+ * the BSD 3-Clause License. The original jMonkeyEngine license is as follows:
+ */
+package org.ngengine.demo.son.ocean;
+
+import java.util.Arrays;
+
+/**
+ * Collects water height queries from many objects so they can be answered with a single call to
+ * {@link IBOcean#getWaterHeights(float[], float[], float[], int)} or to an {@link IBOcean.Sampler}. The
+ * arrays only grow, a batch that is reused every frame does not allocate once it reached its peak size.
+ */
+public class WaterHeightBatch {
+
+    private float[] xs;
+    private float[] zs;
+    private float[] heights;
+    private int count;
+
+    public WaterHeightBatch() {
+        this(64);
+    }
+
+    public WaterHeightBatch(int initialCapacity) {
+        initialCapacity = Math.max(1, initialCapacity);
+        xs = new float[initialCapacity];
+        zs = new float[initialCapacity];
+        heights = new float[initialCapacity];
+    }
+
+    public void clear() {
+        count = 0;
+    }
+
+    /**
+     * Queues a point.
+     *
+     * @return the index of the point, used to read its height back after {@link #sample(IBOcean)}
+     */
+    public int add(float x, float z) {
+        int index = reserve(1);
+        xs[index] = x;
+        zs[index] = z;
+        return index;
+    }
+
+    /**
+     * Reserves consecutive points, to be filled later with {@link #set(int, float, float)}, so that
+     * different objects can write their points from different threads.
+     *
+     * @return the index of the first point
+     */
+    public int reserve(int points) {
+        if (count + points > xs.length) {
+            int capacity = Math.max(xs.length * 2, count + points);
+            xs = Arrays.copyOf(xs, capacity);
+            zs = Arrays.copyOf(zs, capacity);
+            heights = Arrays.copyOf(heights, capacity);
+        }
+        int first = count;
+        count += points;
+        return first;
+    }
+
+    public void set(int index, float x, float z) {
+        xs[index] = x;
+        zs[index] = z;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public void sample(IBOcean ocean) {
+        if (count == 0) return;
+        ocean.getWaterHeights(xs, zs, heights, count);
+    }
+
+    public void sample(IBOcean.Sampler sampler) {
+        if (count == 0) return;
+        sampler.getWaterHeights(xs, zs, heights, count);
+    }
+
+    /**
+     * Samples only the points from (inclusive) to to (exclusive).
+     */
+    public void sample(IBOcean.Sampler sampler, int from, int to) {
+        sampler.getWaterHeights(xs, zs, heights, from, to);
+    }
+
+    public float getHeight(int index) {
+        return heights[index];
+    }
+}
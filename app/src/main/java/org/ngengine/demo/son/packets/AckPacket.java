@@ -31,37 +31,40 @@
  */
 package org.ngengine.demo.son.packets;
 
-import com.jme3.math.Transform;
 import com.jme3.network.Message;
-import java.time.Instant;
-import org.ngengine.network.protocol.NetworkSafe;
+import java.nio.ByteBuffer;
 
-@NetworkSafe
-public class TransformPacket implements Message {
+/**
+ * Acknowledges the newest boat snapshot applied by a receiver, the sender uses it as baseline for the next
+ * {@link BoatSnapshot}s. Sent unreliably like the snapshots, a lost ack is superseded by the next one.
+ */
+public class AckPacket implements BinaryPacket {
+
+    private short tick;
+    private transient boolean reliable = false;
 
-    private Transform transform = new Transform();
-    private transient boolean reliable = true;
-    private Instant timestamp;
+    public AckPacket() {}
 
-    public TransformPacket() {
-        this.timestamp = Instant.now();
+    public AckPacket(short tick) {
+        this.tick = tick;
     }
 
-    public TransformPacket(Transform transform) {
-        this.transform.set(transform);
-        this.timestamp = Instant.now();
+    public short getTick() {
+        return tick;
     }
 
-    public Instant getTimestamp() {
-        return timestamp;
+    public void setTick(short tick) {
+        this.tick = tick;
     }
 
-    public void setTransform(Transform transform) {
-        this.transform.set(transform);
+    @Override
+    public void write(ByteBuffer out) {
+        out.putShort(tick);
     }
 
-    public Transform getTransform() {
-        return transform;
+    @Override
+    public void read(ByteBuffer in) {
+        tick = in.getShort();
     }
 
     @Override
@@ -0,0 +1,318 @@
+/**
+ * Copyright (c) 2025, Nostr Game Engine
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * Nostr Game Engine is a fork of the jMonkeyEngine, which is licensed under
+ * the BSD 3-Clause License. The original jMonkeyEngine license is as follows:
+ */
+package org.ngengine.demo.son.packets;
+
+import com.jme3.network.Message;
+import java.nio.ByteBuffer;
+
+/**
+ * Everything a peer needs to show a remote boat, sent once per network tick: pose, velocity and animation
+ * factors. The state is delta encoded against a snapshot the receiver has acknowledged, fields equal to the
+ * baseline are not sent so a boat that barely moved costs a few bytes. Snapshots without a baseline carry
+ * the full state.
+ * <p>
+ * Snapshots are sent unreliably and may arrive out of order or not at all, the tick is their sequence
+ * number and receivers drop any snapshot older than the newest one they applied. A lost snapshot is never
+ * acknowledged, so it is never used as a baseline.
+ * <p>
+ * Layout of the payload: a flags byte, the baseline tick if {@link #BASELINE} is set, then one section for
+ * each flag, in flag order. Each section starts with its length so that receivers skip the sections they
+ * do not know, new data such as health or cannon state goes in a new section with the next free flag.
+ */
+public class BoatSnapshot implements BinaryPacket {
+
+    public static final int POSE = 1;
+    public static final int VELOCITY = 2;
+    public static final int ANIM = 4;
+    public static final int BASELINE = 0x80;
+
+    // pose section, a mask of the fields that changed followed by their zigzag varint differences
+    private static final int POS_X = 1;
+    private static final int POS_Y = 2;
+    private static final int POS_Z = 4;
+    // same dropped component as the baseline, the three others are sent as differences
+    private static final int ROT_DELTA = 8;
+    private static final int ROT_FULL = 16;
+
+    // velocity section, a mask of the axes that changed followed by their zigzag varint differences
+    private static final int VEL_X = 1;
+    private static final int VEL_Y = 2;
+    private static final int VEL_Z = 4;
+
+    private static final int MAX_BYTES = 255;
+    private static final int ROTATION_COMPONENT_MASK = (1 << WireFormat.ROTATION_COMPONENT_BITS) - 1;
+
+    private short tick;
+    private final byte[] data = new byte[MAX_BYTES];
+    private int size = 0;
+    private transient boolean reliable = false;
+    private transient int[] readPos;
+
+    public BoatSnapshot() {}
+
+    /**
+     * Encodes a state.
+     *
+     * @param baseline
+     *            state acknowledged by the receiver, or null to send the full state
+     * @param baselineTick
+     *            tick the baseline was sent with
+     */
+    public void encode(BoatState state, BoatState baseline, long baselineTick, long tick) {
+        this.tick = WireFormat.packTick(tick);
+        int flags = 0;
+        int pos = 1;
+        if (baseline != null) {
+            flags |= BASELINE;
+            short t = WireFormat.packTick(baselineTick);
+            data[pos++] = (byte) (t >> 8);
+            data[pos++] = (byte) t;
+        }
+
+        int start = pos;
+        pos = encodePose(state, baseline, pos + 1);
+        if (pos > start + 2) {
+            flags |= POSE;
+            data[start] = (byte) (pos - start - 1);
+        } else {
+            pos = start;
+        }
+
+        start = pos;
+        pos = encodeVelocity(state, baseline, pos + 1);
+        if (pos > start + 2) {
+            flags |= VELOCITY;
+            data[start] = (byte) (pos - start - 1);
+        } else {
+            pos = start;
+        }
+
+        if (
+            baseline == null ||
+            state.getFlag() != baseline.getFlag() ||
+            state.getSail() != baseline.getSail() ||
+            state.getWind() != baseline.getWind()
+        ) {
+            flags |= ANIM;
+            data[pos++] = 3;
+            data[pos++] = (byte) state.getFlag();
+            data[pos++] = (byte) state.getSail();
+            data[pos++] = (byte) state.getWind();
+        }
+
+        data[0] = (byte) flags;
+        size = pos;
+    }
+
+    private int encodePose(BoatState state, BoatState baseline, int pos) {
+        int maskPos = pos++;
+        int mask = 0;
+        int bx = baseline != null ? baseline.getX() : 0;
+        int by = baseline != null ? baseline.getY() : 0;
+        int bz = baseline != null ? baseline.getZ() : 0;
+        if (state.getX() != bx) {
+            mask |= POS_X;
+            pos = WireFormat.writeVarInt(data, pos, state.getX() - bx);
+        }
+        if (state.getY() != by) {
+            mask |= POS_Y;
+            pos = WireFormat.writeVarInt(data, pos, state.getY() - by);
+        }
+        if (state.getZ() != bz) {
+            mask |= POS_Z;
+            pos = WireFormat.writeVarInt(data, pos, state.getZ() - bz);
+        }
+
+        int rotation = state.getRotation();
+        if (baseline == null || largest(rotation) != largest(baseline.getRotation())) {
+            mask |= ROT_FULL;
+            data[pos++] = (byte) (rotation >>> 24);
+            data[pos++] = (byte) (rotation >>> 16);
+            data[pos++] = (byte) (rotation >>> 8);
+            data[pos++] = (byte) rotation;
+        } else if (rotation != baseline.getRotation()) {
+            mask |= ROT_DELTA;
+            int base = baseline.getRotation();
+            for (int i = 0; i < 3; i++) {
+                pos = WireFormat.writeVarInt(data, pos, component(rotation, i) - component(base, i));
+            }
+        }
+        data[maskPos] = (byte) mask;
+        return pos;
+    }
+
+    private int encodeVelocity(BoatState state, BoatState baseline, int pos) {
+        int maskPos = pos++;
+        int mask = 0;
+        int bx = baseline != null ? baseline.getVelocityX() : 0;
+        int by = baseline != null ? baseline.getVelocityY() : 0;
+        int bz = baseline != null ? baseline.getVelocityZ() : 0;
+        if (state.getVelocityX() != bx) {
+            mask |= VEL_X;
+            pos = WireFormat.writeVarInt(data, pos, state.getVelocityX() - bx);
+        }
+        if (state.getVelocityY() != by) {
+            mask |= VEL_Y;
+            pos = WireFormat.writeVarInt(data, pos, state.getVelocityY() - by);
+        }
+        if (state.getVelocityZ() != bz) {
+            mask |= VEL_Z;
+            pos = WireFormat.writeVarInt(data, pos, state.getVelocityZ() - bz);
+        }
+        data[maskPos] = (byte) mask;
+        return pos;
+    }
+
+    /**
+     * True if the state is relative to a baseline, that must be passed to {@link #decode}.
+     */
+    public boolean hasBaseline() {
+        return size > 0 && (data[0] & BASELINE) != 0;
+    }
+
+    public short getBaselineTick() {
+        return (short) (((data[1] & 0xFF) << 8) | (data[2] & 0xFF));
+    }
+
+    /**
+     * Decodes the state.
+     *
+     * @param baseline
+     *            the state received with {@link #getBaselineTick()}, ignored if the snapshot has no baseline
+     */
+    public BoatState decode(BoatState baseline, BoatState store) {
+        if (store == null) store = new BoatState();
+        if (readPos == null) readPos = new int[1];
+        int flags = data[0] & 0xFF;
+        int[] pos = readPos;
+        pos[0] = 1;
+        if ((flags & BASELINE) != 0) {
+            pos[0] += 2;
+            store.set(baseline);
+        } else {
+            store.setPose(0, 0, 0, 0).setVelocity(0, 0, 0).setAnim(0, 0, 0);
+        }
+
+        for (int section = 1; section < BASELINE; section <<= 1) {
+            if ((flags & section) == 0) continue;
+            int length = data[pos[0]++] & 0xFF;
+            int end = pos[0] + length;
+            if (section == POSE) {
+                decodePose(store, pos);
+            } else if (section == VELOCITY) {
+                decodeVelocity(store, pos);
+            } else if (section == ANIM) {
+                store.setAnim(data[pos[0]] & 0xFF, data[pos[0] + 1] & 0xFF, data[pos[0] + 2] & 0xFF);
+            }
+            // unknown sections are skipped
+            pos[0] = end;
+        }
+        return store;
+    }
+
+    private void decodePose(BoatState store, int[] pos) {
+        int mask = data[pos[0]++];
+        int x = store.getX();
+        int y = store.getY();
+        int z = store.getZ();
+        int rotation = store.getRotation();
+        if ((mask & POS_X) != 0) x += WireFormat.readVarInt(data, pos);
+        if ((mask & POS_Y) != 0) y += WireFormat.readVarInt(data, pos);
+        if ((mask & POS_Z) != 0) z += WireFormat.readVarInt(data, pos);
+        if ((mask & ROT_FULL) != 0) {
+            int i = pos[0];
+            rotation =
+                ((data[i] & 0xFF) << 24) | ((data[i + 1] & 0xFF) << 16) | ((data[i + 2] & 0xFF) << 8) | (data[i + 3] & 0xFF);
+            pos[0] += 4;
+        } else if ((mask & ROT_DELTA) != 0) {
+            int packed = largest(rotation);
+            for (int i = 0; i < 3; i++) {
+                int c = component(rotation, i) + WireFormat.readVarInt(data, pos);
+                packed = (packed << WireFormat.ROTATION_COMPONENT_BITS) | (c & ROTATION_COMPONENT_MASK);
+            }
+            rotation = packed;
+        }
+        store.setPose(x, y, z, rotation);
+    }
+
+    private void decodeVelocity(BoatState store, int[] pos) {
+        int mask = data[pos[0]++];
+        int vx = store.getVelocityX();
+        int vy = store.getVelocityY();
+        int vz = store.getVelocityZ();
+        if ((mask & VEL_X) != 0) vx += WireFormat.readVarInt(data, pos);
+        if ((mask & VEL_Y) != 0) vy += WireFormat.readVarInt(data, pos);
+        if ((mask & VEL_Z) != 0) vz += WireFormat.readVarInt(data, pos);
+        store.setVelocity(vx, vy, vz);
+    }
+
+    private static int largest(int rotation) {
+        return (rotation >>> (WireFormat.ROTATION_COMPONENT_BITS * 3)) & 3;
+    }
+
+    private static int component(int rotation, int i) {
+        return (rotation >>> (WireFormat.ROTATION_COMPONENT_BITS * (2 - i))) & ROTATION_COMPONENT_MASK;
+    }
+
+    /**
+     * Network tick of the sender when the state was taken, wraps around, see
+     * {@link WireFormat#tickDelta(short, short)}.
+     */
+    public short getTick() {
+        return tick;
+    }
+
+    @Override
+    public void write(ByteBuffer out) {
+        out.putShort(tick);
+        out.put((byte) size);
+        out.put(data, 0, size);
+    }
+
+    @Override
+    public void read(ByteBuffer in) {
+        tick = in.getShort();
+        size = in.get() & 0xFF;
+        in.get(data, 0, size);
+    }
+
+    @Override
+    public Message setReliable(boolean f) {
+        reliable = f;
+        return this;
+    }
+
+    @Override
+    public boolean isReliable() {
+        return reliable;
+    }
+}
@@ -0,0 +1,174 @@
+/**
+ * Copyright (c) 2025, Nostr Game Engine
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * Nostr Game Engine is a fork of the jMonkeyEngine, which is licensed under
+ * the BSD 3-Clause License. The original jMonkeyEngine license is as follows:
+ */
+package org.ngengine.demo.son.packets;
+
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+
+/**
+ * State of a boat as sent in a {@link BoatSnapshot}, quantized with {@link WireFormat} and kept unpacked so
+ * that two states can be diffed field by field.
+ */
+public class BoatState {
+
+    private int x;
+    private int y;
+    private int z;
+    private int rotation;
+    private int vx;
+    private int vy;
+    private int vz;
+    private int flag;
+    private int sail;
+    private int wind;
+
+    public BoatState setPose(Vector3f position, Quaternion rotation) {
+        this.x = WireFormat.quantizeX(position.x);
+        this.y = WireFormat.quantizeY(position.y);
+        this.z = WireFormat.quantizeZ(position.z);
+        this.rotation = WireFormat.packRotation(rotation);
+        return this;
+    }
+
+    public BoatState setPose(int x, int y, int z, int rotation) {
+        this.x = x;
+        this.y = y;
+        this.z = z;
+        this.rotation = rotation;
+        return this;
+    }
+
+    public BoatState setVelocity(Vector3f velocity) {
+        return setVelocity(
+            WireFormat.quantizeVelocity(velocity.x),
+            WireFormat.quantizeVelocity(velocity.y),
+            WireFormat.quantizeVelocity(velocity.z)
+        );
+    }
+
+    public BoatState setVelocity(int vx, int vy, int vz) {
+        this.vx = vx;
+        this.vy = vy;
+        this.vz = vz;
+        return this;
+    }
+
+    public BoatState setAnim(float flagFactor, float sailFactor, float windFactor) {
+        return setAnim(
+            WireFormat.packUnit(flagFactor) & 0xFF,
+            WireFormat.packUnit(sailFactor) & 0xFF,
+            WireFormat.packUnit(windFactor) & 0xFF
+        );
+    }
+
+    public BoatState setAnim(int flag, int sail, int wind) {
+        this.flag = flag;
+        this.sail = sail;
+        this.wind = wind;
+        return this;
+    }
+
+    public BoatState set(BoatState state) {
+        setPose(state.x, state.y, state.z, state.rotation);
+        setVelocity(state.vx, state.vy, state.vz);
+        return setAnim(state.flag, state.sail, state.wind);
+    }
+
+    public int getX() {
+        return x;
+    }
+
+    public int getY() {
+        return y;
+    }
+
+    public int getZ() {
+        return z;
+    }
+
+    public int getRotation() {
+        return rotation;
+    }
+
+    public int getVelocityX() {
+        return vx;
+    }
+
+    public int getVelocityY() {
+        return vy;
+    }
+
+    public int getVelocityZ() {
+        return vz;
+    }
+
+    public int getFlag() {
+        return flag;
+    }
+
+    public int getSail() {
+        return sail;
+    }
+
+    public int getWind() {
+        return wind;
+    }
+
+    public Vector3f getPosition(Vector3f store) {
+        return WireFormat.dequantizePosition(x, y, z, store);
+    }
+
+    public Quaternion getRotation(Quaternion store) {
+        return WireFormat.unpackRotation(rotation, store);
+    }
+
+    public Vector3f getVelocity(Vector3f store) {
+        if (store == null) store = new Vector3f();
+        return store.set(
+            WireFormat.dequantizeVelocity(vx),
+            WireFormat.dequantizeVelocity(vy),
+            WireFormat.dequantizeVelocity(vz)
+        );
+    }
+
+    public float getFlagFactor() {
+        return WireFormat.unpackUnit((byte) flag);
+    }
+
+    public float getSailFactor() {
+        return WireFormat.unpackUnit((byte) sail);
+    }
+
+    public float getWindFactor() {
+        return WireFormat.unpackUnit((byte) wind);
+    }
+}
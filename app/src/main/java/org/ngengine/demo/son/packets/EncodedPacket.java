@@ -32,56 +32,39 @@
 package org.ngengine.demo.son.packets;
 
 import com.jme3.network.Message;
-import java.time.Instant;
+import java.nio.ByteBuffer;
 import org.ngengine.network.protocol.NetworkSafe;
 
+/**
+ * The bytes of a {@link BinaryPacket}, as written by {@link PacketEncoder}. This is the only packet the
+ * generic serializer sees, a single byte array that is encoded once and sent as is to every peer. The bytes
+ * are never modified after encoding, so a connection may serialize the packet at any time after send
+ * returns.
+ */
 @NetworkSafe
-public class AnimPacket implements Message {
-
-    private boolean reliable = true;
-
-    private float flagFactor;
-    private float sailFactor;
-    private float windFactor;
-    private Instant timestamp;
-
-    public AnimPacket() {
-        this.timestamp = Instant.now();
-    }
-
-    public AnimPacket(float flagFactor, float sailFactor, float windFactor) {
-        this.flagFactor = flagFactor;
-        this.sailFactor = sailFactor;
-        this.windFactor = windFactor;
-        this.timestamp = Instant.now();
-    }
-
-    public Instant getTimestamp() {
-        return timestamp;
-    }
+public class EncodedPacket implements Message {
 
-    public float getFlagFactor() {
-        return flagFactor;
-    }
+    private byte[] data = new byte[0];
+    private transient boolean reliable = true;
 
-    public void setFlagFactor(float flagFactor) {
-        this.flagFactor = flagFactor;
-    }
-
-    public float getSailFactor() {
-        return sailFactor;
-    }
+    public EncodedPacket() {}
 
-    public void setSailFactor(float sailFactor) {
-        this.sailFactor = sailFactor;
+    /**
+     * Copies the remaining bytes of the buffer.
+     */
+    EncodedPacket(ByteBuffer src, boolean reliable) {
+        // the serializer needs an array of the exact size
+        this.data = new byte[src.remaining()];
+        src.get(data);
+        this.reliable = reliable;
     }
 
-    public float getWindFactor() {
-        return windFactor;
+    public byte[] getData() {
+        return data;
     }
 
-    public void setWindFactor(float windFactor) {
-        this.windFactor = windFactor;
+    public int getSize() {
+        return data.length;
     }
 
     @Override
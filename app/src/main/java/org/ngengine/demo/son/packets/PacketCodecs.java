@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) 2025, Nostr Game Engine
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * Nostr Game Engine is a fork of the jMonkeyEngine, which is licensed under
+ * the BSD 3-Clause License. The original jMonkeyEngine license is as follows:
+ */
+package org.ngengine.demo.son.packets;
+
+import java.nio.ByteBuffer;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Registry of the {@link BinaryPacket} types, each one is written as a one byte id followed by its fields.
+ * Ids are part of the wire format, every peer must register the same packets with the same ids.
+ */
+public final class PacketCodecs {
+
+    public static final int SNAPSHOT = 1;
+    public static final int SHOT = 2;
+    public static final int ACK = 3;
+
+    static final int MAX_ID = 255;
+
+    @SuppressWarnings("unchecked")
+    private static final Supplier<? extends BinaryPacket>[] factories = new Supplier[MAX_ID + 1];
+    private static final Map<Class<?>, Integer> ids = new IdentityHashMap<>();
+
+    static {
+        register(SNAPSHOT, BoatSnapshot.class, BoatSnapshot::new);
+        register(SHOT, ShotPacket.class, ShotPacket::new);
+        register(ACK, AckPacket.class, AckPacket::new);
+    }
+
+    private PacketCodecs() {}
+
+    /**
+     * Registers a packet type, must be called before any packet is sent or received.
+     */
+    public static synchronized <T extends BinaryPacket> void register(int id, Class<T> type, Supplier<T> factory) {
+        if (id <= 0 || id > MAX_ID) {
+            throw new IllegalArgumentException("Packet id out of range: " + id);
+        }
+        if (factories[id] != null || ids.containsKey(type)) {
+            throw new IllegalArgumentException("Packet " + type.getName() + " or id " + id + " already registered");
+        }
+        factories[id] = factory;
+        ids.put(type, id);
+    }
+
+    public static int getId(Class<?> type) {
+        Integer id = ids.get(type);
+        return id != null ? id : -1;
+    }
+
+    public static void write(BinaryPacket packet, ByteBuffer out) {
+        int id = getId(packet.getClass());
+        if (id < 0) {
+            throw new IllegalArgumentException("Unregistered packet " + packet.getClass().getName());
+        }
+        out.put((byte) id);
+        packet.write(out);
+    }
+
+    /**
+     * Creates an empty packet of the type registered with the id.
+     */
+    static BinaryPacket create(int id) {
+        Supplier<? extends BinaryPacket> factory = factories[id];
+        if (factory == null) {
+            throw new IllegalArgumentException("Unknown packet id " + id);
+        }
+        return factory.get();
+    }
+
+    public static BinaryPacket read(ByteBuffer in) {
+        BinaryPacket packet = create(in.get() & 0xFF);
+        packet.read(in);
+        return packet;
+    }
+
+    /**
+     * Decodes a packet into a new instance, see {@link PacketDecoder} to decode without allocating.
+     */
+    public static BinaryPacket decode(EncodedPacket packet) {
+        return read(ByteBuffer.wrap(packet.getData()));
+    }
+}
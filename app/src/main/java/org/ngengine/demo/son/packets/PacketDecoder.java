@@ -0,0 +1,68 @@
+/**
+ * Copyright (c) 2025, Nostr Game Engine
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * Nostr Game Engine is a fork of the jMonkeyEngine, which is licensed under
+ * the BSD 3-Clause License. The original jMonkeyEngine license is as follows:
+ */
+package org.ngengine.demo.son.packets;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Decodes received packets into one reused instance per packet type, so the receive path does not allocate.
+ * A decoded packet is valid only until the next packet of the same type is decoded. Not thread safe, every
+ * receiving thread needs its own decoder.
+ */
+public class PacketDecoder {
+
+    private final BinaryPacket[] packets = new BinaryPacket[PacketCodecs.MAX_ID + 1];
+    private ByteBuffer buffer;
+
+    public PacketDecoder() {
+        this(256);
+    }
+
+    public PacketDecoder(int initialCapacity) {
+        buffer = ByteBuffer.allocate(initialCapacity);
+    }
+
+    public BinaryPacket decode(EncodedPacket packet) {
+        byte[] data = packet.getData();
+        if (buffer.capacity() < data.length) {
+            buffer = ByteBuffer.allocate(Math.max(data.length, buffer.capacity() * 2));
+        }
+        // copied into a reused buffer, wrapping every received array would allocate a buffer per packet
+        buffer.clear();
+        buffer.put(data).flip();
+        int id = buffer.get() & 0xFF;
+        BinaryPacket decoded = packets[id];
+        if (decoded == null) decoded = packets[id] = PacketCodecs.create(id);
+        decoded.read(buffer);
+        return decoded;
+    }
+}
@@ -33,45 +33,62 @@ package org.ngengine.demo.son.packets;
 
 import com.jme3.math.Vector3f;
 import com.jme3.network.Message;
-import java.time.Instant;
-import org.ngengine.network.protocol.NetworkSafe;
+import java.nio.ByteBuffer;
 
-@NetworkSafe
-public class ShotPacket implements Message {
+/**
+ * A batch of cannon shots fired by the same boat in the same frame. Shots are sent as origin and velocity,
+ * the receivers integrate them analytically, advanced by the latency they measured to the sender.
+ */
+public class ShotPacket implements BinaryPacket {
+
+    public static final int FLOATS_PER_SHOT = 6;
 
-    private Vector3f from = new Vector3f();
-    private Vector3f to = new Vector3f();
+    // origin x,y,z and velocity x,y,z of each shot
+    private float[] shots = new float[0];
+    private int count;
     private transient boolean reliable = true;
-    private Instant timestamp;
 
-    public ShotPacket() {
-        this.timestamp = Instant.now();
-    }
+    public ShotPacket() {}
 
-    public ShotPacket(Vector3f from, Vector3f to) {
-        this.from.set(from);
-        this.to.set(to);
-        this.timestamp = Instant.now();
+    /**
+     * @param shots
+     *            origin and velocity of each shot, {@link #FLOATS_PER_SHOT} floats per shot, not copied
+     */
+    public ShotPacket(float[] shots) {
+        this.shots = shots;
+        this.count = shots.length / FLOATS_PER_SHOT;
     }
 
-    public Instant getTimestamp() {
-        return timestamp;
+    public int getCount() {
+        return count;
     }
 
-    public void setFrom(Vector3f from) {
-        this.from.set(from);
+    public Vector3f getOrigin(int shot, Vector3f store) {
+        int i = shot * FLOATS_PER_SHOT;
+        return store.set(shots[i], shots[i + 1], shots[i + 2]);
     }
 
-    public void setTo(Vector3f to) {
-        this.to.set(to);
+    public Vector3f getVelocity(int shot, Vector3f store) {
+        int i = shot * FLOATS_PER_SHOT;
+        return store.set(shots[i + 3], shots[i + 4], shots[i + 5]);
     }
 
-    public Vector3f getFrom() {
-        return from;
+    @Override
+    public void write(ByteBuffer out) {
+        out.putShort((short) count);
+        for (int i = 0; i < count * FLOATS_PER_SHOT; i++) {
+            out.putFloat(shots[i]);
+        }
     }
 
-    public Vector3f getTo() {
-        return to;
+    @Override
+    public void read(ByteBuffer in) {
+        count = in.getShort() & 0xFFFF;
+        // a packet reused by a PacketDecoder keeps its array, it is grown only for a larger batch
+        if (shots.length < count * FLOATS_PER_SHOT) shots = new float[count * FLOATS_PER_SHOT];
+        for (int i = 0; i < count * FLOATS_PER_SHOT; i++) {
+            shots[i] = in.getFloat();
+        }
     }
 
     @Override
@@ -0,0 +1,253 @@
+/**
+ * Copyright (c) 2025, Nostr Game Engine
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * Nostr Game Engine is a fork of the jMonkeyEngine, which is licensed under
+ * the BSD 3-Clause License. The original jMonkeyEngine license is as follows:
+ */
+package org.ngengine.demo.son.packets;
+
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+
+/**
+ * Quantization used by the packets sent every network tick.
+ * <ul>
+ * <li>positions: 21 bits per axis relative to the play area, packed in a long</li>
+ * <li>rotations: smallest three quaternion, 2 bits for the dropped component and 9 bits for each of the
+ * others, packed in an int</li>
+ * <li>velocities: centimeters per second</li>
+ * <li>animation factors: 8 bit fixed point in [0, 1]</li>
+ * <li>ticks: 16 bit counter that wraps around</li>
+ * </ul>
+ * The play area is fixed, every peer quantizes in the same box and the physics world and the boats are
+ * bounded by it too.
+ */
+public final class WireFormat {
+
+    public static final int POSITION_BITS = 21;
+    public static final int ROTATION_COMPONENT_BITS = 9;
+    public static final float VELOCITY_PRECISION = 0.01f;
+
+    // the play area, shared with the physics world bounds and the boat controls
+    public static final float PLAY_AREA_HALF_SIZE = 4096f;
+    public static final float PLAY_AREA_MIN_Y = -256f;
+    public static final float PLAY_AREA_MAX_Y = 512f;
+
+    private static final long POSITION_MAX = (1L << POSITION_BITS) - 1;
+    private static final long POSITION_MASK = POSITION_MAX;
+    private static final int ROTATION_MAX = (1 << ROTATION_COMPONENT_BITS) - 1;
+    private static final int ROTATION_MASK = ROTATION_MAX;
+    // the three smallest components of a unit quaternion are within +-1/sqrt(2)
+    private static final float ROTATION_RANGE = (float) (1.0 / Math.sqrt(2.0));
+
+    // positions outside of the play area are clamped to its faces
+    private static final float AREA_SIZE_XZ = PLAY_AREA_HALF_SIZE * 2f;
+    private static final float AREA_SIZE_Y = PLAY_AREA_MAX_Y - PLAY_AREA_MIN_Y;
+
+    private WireFormat() {}
+
+    /**
+     * Size of the smallest position step on each axis, in world units.
+     */
+    public static Vector3f getPositionPrecision(Vector3f store) {
+        if (store == null) store = new Vector3f();
+        return store.set(AREA_SIZE_XZ, AREA_SIZE_Y, AREA_SIZE_XZ).divideLocal(POSITION_MAX);
+    }
+
+    public static long packPosition(Vector3f position) {
+        long x = quantizeX(position.x);
+        long y = quantizeY(position.y);
+        long z = quantizeZ(position.z);
+        return (x << (POSITION_BITS * 2)) | (y << POSITION_BITS) | z;
+    }
+
+    public static int quantizeX(float x) {
+        return (int) quantize(x, -PLAY_AREA_HALF_SIZE, AREA_SIZE_XZ);
+    }
+
+    public static int quantizeY(float y) {
+        return (int) quantize(y, PLAY_AREA_MIN_Y, AREA_SIZE_Y);
+    }
+
+    public static int quantizeZ(float z) {
+        return (int) quantize(z, -PLAY_AREA_HALF_SIZE, AREA_SIZE_XZ);
+    }
+
+    public static Vector3f dequantizePosition(int x, int y, int z, Vector3f store) {
+        if (store == null) store = new Vector3f();
+        return store.set(
+            dequantize(x, -PLAY_AREA_HALF_SIZE, AREA_SIZE_XZ),
+            dequantize(y, PLAY_AREA_MIN_Y, AREA_SIZE_Y),
+            dequantize(z, -PLAY_AREA_HALF_SIZE, AREA_SIZE_XZ)
+        );
+    }
+
+    public static Vector3f unpackPosition(long packed, Vector3f store) {
+        if (store == null) store = new Vector3f();
+        return store.set(
+            dequantize((packed >>> (POSITION_BITS * 2)) & POSITION_MASK, -PLAY_AREA_HALF_SIZE, AREA_SIZE_XZ),
+            dequantize((packed >>> POSITION_BITS) & POSITION_MASK, PLAY_AREA_MIN_Y, AREA_SIZE_Y),
+            dequantize(packed & POSITION_MASK, -PLAY_AREA_HALF_SIZE, AREA_SIZE_XZ)
+        );
+    }
+
+    private static long quantize(float v, float min, float size) {
+        float t = (v - min) / size;
+        if (t <= 0f) return 0;
+        if (t >= 1f) return POSITION_MAX;
+        return Math.round(t * POSITION_MAX);
+    }
+
+    private static float dequantize(long q, float min, float size) {
+        return min + (q / (float) POSITION_MAX) * size;
+    }
+
+    public static int packRotation(Quaternion rotation) {
+        float x = rotation.getX();
+        float y = rotation.getY();
+        float z = rotation.getZ();
+        float w = rotation.getW();
+        float invLength = 1f / (float) Math.sqrt(x * x + y * y + z * z + w * w);
+        x *= invLength;
+        y *= invLength;
+        z *= invLength;
+        w *= invLength;
+
+        int largest = 0;
+        float largestAbs = Math.abs(x);
+        if (Math.abs(y) > largestAbs) {
+            largest = 1;
+            largestAbs = Math.abs(y);
+        }
+        if (Math.abs(z) > largestAbs) {
+            largest = 2;
+            largestAbs = Math.abs(z);
+        }
+        if (Math.abs(w) > largestAbs) {
+            largest = 3;
+        }
+        // q and -q are the same rotation, make the dropped component positive so its sign is implicit
+        float sign = (largest == 0 ? x : largest == 1 ? y : largest == 2 ? z : w) < 0 ? -1f : 1f;
+
+        int packed = largest;
+        for (int i = 0; i < 4; i++) {
+            if (i == largest) continue;
+            float c = (i == 0 ? x : i == 1 ? y : i == 2 ? z : w) * sign;
+            int q = Math.round((c / ROTATION_RANGE * 0.5f + 0.5f) * ROTATION_MAX);
+            q = q < 0 ? 0 : (q > ROTATION_MAX ? ROTATION_MAX : q);
+            packed = (packed << ROTATION_COMPONENT_BITS) | q;
+        }
+        return packed;
+    }
+
+    public static Quaternion unpackRotation(int packed, Quaternion store) {
+        if (store == null) store = new Quaternion();
+        float c2 = unpackComponent(packed);
+        float c1 = unpackComponent(packed >>> ROTATION_COMPONENT_BITS);
+        float c0 = unpackComponent(packed >>> (ROTATION_COMPONENT_BITS * 2));
+        int largest = (packed >>> (ROTATION_COMPONENT_BITS * 3)) & 3;
+        float dropped = (float) Math.sqrt(Math.max(0f, 1f - c0 * c0 - c1 * c1 - c2 * c2));
+        switch (largest) {
+            case 0:
+                return store.set(dropped, c0, c1, c2);
+            case 1:
+                return store.set(c0, dropped, c1, c2);
+            case 2:
+                return store.set(c0, c1, dropped, c2);
+            default:
+                return store.set(c0, c1, c2, dropped);
+        }
+    }
+
+    private static float unpackComponent(int bits) {
+        return ((bits & ROTATION_MASK) / (float) ROTATION_MAX * 2f - 1f) * ROTATION_RANGE;
+    }
+
+    public static int quantizeVelocity(float v) {
+        return Math.round(v / VELOCITY_PRECISION);
+    }
+
+    public static float dequantizeVelocity(int q) {
+        return q * VELOCITY_PRECISION;
+    }
+
+    public static byte packUnit(float v) {
+        if (v <= 0f) return 0;
+        if (v >= 1f) return (byte) 255;
+        return (byte) Math.round(v * 255f);
+    }
+
+    public static float unpackUnit(byte packed) {
+        return (packed & 0xFF) / 255f;
+    }
+
+    /**
+     * Writes an int as a zigzag varint, so small values of either sign take a single byte.
+     *
+     * @return the position after the written bytes
+     */
+    public static int writeVarInt(byte[] buffer, int pos, int value) {
+        int v = (value << 1) ^ (value >> 31);
+        while ((v & ~0x7F) != 0) {
+            buffer[pos++] = (byte) ((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        buffer[pos++] = (byte) v;
+        return pos;
+    }
+
+    /**
+     * Reads a zigzag varint written by {@link #writeVarInt(byte[], int, int)}.
+     *
+     * @param pos
+     *            holds the read position, advanced past the value
+     */
+    public static int readVarInt(byte[] buffer, int[] pos) {
+        int v = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer[pos[0]++];
+            v |= (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    public static short packTick(long tick) {
+        return (short) tick;
+    }
+
+    /**
+     * Distance from tick b to tick a, negative if a is older than b. Valid while the two ticks are less than
+     * 32768 ticks apart.
+     */
+    public static int tickDelta(short a, short b) {
+        return (short) (a - b);
+    }
+}
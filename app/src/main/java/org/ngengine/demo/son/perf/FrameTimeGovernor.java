@@ -0,0 +1,343 @@
+/**
+ * Copyright (c) 2025, Nostr Game Engine
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * Nostr Game Engine is a fork of the jMonkeyEngine, which is licensed under
+ * the BSD 3-Clause License. The original jMonkeyEngine license is as follows:
+ */
+package org.ngengine.demo.son.perf;
+
+import com.jme3.app.Application;
+import com.jme3.profile.AppProfiler;
+import com.jme3.profile.AppStep;
+import com.jme3.profile.SpStep;
+import com.jme3.profile.VpStep;
+import com.jme3.renderer.ViewPort;
+import com.jme3.renderer.queue.RenderQueue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+import java.util.logging.Logger;
+import org.ngengine.components.Component;
+import org.ngengine.components.ComponentManager;
+import org.ngengine.components.fragments.AppFragment;
+import org.ngengine.components.fragments.LogicFragment;
+import org.ngengine.demo.son.BaseEnvironment;
+import org.ngengine.demo.son.fx.ParticleManager;
+import org.ngengine.demo.son.ocean.OceanAppState;
+import org.ngengine.runner.Runner;
+import org.ngengine.store.DataStoreProvider;
+
+/**
+ * Keeps the frame time under a target by lowering quality knobs at runtime.
+ * <p>
+ * A rolling window of frame times is evaluated about once per second. When its percentile stays over the
+ * target the first knob that can still be lowered is stepped down, when it stays well under the target
+ * the last lowered knob is stepped back up. Separate thresholds, a number of consecutive evaluations and
+ * a cooldown after each change keep it from oscillating.
+ * <p>
+ * Knobs are lowered on the frame time, but raised on the CPU work time of the frame, measured from the
+ * beginning of the update to the end of the render, before the buffer swap. With VSync the frame time
+ * never drops under the refresh interval, so it cannot tell how much headroom is left.
+ */
+public class FrameTimeGovernor implements Component<Object>, LogicFragment, AppFragment {
+
+    private static final Logger log = Logger.getLogger(FrameTimeGovernor.class.getName());
+
+    /**
+     * A quality setting with discrete levels, from 0 (cheapest) to maxLevel (the configured quality).
+     */
+    public static class Knob {
+
+        private final String name;
+        private final int maxLevel;
+        private final IntConsumer apply;
+        private int level;
+
+        public Knob(String name, int maxLevel, IntConsumer apply) {
+            this.name = name;
+            this.maxLevel = maxLevel;
+            this.apply = apply;
+            this.level = maxLevel;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getLevel() {
+            return level;
+        }
+
+        public int getMaxLevel() {
+            return maxLevel;
+        }
+
+        private void setLevel(int level) {
+            this.level = level;
+            apply.accept(level);
+        }
+    }
+
+    private static final int WINDOW_SIZE = 120;
+    // frames longer than this are loading hitches, not a steady state the knobs could fix
+    private static final float MAX_SAMPLE_MILLIS = 250f;
+
+    private final List<Knob> knobs = new ArrayList<>();
+    private final float[] window = new float[WINDOW_SIZE];
+    private final float[] workWindow = new float[WINDOW_SIZE];
+    private final float[] sorted = new float[WINDOW_SIZE];
+    private int windowCount = 0;
+    private int windowIndex = 0;
+    private final WorkTimer workTimer = new WorkTimer();
+
+    private float targetMillis = 16.6f;
+    private float percentile = 0.95f;
+    private float lowerThreshold = 1.1f;
+    private float raiseThreshold = 0.7f;
+    private int lowerAfterEvaluations = 2;
+    private int raiseAfterEvaluations = 5;
+    private float evaluationInterval = 1f;
+    private float cooldown = 3f;
+
+    private float sinceEvaluation = 0;
+    private float sinceChange = 0;
+    private int overBudgetEvaluations = 0;
+    private int underBudgetEvaluations = 0;
+    private float lastPercentileMillis = 0;
+    private float lastWorkPercentileMillis = 0;
+
+    /**
+     * Times the CPU work of every frame, forwarding the steps to the profiler that was already installed.
+     */
+    private static class WorkTimer implements AppProfiler {
+
+        private AppProfiler delegate;
+        private long frameStart;
+        private float lastWorkMillis = -1;
+
+        @Override
+        public void appStep(AppStep step) {
+            if (step == AppStep.BeginFrame) {
+                frameStart = System.nanoTime();
+            } else if (step == AppStep.EndFrame && frameStart != 0) {
+                lastWorkMillis = (System.nanoTime() - frameStart) / 1e6f;
+            }
+            if (delegate != null) delegate.appStep(step);
+        }
+
+        @Override
+        public void appSubStep(String... additionalInfo) {
+            if (delegate != null) delegate.appSubStep(additionalInfo);
+        }
+
+        @Override
+        public void vpStep(VpStep step, ViewPort vp, RenderQueue.Bucket bucket) {
+            if (delegate != null) delegate.vpStep(step, vp, bucket);
+        }
+
+        @Override
+        public void spStep(SpStep step, String... additionalInfo) {
+            if (delegate != null) delegate.spStep(step, additionalInfo);
+        }
+    }
+
+    @Override
+    public void onEnable(ComponentManager mng, Runner runner, DataStoreProvider dataStore, boolean firstTime, Object arg) {
+        if (firstTime) {
+            OceanAppState ocean = mng.getComponent(OceanAppState.class);
+            BaseEnvironment environment = mng.getComponent(BaseEnvironment.class);
+            ParticleManager particles = mng.getComponent(ParticleManager.class);
+
+            if (ocean != null) {
+                int size = ocean.getReflectionSize();
+                int[] sizes = { size / 4, size / 2, size / 2, size };
+                int[] intervals = { 3, 2, 1, 1 };
+                addKnob(new Knob("reflections", sizes.length - 1, l -> ocean.setReflectionQuality(sizes[l], intervals[l])));
+            }
+            if (environment != null && environment.getMaxFilterLevel() > 0) {
+                addKnob(new Knob("post filters", environment.getMaxFilterLevel(), environment::setFilterLevel));
+            }
+            if (ocean != null) {
+                int density = ocean.getVertexDensity();
+                int[] densities = { density / 2, density * 3 / 4, density };
+                addKnob(new Knob("ocean grid density", densities.length - 1, l -> ocean.setVertexDensity(densities[l])));
+            }
+            if (particles != null) {
+                int budget = particles.getBudget();
+                int[] budgets = { budget / 4, budget / 2, budget };
+                addKnob(new Knob("particle budget", budgets.length - 1, l -> particles.setBudget(budgets[l])));
+            }
+        }
+        resetWindow();
+    }
+
+    @Override
+    public void onDisable(ComponentManager mng, Runner runner, DataStoreProvider dataStore) {}
+
+    @Override
+    public void receiveApplication(Application app) {
+        if (app.getAppProfiler() == workTimer) return;
+        workTimer.delegate = app.getAppProfiler();
+        app.setAppProfiler(workTimer);
+    }
+
+    /**
+     * Adds a knob, knobs are lowered in the order they are added and raised in the reverse order.
+     */
+    public void addKnob(Knob knob) {
+        knobs.add(knob);
+    }
+
+    public List<Knob> getKnobs() {
+        return knobs;
+    }
+
+    public void setTargetMillis(float targetMillis) {
+        this.targetMillis = targetMillis;
+    }
+
+    public float getTargetMillis() {
+        return targetMillis;
+    }
+
+    public void setPercentile(float percentile) {
+        this.percentile = percentile;
+    }
+
+    /**
+     * The knobs are lowered when the frame time percentile is over target * lower and raised when the
+     * work time percentile is under target * raise.
+     */
+    public void setThresholds(float lower, float raise) {
+        this.lowerThreshold = lower;
+        this.raiseThreshold = raise;
+    }
+
+    public float getLastPercentileMillis() {
+        return lastPercentileMillis;
+    }
+
+    public float getLastWorkPercentileMillis() {
+        return lastWorkPercentileMillis;
+    }
+
+    @Override
+    public void updateAppLogic(float tpf) {
+        float millis = tpf * 1000f;
+        sinceChange += tpf;
+        if (millis < MAX_SAMPLE_MILLIS) {
+            window[windowIndex] = millis;
+            // the work time of the previous frame, the frame time when no profiler step was recorded yet
+            float work = workTimer.lastWorkMillis;
+            workWindow[windowIndex] = work >= 0 ? Math.min(work, millis) : millis;
+            windowIndex = (windowIndex + 1) % WINDOW_SIZE;
+            if (windowCount < WINDOW_SIZE) windowCount++;
+        }
+
+        sinceEvaluation += tpf;
+        if (sinceEvaluation < evaluationInterval || windowCount < WINDOW_SIZE / 2) return;
+        sinceEvaluation = 0;
+        evaluate();
+    }
+
+    private void evaluate() {
+        lastPercentileMillis = percentile(window);
+        lastWorkPercentileMillis = percentile(workWindow);
+
+        if (lastPercentileMillis > targetMillis * lowerThreshold) {
+            overBudgetEvaluations++;
+            underBudgetEvaluations = 0;
+        } else if (lastWorkPercentileMillis < targetMillis * raiseThreshold) {
+            underBudgetEvaluations++;
+            overBudgetEvaluations = 0;
+        } else {
+            overBudgetEvaluations = 0;
+            underBudgetEvaluations = 0;
+        }
+
+        if (sinceChange < cooldown) return;
+
+        if (overBudgetEvaluations >= lowerAfterEvaluations) {
+            for (Knob knob : knobs) {
+                if (knob.level > 0) {
+                    change(knob, knob.level - 1, "over");
+                    break;
+                }
+            }
+        } else if (underBudgetEvaluations >= raiseAfterEvaluations) {
+            for (int k = knobs.size() - 1; k >= 0; k--) {
+                Knob knob = knobs.get(k);
+                if (knob.level < knob.maxLevel) {
+                    change(knob, knob.level + 1, "under");
+                    break;
+                }
+            }
+        }
+    }
+
+    private float percentile(float[] samples) {
+        System.arraycopy(samples, 0, sorted, 0, windowCount);
+        Arrays.sort(sorted, 0, windowCount);
+        return sorted[Math.min(windowCount - 1, (int) (percentile * windowCount))];
+    }
+
+    private void change(Knob knob, int level, String reason) {
+        log.info(
+            (level < knob.level ? "Lowering " : "Raising ") +
+            knob.name +
+            " to level " +
+            level +
+            "/" +
+            knob.maxLevel +
+            ": p" +
+            (int) (percentile * 100) +
+            " frame time " +
+            String.format("%.2f", lastPercentileMillis) +
+            " ms (work " +
+            String.format("%.2f", lastWorkPercentileMillis) +
+            " ms) is " +
+            reason +
+            " the " +
+            targetMillis +
+            " ms target"
+        );
+        knob.setLevel(level);
+        // the new settings need a fresh window, the old frame times no longer apply
+        resetWindow();
+    }
+
+    private void resetWindow() {
+        windowCount = 0;
+        windowIndex = 0;
+        sinceEvaluation = 0;
+        sinceChange = 0;
+        overBudgetEvaluations = 0;
+        underBudgetEvaluations = 0;
+    }
+}
@@ -0,0 +1,252 @@
+/**
+ * Copyright (c) 2025, Nostr Game Engine
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * Nostr Game Engine is a fork of the jMonkeyEngine, which is licensed under
+ * the BSD 3-Clause License. The original jMonkeyEngine license is as follows:
+ */
+package org.ngengine.demo.son.perf;
+
+import com.jme3.bullet.PhysicsSpace;
+import com.jme3.bullet.collision.shapes.BoxCollisionShape;
+import com.jme3.bullet.collision.shapes.PlaneCollisionShape;
+import com.jme3.bullet.objects.PhysicsRigidBody;
+import com.jme3.math.Plane;
+import com.jme3.math.Vector3f;
+import com.jme3.math.Vector4f;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.ngengine.demo.son.ocean.OceanWaveSim;
+import org.ngengine.platform.VStore;
+
+/**
+ * Short CPU micro-benchmark used at first launch to pick the initial {@link QualityPreset}. It times a
+ * slice of the ocean bake and a few steps of a small physics scene, and the result is persisted so the
+ * benchmark runs only once.
+ */
+public class HardwareProbe {
+
+    private static final Logger log = Logger.getLogger(HardwareProbe.class.getName());
+
+    private static final String PROBE_FILE = "hardwareprobe.properties";
+    // bump to run the probe again when the benchmark or the presets change
+    private static final int PROBE_VERSION = 1;
+
+    private static final int OCEAN_SLICE_ROWS = 16;
+    private static final int OCEAN_SLICE_COLUMNS = 128;
+    private static final float OCEAN_DOMAIN = 1024f;
+    private static final int OCEAN_LAYERS = 3;
+
+    private static final int PHYSICS_BODIES = 24;
+    private static final int PHYSICS_WARMUP_STEPS = 30;
+    private static final int PHYSICS_STEPS = 120;
+
+    // worst acceptable results for ULTRA, HIGH and MEDIUM, LOW is used when none of them fits
+    private static final float[] MAX_BAKE_SECONDS = { 20f, 15f, 10f };
+    private static final float[] MAX_PHYSICS_STEP_MS = { 0.6f, 1.2f, 2.5f };
+
+    private float oceanSampleNanos;
+    private float physicsStepMillis;
+    private int cores;
+    private QualityPreset preset;
+    // keeps the benchmarked samples alive so they are not optimized away
+    private float sink;
+
+    public float getOceanSampleNanos() {
+        return oceanSampleNanos;
+    }
+
+    public float getPhysicsStepMillis() {
+        return physicsStepMillis;
+    }
+
+    public int getCores() {
+        return cores;
+    }
+
+    public QualityPreset getPreset() {
+        return preset;
+    }
+
+    /**
+     * Returns the persisted preset, running the benchmark first if this is the first launch. The preset
+     * can be forced with -Dquality=low|medium|high|ultra, and -Dlowend=true forces {@link QualityPreset#LOW}.
+     */
+    public static QualityPreset loadOrProbe(VStore store) {
+        QualityPreset forced = "true".equals(System.getProperty("lowend"))
+            ? QualityPreset.LOW
+            : QualityPreset.fromString(System.getProperty("quality"), null);
+        if (forced != null) {
+            log.info("Using forced quality preset " + forced);
+            return forced;
+        }
+
+        HardwareProbe probe = load(store);
+        if (probe == null) {
+            probe = new HardwareProbe();
+            probe.run();
+            probe.save(store);
+        }
+        log.info(
+            "Using quality preset " +
+            probe.preset +
+            " (ocean sample " +
+            probe.oceanSampleNanos +
+            " ns, physics step " +
+            probe.physicsStepMillis +
+            " ms, " +
+            probe.cores +
+            " cores)"
+        );
+        return probe.preset;
+    }
+
+    public static HardwareProbe load(VStore store) {
+        try {
+            if (!store.exists(PROBE_FILE).await()) return null;
+            Properties props = new Properties();
+            try (InputStream is = store.read(PROBE_FILE).await()) {
+                props.load(is);
+            }
+            if (Integer.parseInt(props.getProperty("version", "0")) != PROBE_VERSION) return null;
+            HardwareProbe probe = new HardwareProbe();
+            probe.oceanSampleNanos = Float.parseFloat(props.getProperty("oceanSampleNanos"));
+            probe.physicsStepMillis = Float.parseFloat(props.getProperty("physicsStepMillis"));
+            probe.cores = Integer.parseInt(props.getProperty("cores"));
+            probe.preset = QualityPreset.fromString(props.getProperty("preset"), null);
+            if (probe.preset == null) probe.preset = probe.selectPreset();
+            return probe;
+        } catch (Exception e) {
+            log.log(Level.WARNING, "Failed to load hardware probe results", e);
+            return null;
+        }
+    }
+
+    public void save(VStore store) {
+        Properties props = new Properties();
+        props.setProperty("version", String.valueOf(PROBE_VERSION));
+        props.setProperty("oceanSampleNanos", String.valueOf(oceanSampleNanos));
+        props.setProperty("physicsStepMillis", String.valueOf(physicsStepMillis));
+        props.setProperty("cores", String.valueOf(cores));
+        props.setProperty("preset", preset.name());
+        try (OutputStream os = store.write(PROBE_FILE).await()) {
+            props.store(os, "Hardware probe");
+        } catch (Exception e) {
+            log.log(Level.WARNING, "Failed to save hardware probe results", e);
+        }
+    }
+
+    /**
+     * Runs the benchmark and selects the preset.
+     */
+    public void run() {
+        long start = System.nanoTime();
+        cores = Runtime.getRuntime().availableProcessors();
+        oceanSampleNanos = timeOceanSlice();
+        try {
+            physicsStepMillis = timePhysicsStep();
+        } catch (Throwable e) {
+            log.log(Level.WARNING, "Physics benchmark failed", e);
+            physicsStepMillis = Float.MAX_VALUE;
+        }
+        preset = selectPreset();
+        log.info("Hardware probe completed in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    /**
+     * Estimated time to bake the ocean at the given resolution, the bake is spread on every core.
+     */
+    public float estimateBakeSeconds(int resolution) {
+        return oceanSampleNanos * resolution * resolution * OCEAN_LAYERS / Math.max(1, cores) / 1e9f;
+    }
+
+    private QualityPreset selectPreset() {
+        QualityPreset[] presets = { QualityPreset.ULTRA, QualityPreset.HIGH, QualityPreset.MEDIUM };
+        for (int i = 0; i < presets.length; i++) {
+            if (
+                estimateBakeSeconds(presets[i].getOceanResolution()) <= MAX_BAKE_SECONDS[i] &&
+                physicsStepMillis <= MAX_PHYSICS_STEP_MS[i]
+            ) {
+                return presets[i];
+            }
+        }
+        return QualityPreset.LOW;
+    }
+
+    private float timeOceanSlice() {
+        Vector3f wind = new Vector3f(0, 0, 64f);
+        Vector3f scale = new Vector3f(1f, 10f, 1f);
+        Vector3f wpos = new Vector3f();
+        float sink = 0;
+        // first row warms up the JIT
+        for (int i = 0; i < OCEAN_SLICE_COLUMNS; i++) {
+            wpos.set(OCEAN_DOMAIN * 0.5f + i, 0, OCEAN_DOMAIN * 0.5f);
+            sink += OceanWaveSim.sampleOcean(OCEAN_DOMAIN, wpos, wind, scale, 0f).w;
+        }
+        long start = System.nanoTime();
+        for (int j = 0; j < OCEAN_SLICE_ROWS; j++) {
+            // the slice spans the whole tile to include the seam blending at the borders
+            float z = j * OCEAN_DOMAIN / OCEAN_SLICE_ROWS;
+            for (int i = 0; i < OCEAN_SLICE_COLUMNS; i++) {
+                wpos.set(i * OCEAN_DOMAIN / OCEAN_SLICE_COLUMNS, 0, z);
+                Vector4f s = OceanWaveSim.sampleOcean(OCEAN_DOMAIN, wpos, wind, scale, 0f);
+                sink += s.w;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        this.sink = sink;
+        return (float) elapsed / (OCEAN_SLICE_ROWS * OCEAN_SLICE_COLUMNS);
+    }
+
+    private float timePhysicsStep() {
+        PhysicsSpace space = new PhysicsSpace();
+        try {
+            PhysicsRigidBody ground = new PhysicsRigidBody(new PlaneCollisionShape(new Plane(Vector3f.UNIT_Y, 0)), 0);
+            space.add(ground);
+            BoxCollisionShape box = new BoxCollisionShape(new Vector3f(2f, 1f, 5f));
+            for (int i = 0; i < PHYSICS_BODIES; i++) {
+                PhysicsRigidBody body = new PhysicsRigidBody(box, 100f);
+                body.setPhysicsLocation(new Vector3f((i % 6) * 3f, 2f + (i / 6) * 2.5f, (i % 4) * 1.5f));
+                space.add(body);
+            }
+            float step = 1f / 60f;
+            for (int i = 0; i < PHYSICS_WARMUP_STEPS; i++) {
+                space.update(step, 1);
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < PHYSICS_STEPS; i++) {
+                space.update(step, 1);
+            }
+            return (System.nanoTime() - start) / 1e6f / PHYSICS_STEPS;
+        } finally {
+            space.destroy();
+        }
+    }
+}
@@ -0,0 +1,289 @@
+/**
+ * Copyright (c) 2025, Nostr Game Engine
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * Nostr Game Engine is a fork of the jMonkeyEngine, which is licensed under
+ * the BSD 3-Clause License. The original jMonkeyEngine license is as follows:
+ */
+package org.ngengine.demo.son.perf;
+
+import com.jme3.network.HostedConnection;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import org.ngengine.demo.son.FrameJobs;
+import org.ngengine.gui.components.NLabel;
+import org.ngengine.gui.win.std.NHud;
+
+/**
+ * Toggleable text overlay in the HUD with frame times, subsystem times, memory and network rates.
+ * Frame times are recorded every frame, the text is rebuilt only a few times per second.
+ */
+public class PerfOverlay {
+
+    private static final float REFRESH_INTERVAL = 0.25f;
+    private static final int FRAME_WINDOW = 240;
+    private static final float MB = 1024f * 1024f;
+
+    private final float[] frameMillis = new float[FRAME_WINDOW];
+    private final float[] sorted = new float[FRAME_WINDOW];
+    private int frameCount = 0;
+    private int frameIndex = 0;
+
+    private final StringBuilder text = new StringBuilder(1024);
+    private final Map<Object, long[]> lastPeerCounters = new HashMap<>();
+    private final BufferPoolMXBean directPool;
+
+    private FrameJobs jobs;
+    private NHud hud;
+    private NLabel label;
+    private boolean visible = false;
+    private float sinceRefresh = 0;
+    private int framesSinceRefresh = 0;
+
+    public PerfOverlay() {
+        BufferPoolMXBean direct = null;
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if ("direct".equals(pool.getName())) {
+                direct = pool;
+            }
+        }
+        directPool = direct;
+    }
+
+    /**
+     * Binds the overlay to a (new) HUD window.
+     */
+    public void attach(NHud hud) {
+        this.hud = hud;
+        this.label = new NLabel("");
+        if (visible) {
+            hud.getTopLeft().addChild(label);
+        }
+    }
+
+    /**
+     * Shows the timings of the frame jobs, null to hide them.
+     */
+    public void setFrameJobs(FrameJobs jobs) {
+        this.jobs = jobs;
+    }
+
+    public void toggle() {
+        setVisible(!visible);
+    }
+
+    public void setVisible(boolean visible) {
+        if (this.visible == visible) return;
+        this.visible = visible;
+        if (hud == null || label == null) return;
+        if (visible) {
+            hud.getTopLeft().addChild(label);
+            sinceRefresh = REFRESH_INTERVAL;
+        } else {
+            hud.getTopLeft().removeChild(label);
+        }
+    }
+
+    public boolean isVisible() {
+        return visible;
+    }
+
+    public void update(float tpf) {
+        frameMillis[frameIndex] = tpf * 1000f;
+        frameIndex = (frameIndex + 1) % FRAME_WINDOW;
+        if (frameCount < FRAME_WINDOW) frameCount++;
+        framesSinceRefresh++;
+
+        sinceRefresh += tpf;
+        if (sinceRefresh < REFRESH_INTERVAL) return;
+
+        if (visible && label != null) {
+            rebuildText(sinceRefresh);
+            label.setText(text.toString());
+        } else {
+            // keep the counters from piling up while hidden
+            for (PerfStats.Section section : PerfStats.Section.values()) {
+                PerfStats.collect(section);
+            }
+            PerfStats.collectPhysicsSteps();
+            if (jobs != null) {
+                for (FrameJobs.Job job : jobs.getJobs()) {
+                    job.collectWallNanos();
+                    job.collectWorkNanos();
+                    job.collectRuns();
+                }
+            }
+            // and the peer rates from spanning the whole time it was hidden
+            for (Map.Entry<Object, PerfStats.PeerCounters> e : prunePeers().entrySet()) {
+                snapshot(e.getValue(), lastPeerCounters(e.getKey()));
+            }
+        }
+        sinceRefresh = 0;
+        framesSinceRefresh = 0;
+    }
+
+    private void rebuildText(float elapsed) {
+        text.setLength(0);
+
+        System.arraycopy(frameMillis, 0, sorted, 0, frameCount);
+        Arrays.sort(sorted, 0, frameCount);
+        text.append("FPS ");
+        appendFixed(framesSinceRefresh / elapsed, 0);
+        text.append("  frame ms p50 ");
+        appendFixed(percentile(0.5f), 2);
+        text.append(" p95 ");
+        appendFixed(percentile(0.95f), 2);
+        text.append(" p99 ");
+        appendFixed(percentile(0.99f), 2);
+        text.append(" max ");
+        appendFixed(percentile(1f), 2);
+        text.append('\n');
+
+        long physicsNanos = 0;
+        for (PerfStats.Section section : PerfStats.Section.values()) {
+            long nanos = PerfStats.collect(section);
+            if (section == PerfStats.Section.PHYSICS) physicsNanos = nanos;
+            float ms = nanos / 1e6f / Math.max(1, framesSinceRefresh);
+            text.append(section.getLabel()).append(' ');
+            appendFixed(ms, 2);
+            text.append(" ms  ");
+        }
+        text.append('\n');
+
+        long physicsSteps = PerfStats.collectPhysicsSteps();
+        text.append("physics steps/frame ");
+        appendFixed((float) physicsSteps / Math.max(1, framesSinceRefresh), 2);
+        text.append("  ms/step ");
+        appendFixed(physicsNanos / 1e6f / Math.max(1, physicsSteps), 2);
+        text.append("  active ").append(PerfStats.getPhysicsActiveBodies());
+        text.append("  contacts ").append(PerfStats.getPhysicsContacts());
+        text.append('\n');
+
+        if (jobs != null && !jobs.getJobs().isEmpty()) {
+            // wall time of each run and time summed over all the threads, both per run
+            text.append("jobs on ").append(jobs.getThreads()).append(" threads, ms wall/work:");
+            for (FrameJobs.Job job : jobs.getJobs()) {
+                long runs = Math.max(1, job.collectRuns());
+                text.append("  ").append(job.getName()).append(' ');
+                appendFixed(job.collectWallNanos() / 1e6f / runs, 2);
+                text.append('/');
+                appendFixed(job.collectWorkNanos() / 1e6f / runs, 2);
+            }
+            text.append('\n');
+        }
+
+        Runtime rt = Runtime.getRuntime();
+        text.append("heap ");
+        appendFixed((rt.totalMemory() - rt.freeMemory()) / MB, 1);
+        text.append(" / ");
+        appendFixed(rt.maxMemory() / MB, 0);
+        text.append(" MB");
+        if (directPool != null) {
+            text.append("  direct ");
+            appendFixed(directPool.getMemoryUsed() / MB, 1);
+            text.append(" MB (").append(directPool.getCount()).append(" buffers)");
+        }
+        text.append('\n');
+
+        for (Map.Entry<Object, PerfStats.PeerCounters> e : prunePeers().entrySet()) {
+            PerfStats.PeerCounters c = e.getValue();
+            long[] last = lastPeerCounters(e.getKey());
+            text.append("peer ");
+            Object key = e.getKey();
+            text.append(key instanceof HostedConnection ? String.valueOf(((HostedConnection) key).getId()) : key.toString());
+            text.append("  out ");
+            appendFixed((c.getPacketsSent() - last[0]) / elapsed, 1);
+            text.append(" pkt/s ");
+            appendFixed((c.getBytesSent() - last[1]) / elapsed, 0);
+            text.append(" B/s  in ");
+            appendFixed((c.getPacketsReceived() - last[2]) / elapsed, 1);
+            text.append(" pkt/s ");
+            appendFixed((c.getBytesReceived() - last[3]) / elapsed, 0);
+            text.append(" B/s  stale ");
+            appendFixed((c.getPacketsDropped() - last[4]) / elapsed, 1);
+            text.append(" pkt/s\n");
+            snapshot(c, last);
+        }
+    }
+
+    /**
+     * Forgets the peers that were removed and returns the live ones.
+     */
+    private Map<Object, PerfStats.PeerCounters> prunePeers() {
+        Map<Object, PerfStats.PeerCounters> peers = PerfStats.getPeers();
+        Iterator<Object> it = lastPeerCounters.keySet().iterator();
+        while (it.hasNext()) {
+            if (!peers.containsKey(it.next())) it.remove();
+        }
+        return peers;
+    }
+
+    private long[] lastPeerCounters(Object peer) {
+        long[] last = lastPeerCounters.get(peer);
+        if (last == null) {
+            last = new long[5];
+            lastPeerCounters.put(peer, last);
+        }
+        return last;
+    }
+
+    private static void snapshot(PerfStats.PeerCounters c, long[] last) {
+        last[0] = c.getPacketsSent();
+        last[1] = c.getBytesSent();
+        last[2] = c.getPacketsReceived();
+        last[3] = c.getBytesReceived();
+        last[4] = c.getPacketsDropped();
+    }
+
+    private float percentile(float p) {
+        if (frameCount == 0) return 0;
+        return sorted[Math.min(frameCount - 1, (int) (p * frameCount))];
+    }
+
+    private void appendFixed(float v, int decimals) {
+        if (v < 0) {
+            text.append('-');
+            v = -v;
+        }
+        int scale = 1;
+        for (int i = 0; i < decimals; i++) scale *= 10;
+        long fixed = (long) (v * scale + 0.5f);
+        text.append(fixed / scale);
+        if (decimals > 0) {
+            text.append('.');
+            long frac = fixed % scale;
+            for (int s = scale / 10; s > 1 && frac < s; s /= 10) {
+                text.append('0');
+            }
+            text.append(frac);
+        }
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) 2025, Nostr Game Engine
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * Nostr Game Engine is a fork of the jMonkeyEngine, which is licensed under
+ * the BSD 3-Clause License. The original jMonkeyEngine license is as follows:
+ */
+package org.ngengine.demo.son.perf;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Cheap always-on counters for the performance overlay. Sections accumulate nanoseconds until they are
+ * collected, so the overlay can show the average time spent per frame in each subsystem.
+ * <p>
+ * Sections can be timed from any thread, peer counters must be updated from the render thread.
+ */
+public final class PerfStats {
+
+    public enum Section {
+        OCEAN("ocean"),
+        REFLECTION("reflection"),
+        PHYSICS("physics"),
+        NET_SEND("net send"),
+        NET_RECEIVE("net recv"),
+        ANIMATION("animation"),
+        PROJECTILES("shots"),
+        BOATS("boats");
+
+        private final String label;
+
+        Section(String label) {
+            this.label = label;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+    }
+
+    public static final class PeerCounters {
+
+        private long packetsSent;
+        private long bytesSent;
+        private long packetsReceived;
+        private long bytesReceived;
+        private long packetsDropped;
+
+        public long getPacketsSent() {
+            return packetsSent;
+        }
+
+        public long getBytesSent() {
+            return bytesSent;
+        }
+
+        public long getPacketsReceived() {
+            return packetsReceived;
+        }
+
+        public long getBytesReceived() {
+            return bytesReceived;
+        }
+
+        /**
+         * Packets received but not applied, because they arrived after a newer one.
+         */
+        public long getPacketsDropped() {
+            return packetsDropped;
+        }
+    }
+
+    private static final Section[] SECTIONS = Section.values();
+    private static final AtomicLongArray sectionNanos = new AtomicLongArray(SECTIONS.length);
+    private static final Map<Object, PeerCounters> peers = new HashMap<>();
+    private static final AtomicLong physicsSteps = new AtomicLong();
+    private static volatile int physicsActiveBodies;
+    private static volatile int physicsContacts;
+
+    private PerfStats() {}
+
+    public static long begin() {
+        return System.nanoTime();
+    }
+
+    public static void end(Section section, long start) {
+        sectionNanos.addAndGet(section.ordinal(), System.nanoTime() - start);
+    }
+
+    /**
+     * Returns the nanoseconds accumulated by the section since the last call and resets it.
+     */
+    public static long collect(Section section) {
+        return sectionNanos.getAndSet(section.ordinal(), 0);
+    }
+
+    /**
+     * Records a physics step, called from the physics thread at the end of every sub step.
+     */
+    public static void countPhysicsStep(int activeBodies, int contacts) {
+        physicsSteps.incrementAndGet();
+        physicsActiveBodies = activeBodies;
+        physicsContacts = contacts;
+    }
+
+    /**
+     * Returns the physics steps done since the last call and resets the count.
+     */
+    public static long collectPhysicsSteps() {
+        return physicsSteps.getAndSet(0);
+    }
+
+    /**
+     * Dynamic bodies that were awake in the last physics step.
+     */
+    public static int getPhysicsActiveBodies() {
+        return physicsActiveBodies;
+    }
+
+    /**
+     * Contact points in the last physics step.
+     */
+    public static int getPhysicsContacts() {
+        return physicsContacts;
+    }
+
+    public static void countSent(Object peer, int bytes) {
+        PeerCounters c = peers.computeIfAbsent(peer, k -> new PeerCounters());
+        c.packetsSent++;
+        c.bytesSent += bytes;
+    }
+
+    public static void countReceived(Object peer, int bytes) {
+        PeerCounters c = peers.computeIfAbsent(peer, k -> new PeerCounters());
+        c.packetsReceived++;
+        c.bytesReceived += bytes;
+    }
+
+    public static void countDropped(Object peer) {
+        peers.computeIfAbsent(peer, k -> new PeerCounters()).packetsDropped++;
+    }
+
+    public static void removePeer(Object peer) {
+        peers.remove(peer);
+    }
+
+    /**
+     * Live view of the counters of every peer, the counters are never reset.
+     */
+    public static Map<Object, PeerCounters> getPeers() {
+        return peers;
+    }
+}
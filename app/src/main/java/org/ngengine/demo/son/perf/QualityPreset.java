@@ -0,0 +1,135 @@
+/**
+ * Copyright (c) 2025, Nostr Game Engine
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * Nostr Game Engine is a fork of the jMonkeyEngine, which is licensed under
+ * the BSD 3-Clause License. The original jMonkeyEngine license is as follows:
+ */
+package org.ngengine.demo.son.perf;
+
+/**
+ * Quality levels for the knobs that dominate the cost of a frame: post processing, ocean grid density and
+ * bake resolution, reflection resolution, multisampling and physics step rate.
+ */
+public enum QualityPreset {
+    LOW(false, false, 128, 256, 256, 0, 30, 2),
+    MEDIUM(true, false, 192, 512, 512, 2, 60, 3),
+    HIGH(true, true, 256, 1024, 1024, 4, 60, 4),
+    ULTRA(true, true, 384, 2048, 2048, 8, 60, 4);
+
+    private final boolean postProcessing;
+    private final boolean expensiveFilters;
+    private final int vertexDensity;
+    private final int oceanResolution;
+    private final int reflectionSize;
+    private final int samples;
+    private final int physicsStepRate;
+    private final int maxPhysicsSubSteps;
+
+    QualityPreset(
+        boolean postProcessing,
+        boolean expensiveFilters,
+        int vertexDensity,
+        int oceanResolution,
+        int reflectionSize,
+        int samples,
+        int physicsStepRate,
+        int maxPhysicsSubSteps
+    ) {
+        this.postProcessing = postProcessing;
+        this.expensiveFilters = expensiveFilters;
+        this.vertexDensity = vertexDensity;
+        this.oceanResolution = oceanResolution;
+        this.reflectionSize = reflectionSize;
+        this.samples = samples;
+        this.physicsStepRate = physicsStepRate;
+        this.maxPhysicsSubSteps = maxPhysicsSubSteps;
+    }
+
+    /**
+     * Whether the filter post processor is used at all.
+     */
+    public boolean isPostProcessing() {
+        return postProcessing;
+    }
+
+    /**
+     * Whether the full screen filters that need extra passes (light scattering and bloom) are used.
+     */
+    public boolean isExpensiveFilters() {
+        return expensiveFilters;
+    }
+
+    public int getVertexDensity() {
+        return vertexDensity;
+    }
+
+    public int getOceanResolution() {
+        return oceanResolution;
+    }
+
+    public int getReflectionSize() {
+        return reflectionSize;
+    }
+
+    public int getSamples() {
+        return samples;
+    }
+
+    /**
+     * Physics steps per second.
+     */
+    public int getPhysicsStepRate() {
+        return physicsStepRate;
+    }
+
+    /**
+     * Maximum physics steps in a single frame, slower frames lose simulation time instead of spiraling.
+     */
+    public int getMaxPhysicsSubSteps() {
+        return maxPhysicsSubSteps;
+    }
+
+    public QualityPreset lower() {
+        return ordinal() == 0 ? this : values()[ordinal() - 1];
+    }
+
+    public QualityPreset higher() {
+        QualityPreset[] values = values();
+        return ordinal() == values.length - 1 ? this : values[ordinal() + 1];
+    }
+
+    public static QualityPreset fromString(String name, QualityPreset fallback) {
+        if (name == null) return fallback;
+        for (QualityPreset preset : values()) {
+            if (preset.name().equalsIgnoreCase(name.trim())) {
+                return preset;
+            }
+        }
+        return fallback;
+    }
+}
@@ -0,0 +1,208 @@
+/**
+ * Copyright (c) 2025, Nostr Game Engine
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * Nostr Game Engine is a fork of the jMonkeyEngine, which is licensed under
+ * the BSD 3-Clause License. The original jMonkeyEngine license is as follows:
+ */
+package org.ngengine.demo.son.utils;
+
+import com.jme3.bounding.BoundingBox;
+import com.jme3.bounding.BoundingVolume;
+import com.jme3.bullet.collision.shapes.BoxCollisionShape;
+import com.jme3.bullet.collision.shapes.CollisionShape;
+import com.jme3.bullet.collision.shapes.CompoundCollisionShape;
+import com.jme3.bullet.collision.shapes.HullCollisionShape;
+import com.jme3.math.FastMath;
+import com.jme3.math.Transform;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.VertexBuffer;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Builds simplified collision shapes for models and shares them between every instance of the same model
+ * asset, instead of building a triangle mesh shape per instance.
+ */
+public class CollisionShapeCache {
+
+    private static final Logger log = Logger.getLogger(CollisionShapeCache.class.getName());
+
+    public enum Approximation {
+        /** A single convex hull around the whole model. */
+        HULL,
+        /** A compound with one box per geometry. */
+        BOXES
+    }
+
+    // number of directions used to pick the hull points, the hull has at most this many vertices
+    private static final int HULL_DIRECTIONS = 64;
+
+    private static final Map<String, CollisionShape> shapes = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the shared shape for the model asset of the given spatial, building it on first use. Spatials
+     * that were not loaded from an asset get a new, uncached shape.
+     */
+    public static CollisionShape get(Spatial model, Approximation approximation) {
+        if (model.getKey() == null) {
+            log.fine("No asset key for " + model.getName() + ", collision shape will not be cached");
+            return build(model, approximation);
+        }
+        String key = model.getKey().getName() + "#" + approximation;
+        return shapes.computeIfAbsent(
+            key,
+            k -> {
+                long start = System.nanoTime();
+                CollisionShape shape = build(model, approximation);
+                long ms = (System.nanoTime() - start) / 1000000;
+                log.info("Built " + approximation + " collision shape for " + k + " in " + ms + " ms");
+                return shape;
+            }
+        );
+    }
+
+    public static void clear() {
+        shapes.clear();
+    }
+
+    public static CollisionShape build(Spatial model, Approximation approximation) {
+        switch (approximation) {
+            case BOXES:
+                return buildBoxes(model);
+            case HULL:
+            default:
+                return buildHull(model);
+        }
+    }
+
+    static List<Geometry> collectGeometries(Spatial model) {
+        List<Geometry> geometries = new ArrayList<>();
+        model.depthFirstTraversal(sx -> {
+            if (sx instanceof Geometry && ((Geometry) sx).getMesh().getBuffer(VertexBuffer.Type.Position) != null) {
+                geometries.add((Geometry) sx);
+            }
+        });
+        return geometries;
+    }
+
+    /**
+     * Transform of a geometry relative to the model root.
+     */
+    static Transform getRelativeTransform(Geometry geom, Spatial model) {
+        if (geom == model) return new Transform();
+        Transform t = geom.getLocalTransform().clone();
+        for (Node p = geom.getParent(); p != null && p != model; p = p.getParent()) {
+            t.combineWithParent(p.getLocalTransform());
+        }
+        return t;
+    }
+
+    private static CollisionShape buildHull(Spatial model) {
+        Vector3f[] directions = new Vector3f[HULL_DIRECTIONS];
+        float[] best = new float[HULL_DIRECTIONS];
+        Vector3f[] support = new Vector3f[HULL_DIRECTIONS];
+        // evenly spread directions on a sphere
+        for (int i = 0; i < HULL_DIRECTIONS; i++) {
+            float y = 1f - 2f * (i + 0.5f) / HULL_DIRECTIONS;
+            float r = FastMath.sqrt(1f - y * y);
+            float phi = i * 2.399963f;
+            directions[i] = new Vector3f(FastMath.cos(phi) * r, y, FastMath.sin(phi) * r);
+            best[i] = Float.NEGATIVE_INFINITY;
+        }
+
+        Vector3f v = new Vector3f();
+        for (Geometry geom : collectGeometries(model)) {
+            Transform t = getRelativeTransform(geom, model);
+            FloatBuffer pos = geom.getMesh().getFloatBuffer(VertexBuffer.Type.Position);
+            for (int i = 0; i + 2 < pos.limit(); i += 3) {
+                v.set(pos.get(i), pos.get(i + 1), pos.get(i + 2));
+                t.transformVector(v, v);
+                for (int d = 0; d < HULL_DIRECTIONS; d++) {
+                    float dot = v.dot(directions[d]);
+                    if (dot > best[d]) {
+                        best[d] = dot;
+                        if (support[d] == null) support[d] = new Vector3f();
+                        support[d].set(v);
+                    }
+                }
+            }
+        }
+
+        // the same vertex can be extreme in several directions
+        List<Vector3f> points = new ArrayList<>(HULL_DIRECTIONS);
+        for (Vector3f p : support) {
+            if (p == null) continue;
+            boolean duplicate = false;
+            for (Vector3f q : points) {
+                if (q.distanceSquared(p) < FastMath.ZERO_TOLERANCE) {
+                    duplicate = true;
+                    break;
+                }
+            }
+            if (!duplicate) points.add(p);
+        }
+        if (points.size() < 4) {
+            throw new IllegalArgumentException("Not enough vertices to build a hull for " + model.getName());
+        }
+
+        float[] hull = new float[points.size() * 3];
+        for (int i = 0; i < points.size(); i++) {
+            hull[i * 3] = points.get(i).x;
+            hull[i * 3 + 1] = points.get(i).y;
+            hull[i * 3 + 2] = points.get(i).z;
+        }
+        return new HullCollisionShape(hull);
+    }
+
+    private static CollisionShape buildBoxes(Spatial model) {
+        CompoundCollisionShape compound = new CompoundCollisionShape();
+        for (Geometry geom : collectGeometries(model)) {
+            Mesh mesh = geom.getMesh();
+            mesh.updateBound();
+            BoundingVolume bound = mesh.getBound();
+            if (!(bound instanceof BoundingBox)) continue;
+            BoundingBox box = (BoundingBox) bound;
+            Transform t = getRelativeTransform(geom, model);
+
+            Vector3f extents = box.getExtent(null).multLocal(t.getScale());
+            // keep flat geometries (sails, flags) thick enough to collide
+            extents.set(Math.max(extents.x, 0.05f), Math.max(extents.y, 0.05f), Math.max(extents.z, 0.05f));
+            Vector3f center = t.transformVector(box.getCenter(), null);
+            compound.addChildShape(new BoxCollisionShape(extents), center, t.getRotation().toRotationMatrix());
+        }
+        return compound;
+    }
+}
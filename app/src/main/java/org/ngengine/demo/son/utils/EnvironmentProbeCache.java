@@ -0,0 +1,141 @@
+/**
+ * Copyright (c) 2025, Nostr Game Engine
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * Nostr Game Engine is a fork of the jMonkeyEngine, which is licensed under
+ * the BSD 3-Clause License. The original jMonkeyEngine license is as follows:
+ */
+package org.ngengine.demo.son.utils;
+
+import com.jme3.asset.AssetInfo;
+import com.jme3.asset.AssetKey;
+import com.jme3.asset.AssetManager;
+import com.jme3.light.LightProbe;
+import com.jme3.math.Vector3f;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.ngengine.store.DataStore;
+
+/**
+ * Persists a baked global light probe (spherical harmonics and prefiltered environment map), so the
+ * environment is baked only once for each sky and probe size.
+ */
+public class EnvironmentProbeCache {
+
+    private static final Logger log = Logger.getLogger(EnvironmentProbeCache.class.getName());
+
+    private final DataStore store;
+    private final String key;
+
+    /**
+     * @param store
+     *            the data store that holds the cached probes
+     * @param skyHash
+     *            hash of the sky asset, see {@link #hashAsset(AssetManager, String)}
+     * @param size
+     *            size of the environment map
+     */
+    public EnvironmentProbeCache(DataStore store, String skyHash, int size) {
+        this.store = store;
+        this.key = "envprobe-" + skyHash + "-" + size;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Returns a hex digest of the content of the given asset.
+     */
+    public static String hashAsset(AssetManager assetManager, String path) throws Exception {
+        AssetInfo info = assetManager.locateAsset(new AssetKey<>(path));
+        if (info == null) throw new IllegalArgumentException("Asset not found: " + path);
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream is = info.openStream()) {
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        StringBuilder sb = new StringBuilder();
+        byte[] hash = digest.digest();
+        // 16 bytes are plenty to tell skies apart
+        for (int i = 0; i < 16; i++) {
+            sb.append(Character.forDigit((hash[i] >> 4) & 0xF, 16));
+            sb.append(Character.forDigit(hash[i] & 0xF, 16));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Loads the cached probe, blocking.
+     *
+     * @return the probe or null if it is not cached or it could not be read
+     */
+    public LightProbe load() {
+        try {
+            LightProbe probe = store.read(key);
+            if (probe == null || probe.getPrefilteredEnvMap() == null || probe.getShCoeffs() == null) return null;
+            probe.setReady(true);
+            return probe;
+        } catch (Exception e) {
+            log.log(Level.FINE, "No cached environment probe " + key, e);
+            return null;
+        }
+    }
+
+    /**
+     * Saves a copy of the baked probe, blocking. The probe must have been baked with savable results so
+     * that its environment map is available on the CPU.
+     */
+    public void save(LightProbe baked) {
+        LightProbe probe = new LightProbe();
+        probe.setShCoeffs(baked.getShCoeffs());
+        probe.setPrefilteredMap(baked.getPrefilteredEnvMap());
+        probe.setNbMipMaps(baked.getNbMipMaps());
+        probe.setPosition(baked.getPosition());
+        probe.getArea().setRadius(baked.getArea().getRadius());
+        probe.setReady(true);
+        try {
+            store.write(key, probe);
+            log.info("Saved environment probe " + key);
+        } catch (Exception e) {
+            log.log(Level.WARNING, "Failed to save environment probe " + key, e);
+        }
+    }
+
+    /**
+     * Makes a loaded probe affect the whole scene, like the one baked by EnvironmentProbeControl.
+     */
+    public static void makeGlobal(LightProbe probe) {
+        probe.setPosition(Vector3f.ZERO);
+        probe.getArea().setRadius(Float.MAX_VALUE);
+    }
+}
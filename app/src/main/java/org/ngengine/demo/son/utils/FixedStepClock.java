@@ -0,0 +1,119 @@
+/**
+ * Copyright (c) 2025, Nostr Game Engine
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * Nostr Game Engine is a fork of the jMonkeyEngine, which is licensed under
+ * the BSD 3-Clause License. The original jMonkeyEngine license is as follows:
+ */
+package org.ngengine.demo.son.utils;
+
+/**
+ * Accumulator for a fixed rate simulation.
+ * <p>
+ * The frame time is accumulated and consumed in steps of exactly {@link #getStepTime()} seconds, so game
+ * logic and network ticks run at the same rate regardless of the frame rate. What is left in the
+ * accumulator after the last step is exposed as {@link #getAlpha()}, the fraction of a step the rendered
+ * frame is ahead of the last simulated state, to interpolate between the last two states.
+ */
+public class FixedStepClock {
+
+    private float stepTime;
+    private int maxStepsPerFrame;
+    private float accumulator = 0;
+    private long step = 0;
+
+    /**
+     * @param stepRate
+     *            simulation steps per second
+     * @param maxStepsPerFrame
+     *            steps a single frame can catch up, the rest of a long frame is dropped so a hitch does not
+     *            turn into a spiral of ever longer frames
+     */
+    public FixedStepClock(int stepRate, int maxStepsPerFrame) {
+        setStepRate(stepRate);
+        this.maxStepsPerFrame = Math.max(1, maxStepsPerFrame);
+    }
+
+    public void setStepRate(int stepRate) {
+        if (stepRate <= 0) {
+            throw new IllegalArgumentException("Step rate must be positive");
+        }
+        this.stepTime = 1f / stepRate;
+    }
+
+    public int getStepRate() {
+        return Math.round(1f / stepTime);
+    }
+
+    public float getStepTime() {
+        return stepTime;
+    }
+
+    public void setMaxStepsPerFrame(int maxStepsPerFrame) {
+        this.maxStepsPerFrame = Math.max(1, maxStepsPerFrame);
+    }
+
+    public int getMaxStepsPerFrame() {
+        return maxStepsPerFrame;
+    }
+
+    /**
+     * Adds the frame time to the accumulator.
+     *
+     * @return how many steps have to be simulated in this frame
+     */
+    public int advance(float tpf) {
+        accumulator += tpf;
+        int steps = (int) (accumulator / stepTime);
+        if (steps > maxStepsPerFrame) {
+            steps = maxStepsPerFrame;
+            accumulator = stepTime * steps;
+        }
+        accumulator -= stepTime * steps;
+        step += steps;
+        return steps;
+    }
+
+    /**
+     * Fraction of a step, between 0 and 1, elapsed since the last simulated state.
+     */
+    public float getAlpha() {
+        return Math.min(1f, accumulator / stepTime);
+    }
+
+    /**
+     * Number of steps simulated so far.
+     */
+    public long getStep() {
+        return step;
+    }
+
+    public void reset() {
+        accumulator = 0;
+        step = 0;
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * Copyright (c) 2025, Nostr Game Engine
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * Nostr Game Engine is a fork of the jMonkeyEngine, which is licensed under
+ * the BSD 3-Clause License. The original jMonkeyEngine license is as follows:
+ */
+package org.ngengine.demo.son.utils;
+
+import com.jme3.math.Transform;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.VertexBuffer;
+import java.nio.FloatBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Picks the points where the water pushes on a hull. The footprint of the model is split in a grid of
+ * about N cells and the lowest vertex of each cell is kept, so the points follow the bottom of the hull.
+ * Points are in model space, packed as x,y,z triplets, and shared between every instance of the same
+ * model asset.
+ */
+public class HullSamplePoints {
+
+    private static final Logger log = Logger.getLogger(HullSamplePoints.class.getName());
+
+    private static final Map<String, float[]> points = new ConcurrentHashMap<>();
+
+    /**
+     * Returns the shared sample points for the model asset of the given spatial, computing them on first
+     * use. Spatials that were not loaded from an asset get new, uncached points.
+     *
+     * @param model
+     *            the boat model
+     * @param count
+     *            the wanted number of points, the result can have less if some cells are empty
+     * @return the points as x,y,z triplets
+     */
+    public static float[] get(Spatial model, int count) {
+        if (model.getKey() == null) {
+            return build(model, count);
+        }
+        String key = model.getKey().getName() + "#" + count;
+        return points.computeIfAbsent(
+            key,
+            k -> {
+                float[] p = build(model, count);
+                log.fine("Computed " + (p.length / 3) + " hull sample points for " + k);
+                return p;
+            }
+        );
+    }
+
+    public static void clear() {
+        points.clear();
+    }
+
+    public static float[] build(Spatial model, int count) {
+        List<Geometry> geometries = CollisionShapeCache.collectGeometries(model);
+        Transform[] transforms = new Transform[geometries.size()];
+        float minX = Float.POSITIVE_INFINITY, minZ = Float.POSITIVE_INFINITY;
+        float maxX = Float.NEGATIVE_INFINITY, maxZ = Float.NEGATIVE_INFINITY;
+        Vector3f v = new Vector3f();
+        for (int g = 0; g < geometries.size(); g++) {
+            transforms[g] = CollisionShapeCache.getRelativeTransform(geometries.get(g), model);
+            FloatBuffer pos = geometries.get(g).getMesh().getFloatBuffer(VertexBuffer.Type.Position);
+            for (int i = 0; i + 2 < pos.limit(); i += 3) {
+                transforms[g].transformVector(v.set(pos.get(i), pos.get(i + 1), pos.get(i + 2)), v);
+                minX = Math.min(minX, v.x);
+                maxX = Math.max(maxX, v.x);
+                minZ = Math.min(minZ, v.z);
+                maxZ = Math.max(maxZ, v.z);
+            }
+        }
+        if (minX > maxX) {
+            // nothing to sample, push on the origin
+            return new float[3];
+        }
+
+        // split the footprint in cells that are as square as possible
+        float sizeX = Math.max(maxX - minX, 0.01f);
+        float sizeZ = Math.max(maxZ - minZ, 0.01f);
+        int cellsX = Math.max(1, Math.round((float) Math.sqrt(count * sizeX / sizeZ)));
+        cellsX = Math.min(cellsX, Math.max(1, count));
+        int cellsZ = Math.max(1, count / cellsX);
+
+        float[] lowest = new float[cellsX * cellsZ * 3];
+        boolean[] used = new boolean[cellsX * cellsZ];
+        for (int g = 0; g < geometries.size(); g++) {
+            FloatBuffer pos = geometries.get(g).getMesh().getFloatBuffer(VertexBuffer.Type.Position);
+            for (int i = 0; i + 2 < pos.limit(); i += 3) {
+                transforms[g].transformVector(v.set(pos.get(i), pos.get(i + 1), pos.get(i + 2)), v);
+                int cx = Math.min(cellsX - 1, (int) ((v.x - minX) / sizeX * cellsX));
+                int cz = Math.min(cellsZ - 1, (int) ((v.z - minZ) / sizeZ * cellsZ));
+                int cell = cz * cellsX + cx;
+                if (!used[cell] || v.y < lowest[cell * 3 + 1]) {
+                    used[cell] = true;
+                    lowest[cell * 3] = v.x;
+                    lowest[cell * 3 + 1] = v.y;
+                    lowest[cell * 3 + 2] = v.z;
+                }
+            }
+        }
+
+        int n = 0;
+        for (boolean u : used) {
+            if (u) n++;
+        }
+        float[] out = new float[n * 3];
+        int j = 0;
+        for (int cell = 0; cell < used.length; cell++) {
+            if (!used[cell]) continue;
+            System.arraycopy(lowest, cell * 3, out, j, 3);
+            j += 3;
+        }
+        return out;
+    }
+}
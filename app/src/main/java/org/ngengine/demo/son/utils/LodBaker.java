@@ -0,0 +1,211 @@
+/**
+ * Copyright (c) 2025, Nostr Game Engine
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * Nostr Game Engine is a fork of the jMonkeyEngine, which is licensed under
+ * the BSD 3-Clause License. The original jMonkeyEngine license is as follows:
+ */
+package org.ngengine.demo.son.utils;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.export.InputCapsule;
+import com.jme3.export.JmeExporter;
+import com.jme3.export.JmeImporter;
+import com.jme3.export.OutputCapsule;
+import com.jme3.export.Savable;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.VertexBuffer;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import jme3tools.optimize.LodGenerator;
+import jme3tools.optimize.LodGenerator.TriangleReductionMethod;
+import org.ngengine.store.DataStore;
+
+public class LodBaker {
+
+    private static final Logger log = Logger.getLogger(LodBaker.class.getName());
+
+    // proportion of triangles removed by each LOD level, level 0 is always the full mesh
+    public static final float[] DEFAULT_REDUCTIONS = { 0.4f, 0.65f, 0.85f };
+    private static final int MIN_TRIANGLES = 64;
+
+    /**
+     * Bakes the LOD index buffers of every mesh in the model. Meshes are shared between all the clones the
+     * asset manager hands out for the same model, so the levels are generated only the first time a model
+     * is loaded and cached with it for every boat spawned afterwards.
+     */
+    public static void bake(Spatial model) {
+        bake(model, DEFAULT_REDUCTIONS);
+    }
+
+    public static void bake(Spatial model, float... reductions) {
+        for (Mesh mesh : collectMeshes(model)) {
+            synchronized (mesh) {
+                bakeMesh(mesh, reductions);
+            }
+        }
+    }
+
+    /**
+     * Like {@link #bake(Spatial)}, but the baked index buffers are also persisted in the given store, keyed
+     * by the content of the model asset, so following launches load them instead of running the generator.
+     * Blocking, meant to be called from the loader thread.
+     */
+    public static void bake(Spatial model, AssetManager assetManager, String assetPath, DataStore store) {
+        List<Mesh> meshes = collectMeshes(model);
+        synchronized (LodBaker.class) {
+            if (isBaked(meshes)) return;
+            String key;
+            try {
+                key =
+                    "lods-" +
+                    EnvironmentProbeCache.hashAsset(assetManager, assetPath) +
+                    "-" +
+                    Integer.toHexString(Arrays.hashCode(DEFAULT_REDUCTIONS));
+            } catch (Exception e) {
+                log.log(Level.WARNING, "Failed to hash " + assetPath + ", LODs will not be cached", e);
+                bake(model);
+                return;
+            }
+
+            BakedLods cached = null;
+            try {
+                cached = store.read(key);
+            } catch (Exception e) {
+                log.log(Level.FINE, "No cached LODs " + key, e);
+            }
+            if (cached != null && cached.apply(meshes)) {
+                log.fine("Loaded cached LODs " + key);
+                return;
+            }
+
+            for (Mesh mesh : meshes) {
+                synchronized (mesh) {
+                    bakeMesh(mesh, DEFAULT_REDUCTIONS);
+                }
+            }
+            try {
+                store.write(key, new BakedLods(meshes));
+            } catch (Exception e) {
+                log.log(Level.WARNING, "Failed to save LODs " + key, e);
+            }
+        }
+    }
+
+    private static List<Mesh> collectMeshes(Spatial model) {
+        List<Mesh> meshes = new ArrayList<>();
+        model.depthFirstTraversal(sx -> {
+            if (!(sx instanceof Geometry)) return;
+            Mesh mesh = ((Geometry) sx).getMesh();
+            if (mesh.getMode() != Mesh.Mode.Triangles) return;
+            if (mesh.getTriangleCount() < MIN_TRIANGLES) return;
+            meshes.add(mesh);
+        });
+        return meshes;
+    }
+
+    private static boolean isBaked(List<Mesh> meshes) {
+        for (Mesh mesh : meshes) {
+            if (mesh.getNumLodLevels() == 0) return false;
+        }
+        return true;
+    }
+
+    private static void bakeMesh(Mesh mesh, float[] reductions) {
+        if (mesh.getNumLodLevels() > 0) return;
+        long t = System.nanoTime();
+        new LodGenerator(mesh).bakeLods(TriangleReductionMethod.PROPORTIONAL, reductions);
+        log.fine(
+            "Baked " + mesh.getNumLodLevels() + " LOD levels for a mesh of " + mesh.getTriangleCount() +
+            " triangles in " + ((System.nanoTime() - t) / 1000000) + " ms"
+        );
+    }
+
+    /**
+     * The LOD index buffers of the meshes of a model, in traversal order.
+     */
+    public static class BakedLods implements Savable {
+
+        private int[] triangleCounts;
+        private Savable[][] levels;
+
+        public BakedLods() {}
+
+        BakedLods(List<Mesh> meshes) {
+            triangleCounts = new int[meshes.size()];
+            levels = new Savable[meshes.size()][];
+            for (int i = 0; i < meshes.size(); i++) {
+                Mesh mesh = meshes.get(i);
+                triangleCounts[i] = mesh.getTriangleCount();
+                levels[i] = new Savable[mesh.getNumLodLevels()];
+                for (int j = 0; j < levels[i].length; j++) {
+                    levels[i][j] = mesh.getLodLevel(j);
+                }
+            }
+        }
+
+        /**
+         * Sets the cached levels on the meshes.
+         *
+         * @return false if the cache does not match the meshes, in which case nothing is changed
+         */
+        boolean apply(List<Mesh> meshes) {
+            if (triangleCounts == null || triangleCounts.length != meshes.size()) return false;
+            for (int i = 0; i < meshes.size(); i++) {
+                if (triangleCounts[i] != meshes.get(i).getTriangleCount() || levels[i] == null) return false;
+            }
+            for (int i = 0; i < meshes.size(); i++) {
+                Mesh mesh = meshes.get(i);
+                synchronized (mesh) {
+                    if (mesh.getNumLodLevels() > 0) continue;
+                    mesh.setLodLevels(Arrays.copyOf(levels[i], levels[i].length, VertexBuffer[].class));
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void write(JmeExporter ex) throws IOException {
+            OutputCapsule oc = ex.getCapsule(this);
+            oc.write(triangleCounts, "triangleCounts", null);
+            oc.write(levels, "levels", null);
+        }
+
+        @Override
+        public void read(JmeImporter im) throws IOException {
+            InputCapsule ic = im.getCapsule(this);
+            triangleCounts = ic.readIntArray("triangleCounts", null);
+            levels = ic.readSavableArray2D("levels", null);
+        }
+    }
+}
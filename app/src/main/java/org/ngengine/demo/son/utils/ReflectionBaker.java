@@ -42,17 +42,25 @@ import com.jme3.shader.VarType;
 import com.jme3.texture.FrameBuffer;
 import com.jme3.water.ReflectionProcessor;
 import java.util.function.Predicate;
+import org.ngengine.demo.son.perf.PerfStats;
 
 public class ReflectionBaker extends ReflectionProcessor {
 
     private final Geometry oceanGeom;
     private RenderManager rm;
     private Predicate<Geometry> lastFilter = null;
+    private long perfStart;
     private final MatParamOverride renderRef = new MatParamOverride(VarType.Boolean, "RenderRef", true);
+    private final Predicate<Geometry> reflectionFilter;
 
     public ReflectionBaker(Geometry oceanGeom, Camera reflectionCam, FrameBuffer reflectionBuffer, Plane reflectionClipPlane) {
         super(reflectionCam, reflectionBuffer, reflectionClipPlane);
         this.oceanGeom = oceanGeom;
+        this.reflectionFilter = g -> {
+            if (g.equals(oceanGeom)) return false;
+            if (g.getQueueBucket() == Bucket.Sky) return false;
+            return true;
+        };
     }
 
     @Override
@@ -63,12 +71,9 @@ public class ReflectionBaker extends ReflectionProcessor {
 
     @Override
     public void preFrame(float tpf) {
+        perfStart = PerfStats.begin();
         this.lastFilter = rm.getRenderFilter();
-        rm.setRenderFilter(g -> {
-            if (g.equals(oceanGeom)) return false;
-            if (g.getQueueBucket() == Bucket.Sky) return false;
-            return true;
-        });
+        rm.setRenderFilter(reflectionFilter);
         rm.addForcedMatParam(renderRef);
         super.preFrame(tpf);
     }
@@ -79,5 +84,6 @@ public class ReflectionBaker extends ReflectionProcessor {
         rm.setRenderFilter(lastFilter);
         rm.removeForcedMatParam(renderRef);
         lastFilter = null;
+        PerfStats.end(PerfStats.Section.REFLECTION, perfStart);
     }
 }
@@ -0,0 +1,263 @@
+/**
+ * Copyright (c) 2025, Nostr Game Engine
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * Nostr Game Engine is a fork of the jMonkeyEngine, which is licensed under
+ * the BSD 3-Clause License. The original jMonkeyEngine license is as follows:
+ */
+package org.ngengine.demo.son.utils;
+
+import com.jme3.math.ColorRGBA;
+import com.jme3.math.FastMath;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Mesh;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.VertexBuffer;
+import com.jme3.texture.Image;
+import com.jme3.texture.Image.Format;
+import com.jme3.texture.Texture;
+import com.jme3.texture.Texture2D;
+import com.jme3.texture.image.ColorSpace;
+import com.jme3.texture.image.ImageRaster;
+import com.jme3.util.BufferUtils;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Packs player avatars into a single fixed size texture, so that every sail and flag shares the same
+ * GPU texture and the memory used by avatars never grows past the configured number of slots.
+ * Slots that are no longer referenced by a boat are kept cached and evicted least recently used first.
+ * The atlas image is shared with the renderer, so it must only be used from the render thread.
+ */
+public class SailTextureAtlas {
+
+    private static final Logger log = Logger.getLogger(SailTextureAtlas.class.getName());
+
+    public static final int NO_SLOT = -1;
+
+    private final int slotSize;
+    private final int maxSlots;
+    private final int columns;
+    private final int rows;
+    private final Image atlasImage;
+    private final Texture2D atlas;
+
+    private final Object[] slotKeys;
+    private final int[] slotRefs;
+    private final Map<Object, Integer> slotsByKey = new HashMap<>();
+    // unreferenced slots, in least recently released order
+    private final LinkedHashSet<Integer> releasedSlots = new LinkedHashSet<>();
+    private int nextFreeSlot = 0;
+
+    private final ColorRGBA c00 = new ColorRGBA();
+    private final ColorRGBA c10 = new ColorRGBA();
+    private final ColorRGBA c01 = new ColorRGBA();
+    private final ColorRGBA c11 = new ColorRGBA();
+
+    public SailTextureAtlas(int slotSize, int maxSlots) {
+        if (slotSize <= 0 || maxSlots <= 0) {
+            throw new IllegalArgumentException("Slot size and slot count must be positive");
+        }
+        this.slotSize = slotSize;
+        this.maxSlots = maxSlots;
+        this.columns = (int) Math.ceil(Math.sqrt(maxSlots));
+        this.rows = (maxSlots + columns - 1) / columns;
+        this.slotKeys = new Object[maxSlots];
+        this.slotRefs = new int[maxSlots];
+
+        int width = columns * slotSize;
+        int height = rows * slotSize;
+        ByteBuffer data = BufferUtils.createByteBuffer(width * height * 4);
+        atlasImage = new Image(Format.RGBA8, width, height, data, ColorSpace.sRGB);
+        atlas = new Texture2D(atlasImage);
+        atlas.setName("SailTextureAtlas");
+        atlas.setWrap(Texture.WrapMode.EdgeClamp);
+        atlas.setMagFilter(Texture.MagFilter.Bilinear);
+        // mip levels would blend neighbouring slots together, the half texel padding only protects level 0
+        atlas.setMinFilter(Texture.MinFilter.BilinearNoMipMaps);
+    }
+
+    public Texture2D getTexture() {
+        return atlas;
+    }
+
+    public int getSlotSize() {
+        return slotSize;
+    }
+
+    public int getMaxSlots() {
+        return maxSlots;
+    }
+
+    public long getMemoryBudget() {
+        return (long) atlasImage.getWidth() * atlasImage.getHeight() * 4;
+    }
+
+    /**
+     * Returns the slot holding the given avatar, uploading it in the atlas if it is not there yet.
+     *
+     * @param key
+     *            identity of the avatar, such as its asset key, equal keys map to the same slot while it is cached
+     * @param image
+     *            the avatar texture, resized to the slot size
+     * @return the slot index or {@link #NO_SLOT} if every slot is in use by a live boat
+     */
+    public synchronized int acquire(Object key, Texture2D image) {
+        Integer cached = slotsByKey.get(key);
+        if (cached != null) {
+            int slot = cached;
+            if (slotRefs[slot]++ == 0) {
+                releasedSlots.remove(slot);
+            }
+            return slot;
+        }
+
+        int slot;
+        if (nextFreeSlot < maxSlots) {
+            slot = nextFreeSlot++;
+        } else if (!releasedSlots.isEmpty()) {
+            slot = releasedSlots.iterator().next();
+            releasedSlots.remove(slot);
+            slotsByKey.remove(slotKeys[slot]);
+            log.fine("Evicting sail texture slot " + slot);
+        } else {
+            log.warning("Sail texture atlas is full (" + maxSlots + " slots), avatar will not be shown");
+            return NO_SLOT;
+        }
+
+        try {
+            blit(image.getImage(), slot);
+        } catch (Exception e) {
+            log.log(Level.WARNING, "Error packing avatar in sail texture atlas", e);
+            releasedSlots.add(slot);
+            slotKeys[slot] = null;
+            return NO_SLOT;
+        }
+        slotKeys[slot] = key;
+        slotRefs[slot] = 1;
+        slotsByKey.put(key, slot);
+        return slot;
+    }
+
+    /**
+     * Releases a reference to a slot, the avatar stays cached until its slot is needed by another one.
+     */
+    public synchronized void release(int slot) {
+        if (slot < 0 || slot >= maxSlots || slotRefs[slot] == 0) return;
+        if (--slotRefs[slot] == 0) {
+            releasedSlots.add(slot);
+        }
+    }
+
+    /**
+     * Binds the atlas to every geometry under the given spatial and remaps its texture coordinates to the
+     * slot region. Meshes are shallow cloned so the remapping does not leak to other boats sharing them.
+     */
+    public void apply(Spatial spatial, int slot) {
+        if (slot == NO_SLOT) return;
+        float u0 = (float) (slot % columns) / columns;
+        float v0 = (float) (slot / columns) / rows;
+        float uSize = 1f / columns;
+        float vSize = 1f / rows;
+        // keep half a texel inside the slot to avoid bleeding from the neighbours
+        float uPad = 0.5f / atlasImage.getWidth();
+        float vPad = 0.5f / atlasImage.getHeight();
+
+        spatial.depthFirstTraversal(sx -> {
+            if (!(sx instanceof Geometry)) return;
+            Geometry geom = (Geometry) sx;
+            Mesh mesh = geom.getMesh().clone();
+            FloatBuffer src = mesh.getFloatBuffer(VertexBuffer.Type.TexCoord);
+            if (src == null) return;
+            FloatBuffer dst = BufferUtils.createFloatBuffer(src.limit());
+            for (int i = 0; i < src.limit(); i += 2) {
+                float u = FastMath.clamp(src.get(i), 0f, 1f);
+                float v = FastMath.clamp(src.get(i + 1), 0f, 1f);
+                dst.put(u0 + uPad + u * (uSize - 2f * uPad));
+                dst.put(v0 + vPad + v * (vSize - 2f * vPad));
+            }
+            dst.flip();
+            mesh.clearBuffer(VertexBuffer.Type.TexCoord);
+            mesh.setBuffer(VertexBuffer.Type.TexCoord, 2, dst);
+            geom.setMesh(mesh);
+            geom.getMaterial().setTexture("BaseColorMap", atlas);
+        });
+    }
+
+    private void blit(Image src, int slot) {
+        ImageRaster raster = ImageRaster.create(src);
+        int srcW = src.getWidth();
+        int srcH = src.getHeight();
+        int atlasW = atlasImage.getWidth();
+        int x0 = (slot % columns) * slotSize;
+        int y0 = (slot / columns) * slotSize;
+        ByteBuffer data = atlasImage.getData(0);
+
+        for (int y = 0; y < slotSize; y++) {
+            float sy = ((y + 0.5f) / slotSize) * srcH - 0.5f;
+            int iy = (int) FastMath.floor(sy);
+            float fy = sy - iy;
+            int iy0 = clamp(iy, srcH);
+            int iy1 = clamp(iy + 1, srcH);
+            for (int x = 0; x < slotSize; x++) {
+                float sx = ((x + 0.5f) / slotSize) * srcW - 0.5f;
+                int ix = (int) FastMath.floor(sx);
+                float fx = sx - ix;
+                int ix0 = clamp(ix, srcW);
+                int ix1 = clamp(ix + 1, srcW);
+
+                raster.getPixel(ix0, iy0, c00);
+                raster.getPixel(ix1, iy0, c10);
+                raster.getPixel(ix0, iy1, c01);
+                raster.getPixel(ix1, iy1, c11);
+                c00.interpolateLocal(c10, fx);
+                c01.interpolateLocal(c11, fx);
+                c00.interpolateLocal(c01, fy);
+
+                int i = ((y0 + y) * atlasW + x0 + x) * 4;
+                data.put(i, toByte(c00.r));
+                data.put(i + 1, toByte(c00.g));
+                data.put(i + 2, toByte(c00.b));
+                data.put(i + 3, toByte(c00.a));
+            }
+        }
+        atlasImage.setUpdateNeeded();
+    }
+
+    private static int clamp(int v, int size) {
+        return v < 0 ? 0 : (v >= size ? size - 1 : v);
+    }
+
+    private static byte toByte(float v) {
+        return (byte) ((int) (FastMath.clamp(v, 0f, 1f) * 255f + 0.5f) & 0xFF);
+    }
+}
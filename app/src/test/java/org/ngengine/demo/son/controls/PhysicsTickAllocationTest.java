@@ -0,0 +1,114 @@
+/**
+ * Copyright (c) 2025, Nostr Game Engine
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * Nostr Game Engine is a fork of the jMonkeyEngine, which is licensed under
+ * the BSD 3-Clause License. The original jMonkeyEngine license is as follows:
+ */
+package org.ngengine.demo.son.controls;
+
+import static org.junit.Assert.assertEquals;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.math.Matrix4f;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.shape.Box;
+import com.jme3.texture.Image.Format;
+import com.jme3.texture.Texture2D;
+import org.junit.Test;
+import org.ngengine.demo.son.ocean.IBOcean;
+import org.ngengine.demo.son.ocean.OceanAppState;
+import org.ngengine.demo.son.ocean.TestOceans;
+import org.ngengine.demo.son.ocean.WaterHeightBatch;
+import org.ngengine.demo.son.perf.AllocationMeter;
+import org.ngengine.demo.son.utils.HullSamplePoints;
+
+/**
+ * Runs the physics thread work of many boats, the sail forces and both buoyancy models, and fails if the
+ * steady state allocates anything.
+ */
+public class PhysicsTickAllocationTest {
+
+    private static final int BOATS = 64;
+    private static final int WARMUP_TICKS = 20000;
+    private static final int TICKS = 5000;
+    private static final float TPF = 1f / 60f;
+
+    @Test
+    public void steadyStateTicksDoNotAllocate() throws Exception {
+        AssetManager assetManager = new DesktopAssetManager(true);
+        IBOcean ocean = TestOceans.create(64, false);
+        ocean.update(0, assetManager, new Texture2D(8, 8, Format.RGBA8), new Matrix4f(), new Vector3f(0, 0, 60f));
+        IBOcean.Sampler sampler = ocean.createSampler();
+        OceanAppState appState = new OceanAppState();
+
+        BoatControl[] boats = new BoatControl[BOATS];
+        BuoyancyControl[] buoyancy = new BuoyancyControl[BOATS];
+        for (int i = 0; i < BOATS; i++) {
+            Geometry boat = new Geometry("boat" + i, new Box(2f, 1f, 5f));
+            boat.setLocalTranslation((i % 8) * 20f, 0, (i / 8) * 20f);
+            boat.updateGeometricState();
+            boats[i] = new BoatControl(false, 100f);
+            boat.addControl(boats[i]);
+            // half of the boats use the hull points, the other half the five point model
+            buoyancy[i] = new BuoyancyControl();
+            boat.addControl(buoyancy[i]);
+            buoyancy[i].setAppState(appState);
+            if (i % 2 == 0) buoyancy[i].setHullPoints(HullSamplePoints.build(boat, 16));
+            boats[i].onAction("Forward", true, TPF);
+            boats[i].onAction(i % 2 == 0 ? "SteerLeft" : "SteerRight", true, TPF);
+        }
+
+        WaterHeightBatch batch = new WaterHeightBatch();
+        long perTick = AllocationMeter.bytesPerOp(WARMUP_TICKS, TICKS, () -> tick(sampler, batch, boats, buoyancy));
+
+        assertEquals("Physics tick allocates " + perTick + " bytes for " + BOATS + " boats", 0, perTick);
+    }
+
+    private static void tick(
+        IBOcean.Sampler sampler,
+        WaterHeightBatch batch,
+        BoatControl[] boats,
+        BuoyancyControl[] buoyancy
+    ) {
+        // same order as a physics step: the ocean samples the water for every boat, then the forces
+        sampler.sync();
+        batch.clear();
+        for (BuoyancyControl control : buoyancy) {
+            control.queueWaterSamples(batch);
+        }
+        batch.sample(sampler);
+        for (BuoyancyControl control : buoyancy) {
+            control.applyBuoyancy(batch, TPF);
+        }
+        for (BoatControl boat : boats) {
+            boat.prePhysicsTick(null, TPF);
+        }
+    }
+}
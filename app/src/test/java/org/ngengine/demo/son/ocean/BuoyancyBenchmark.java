@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) 2025, Nostr Game Engine
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * Nostr Game Engine is a fork of the jMonkeyEngine, which is licensed under
+ * the BSD 3-Clause License. The original jMonkeyEngine license is as follows:
+ */
+package org.ngengine.demo.son.ocean;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.bullet.collision.shapes.BoxCollisionShape;
+import com.jme3.bullet.control.RigidBodyControl;
+import com.jme3.math.Matrix4f;
+import com.jme3.math.Vector3f;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.shape.Box;
+import com.jme3.texture.Image.Format;
+import com.jme3.texture.Texture2D;
+import org.junit.Test;
+import org.ngengine.demo.son.controls.BuoyancyControl;
+import org.ngengine.demo.son.utils.HullSamplePoints;
+
+/**
+ * Measures the cost per boat of the hull point buoyancy in a physics tick: the batched water query for
+ * every boat followed by the per point forces. The cost per boat should stay flat as the number of boats
+ * grows, and grow linearly with the number of points.
+ *
+ * Run with -Dbenchmark=true, it is skipped otherwise.
+ */
+public class BuoyancyBenchmark {
+
+    private static final int[] BOAT_COUNTS = { 8, 32, 128, 512 };
+    private static final int[] POINT_COUNTS = { 4, 16, 64 };
+    private static final int WARMUP_FRAMES = 2000;
+    private static final int FRAMES = 2000;
+    private static final float TPF = 1f / 60f;
+
+    private final AssetManager assetManager = new DesktopAssetManager(true);
+    private final Texture2D reflectionMap = new Texture2D(8, 8, Format.RGBA8);
+    private final Matrix4f reflectionViewProjection = new Matrix4f();
+    private final Vector3f wind = new Vector3f(0, 0, 60f);
+
+    @Test
+    public void costPerBoatStaysFlat() {
+        assumeTrue("Benchmark disabled, run with -Dbenchmark=true", Boolean.getBoolean("benchmark"));
+        IBOcean ocean = TestOceans.create(256, false);
+        OceanAppState appState = new OceanAppState();
+
+        for (int points : POINT_COUNTS) {
+            double first = 0;
+            double last = 0;
+            for (int boats : BOAT_COUNTS) {
+                double nanosPerBoat = run(ocean, appState, boats, points);
+                System.out.printf("boats %4d, hull points %3d: %8.0f ns per boat%n", boats, points, nanosPerBoat);
+                if (boats == BOAT_COUNTS[1]) first = nanosPerBoat;
+                last = nanosPerBoat;
+            }
+            assertTrue(
+                "Cost per boat grows with the number of boats: " + first + " ns -> " + last + " ns",
+                last <= first * 2
+            );
+        }
+    }
+
+    private double run(IBOcean ocean, OceanAppState appState, int boatCount, int pointCount) {
+        BuoyancyControl[] controls = new BuoyancyControl[boatCount];
+        for (int i = 0; i < boatCount; i++) {
+            Geometry boat = new Geometry("boat" + i, new Box(2f, 1f, 5f));
+            boat.setLocalTranslation((i % 32) * 20f, 0, (i / 32) * 20f);
+            boat.updateGeometricState();
+            boat.addControl(new RigidBodyControl(new BoxCollisionShape(new Vector3f(2f, 1f, 5f)), 100f));
+            BuoyancyControl control = new BuoyancyControl();
+            boat.addControl(control);
+            control.setAppState(appState);
+            control.setHullPoints(HullSamplePoints.build(boat, pointCount));
+            controls[i] = control;
+        }
+
+        IBOcean.Sampler sampler = ocean.createSampler();
+        WaterHeightBatch batch = new WaterHeightBatch();
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            frame(ocean, sampler, batch, controls, i);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < FRAMES; i++) {
+            frame(ocean, sampler, batch, controls, WARMUP_FRAMES + i);
+        }
+        return (double) (System.nanoTime() - start) / FRAMES / boatCount;
+    }
+
+    private void frame(
+        IBOcean ocean,
+        IBOcean.Sampler sampler,
+        WaterHeightBatch batch,
+        BuoyancyControl[] controls,
+        int frame
+    ) {
+        // the render thread publishes the ocean, then the physics tick samples it
+        ocean.update(frame * 16L, assetManager, reflectionMap, reflectionViewProjection, wind);
+        sampler.sync();
+        batch.clear();
+        for (BuoyancyControl control : controls) {
+            control.queueWaterSamples(batch);
+        }
+        batch.sample(sampler);
+        for (BuoyancyControl control : controls) {
+            control.applyBuoyancy(batch, TPF);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/**
+ * Copyright (c) 2025, Nostr Game Engine
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * Nostr Game Engine is a fork of the jMonkeyEngine, which is licensed under
+ * the BSD 3-Clause License. The original jMonkeyEngine license is as follows:
+ */
+package org.ngengine.demo.son.ocean;
+
+import static org.junit.Assert.assertTrue;
+
+import com.jme3.asset.AssetManager;
+import com.jme3.asset.DesktopAssetManager;
+import com.jme3.bullet.BulletAppState;
+import com.jme3.math.Matrix4f;
+import com.jme3.math.Vector3f;
+import com.jme3.network.HostedConnection;
+import com.jme3.network.Message;
+import com.jme3.network.Server;
+import com.jme3.scene.Geometry;
+import com.jme3.scene.Node;
+import com.jme3.scene.Spatial;
+import com.jme3.scene.shape.Box;
+import com.jme3.texture.Image.Format;
+import com.jme3.texture.Texture2D;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import org.junit.Test;
+import org.ngengine.demo.son.controls.BoatControl;
+import org.ngengine.demo.son.controls.BuoyancyControl;
+import org.ngengine.demo.son.controls.NetworkControl;
+import org.ngengine.demo.son.controls.WindControl;
+import org.ngengine.demo.son.packets.PacketEncoder;
+import org.ngengine.demo.son.perf.AllocationMeter;
+
+/**
+ * Runs the per-frame render thread update of the ocean and of a boat headlessly and fails if the steady
+ * state allocates, so GC pauses do not creep back in.
+ */
+public class RenderPathAllocationTest {
+
+    private static final int WARMUP_FRAMES = 20000;
+    private static final int FRAMES = 5000;
+    // leaves room for allocations that do not happen every frame, like the occasional logging
+    private static final long MAX_BYTES_PER_FRAME = 64;
+    private static final float TPF = 1f / 60f;
+
+    private static class FakeConnection implements HostedConnection {
+
+        private final Map<String, Object> attributes = new HashMap<>();
+
+        @Override
+        public Server getServer() {
+            return null;
+        }
+
+        @Override
+        public int getId() {
+            return 1;
+        }
+
+        @Override
+        public String getAddress() {
+            return "fake";
+        }
+
+        @Override
+        public void close(String reason) {}
+
+        @Override
+        public Object setAttribute(String name, Object value) {
+            return attributes.put(name, value);
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public <T> T getAttribute(String name) {
+            return (T) attributes.get(name);
+        }
+
+        @Override
+        public Set<String> attributeNames() {
+            return attributes.keySet();
+        }
+
+        @Override
+        public void send(Message message) {}
+
+        @Override
+        public void send(int channel, Message message) {}
+    }
+
+    @Test
+    public void steadyStateFramesDoNotAllocate() throws Exception {
+        AssetManager assetManager = new DesktopAssetManager(true);
+        IBOcean ocean = TestOceans.create(16, true);
+        Vector3f samplePos = new Vector3f();
+        OceanAppState appState = new OceanAppState() {
+            @Override
+            public float getWaterHeightAt(float x, float z) {
+                return ocean.getWaterHeight(samplePos.set(x, 0, z));
+            }
+
+            @Override
+            public BulletAppState getPhysics() {
+                return null;
+            }
+
+            @Override
+            public AssetManager getAssetManager() {
+                return assetManager;
+            }
+        };
+
+        Vector3f wind = new Vector3f(0, 0, 60f);
+        Texture2D reflectionMap = new Texture2D(8, 8, Format.RGBA8);
+        Matrix4f reflectionViewProjection = new Matrix4f();
+
+        Node root = new Node("root");
+        Node boat = new Node("boat");
+        boat.attachChild(new Geometry("hull", new Box(2f, 1f, 5f)));
+        root.attachChild(boat);
+        boat.setLocalTranslation(0, appState.getWaterHeightAt(0, 0), 0);
+        root.updateGeometricState();
+
+        WindControl windControl = new WindControl();
+        windControl.setWind(wind);
+        boat.addControl(windControl);
+        BuoyancyControl buoyancy = new BuoyancyControl();
+        boat.addControl(buoyancy);
+        buoyancy.setAppState(appState);
+        boat.addControl(new BoatControl(false, 100f));
+        NetworkControl network = new NetworkControl(null, new PacketEncoder());
+        boat.addControl(network);
+
+        Map<HostedConnection, Spatial> peers = new HashMap<>();
+        Node remote = new Node("remote");
+        remote.setLocalTranslation(50, 0, 50);
+        root.attachChild(remote);
+        peers.put(new FakeConnection(), remote);
+        Set<Map.Entry<HostedConnection, Spatial>> peerEntries = peers.entrySet();
+
+        long perFrame = AllocationMeter.bytesPerOp(
+            WARMUP_FRAMES,
+            FRAMES,
+            () -> frame(ocean, assetManager, reflectionMap, reflectionViewProjection, wind, root, network, peerEntries)
+        );
+
+        assertTrue(
+            "Render thread update allocates " + perFrame + " bytes per frame, max is " + MAX_BYTES_PER_FRAME,
+            perFrame <= MAX_BYTES_PER_FRAME
+        );
+    }
+
+    private static void frame(
+        IBOcean ocean,
+        AssetManager assetManager,
+        Texture2D reflectionMap,
+        Matrix4f reflectionViewProjection,
+        Vector3f wind,
+        Node root,
+        NetworkControl network,
+        Set<Map.Entry<HostedConnection, Spatial>> peers
+    ) {
+        ocean.update(System.currentTimeMillis(), assetManager, reflectionMap, reflectionViewProjection, wind);
+        root.updateLogicalState(TPF);
+        root.updateGeometricState();
+        network.sendUpdatePackets(peers);
+    }
+}
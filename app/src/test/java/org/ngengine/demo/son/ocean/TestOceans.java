@@ -0,0 +1,68 @@
+/**
+ * Copyright (c) 2025, Nostr Game Engine
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * Nostr Game Engine is a fork of the jMonkeyEngine, which is licensed under
+ * the BSD 3-Clause License. The original jMonkeyEngine license is as follows:
+ */
+package org.ngengine.demo.son.ocean;
+
+import com.jme3.math.Vector2f;
+import com.jme3.math.Vector3f;
+import com.jme3.texture.Image;
+import com.jme3.texture.Image.Format;
+import com.jme3.texture.image.ColorSpace;
+import com.jme3.util.BufferUtils;
+import java.util.ArrayList;
+
+/**
+ * Small procedural oceans for headless tests.
+ */
+public final class TestOceans {
+
+    private TestOceans() {}
+
+    /**
+     * @param res
+     *            resolution of the layers
+     * @param flat
+     *            true for a constant water height, so floating objects never splash (audio is not available
+     *            in tests)
+     */
+    public static IBOcean create(int res, boolean flat) {
+        ArrayList<IBOceanLayer> layers = new ArrayList<>();
+        for (int l = 0; l < 3; l++) {
+            Image img = new Image(Format.RGBA8, res, res, BufferUtils.createByteBuffer(res * res * 4), ColorSpace.Linear);
+            for (int i = 0; i < res * res * 4; i++) {
+                boolean alpha = i % 4 == 3;
+                img.getData(0).put(i, (byte) (alpha && flat ? 64 : (i * 31 + l * 7) & 0xFF));
+            }
+            layers.add(new IBOceanLayer(img));
+        }
+        return new IBOcean(new Vector2f(1024, 1024), layers, new Vector3f(1, 10, 1));
+    }
+}
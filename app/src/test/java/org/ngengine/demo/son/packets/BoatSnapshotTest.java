@@ -0,0 +1,150 @@
+/**
+ * Copyright (c) 2025, Nostr Game Engine
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * Nostr Game Engine is a fork of the jMonkeyEngine, which is licensed under
+ * the BSD 3-Clause License. The original jMonkeyEngine license is as follows:
+ */
+package org.ngengine.demo.son.packets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.jme3.math.FastMath;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import java.util.Random;
+import org.junit.Test;
+
+public class BoatSnapshotTest {
+
+    private final Random random = new Random(7);
+    private final PacketEncoder encoder = new PacketEncoder();
+    private final PacketDecoder decoder = new PacketDecoder();
+
+    private BoatState randomState() {
+        return new BoatState()
+            .setPose(
+                new Vector3f(
+                    (random.nextFloat() * 2f - 1f) * 1000f,
+                    random.nextFloat() * 10f - 5f,
+                    (random.nextFloat() * 2f - 1f) * 1000f
+                ),
+                new Quaternion().fromAngles(random.nextFloat() * 0.2f, random.nextFloat() * FastMath.TWO_PI, 0f)
+            )
+            .setVelocity(
+                new Vector3f(random.nextFloat() * 40f - 20f, random.nextFloat() - 0.5f, random.nextFloat() * 40f - 20f)
+            )
+            .setAnim(random.nextFloat(), random.nextFloat(), random.nextFloat());
+    }
+
+    /**
+     * Moves the state a little, like a boat between two network ticks, some fields stay the same.
+     */
+    private BoatState nudge(BoatState state) {
+        BoatState next = new BoatState().set(state);
+        int rotation = state.getRotation();
+        if (random.nextBoolean()) rotation ^= 1 << random.nextInt(27);
+        next.setPose(
+            state.getX() + (random.nextBoolean() ? random.nextInt(200) - 100 : 0),
+            state.getY() + (random.nextBoolean() ? random.nextInt(20) - 10 : 0),
+            state.getZ() + (random.nextBoolean() ? random.nextInt(200) - 100 : 0),
+            rotation
+        );
+        if (random.nextBoolean()) {
+            int vx = state.getVelocityX() + random.nextInt(50) - 25;
+            next.setVelocity(vx, state.getVelocityY(), state.getVelocityZ());
+        }
+        if (random.nextInt(4) == 0) next.setAnim(state.getFlag(), (state.getSail() + 1) & 0xFF, state.getWind());
+        return next;
+    }
+
+    /**
+     * Sends the snapshot through the codecs, as the receivers get it.
+     */
+    private BoatSnapshot roundTrip(BoatSnapshot snapshot) {
+        return (BoatSnapshot) decoder.decode(encoder.encode(snapshot));
+    }
+
+    private static void assertStateEquals(BoatState expected, BoatState actual) {
+        assertEquals(expected.getX(), actual.getX());
+        assertEquals(expected.getY(), actual.getY());
+        assertEquals(expected.getZ(), actual.getZ());
+        assertEquals(expected.getRotation(), actual.getRotation());
+        assertEquals(expected.getVelocityX(), actual.getVelocityX());
+        assertEquals(expected.getVelocityY(), actual.getVelocityY());
+        assertEquals(expected.getVelocityZ(), actual.getVelocityZ());
+        assertEquals(expected.getFlag(), actual.getFlag());
+        assertEquals(expected.getSail(), actual.getSail());
+        assertEquals(expected.getWind(), actual.getWind());
+    }
+
+    @Test
+    public void fullStatesRoundTrip() {
+        BoatSnapshot snapshot = new BoatSnapshot();
+        for (int i = 0; i < 1000; i++) {
+            BoatState state = randomState();
+            snapshot.encode(state, null, -1, i);
+            BoatSnapshot received = roundTrip(snapshot);
+            assertFalse(received.hasBaseline());
+            assertEquals(WireFormat.packTick(i), received.getTick());
+            assertStateEquals(state, received.decode(null, null));
+        }
+    }
+
+    @Test
+    public void deltasRoundTripAgainstTheirBaseline() {
+        BoatSnapshot snapshot = new BoatSnapshot();
+        BoatState baseline = randomState();
+        // ticks wrap around the 16 bit counter on the way
+        long baselineTick = 65530;
+        for (int i = 0; i < 1000; i++) {
+            BoatState state = nudge(baseline);
+            long tick = baselineTick + 1 + random.nextInt(10);
+            snapshot.encode(state, baseline, baselineTick, tick);
+            BoatSnapshot received = roundTrip(snapshot);
+            assertTrue(received.hasBaseline());
+            assertEquals(WireFormat.packTick(baselineTick), received.getBaselineTick());
+            assertEquals(WireFormat.packTick(tick), received.getTick());
+            assertStateEquals(state, received.decode(baseline, null));
+
+            baseline = state;
+            baselineTick = tick;
+        }
+    }
+
+    @Test
+    public void unchangedStatesCostOnlyTheHeader() {
+        BoatSnapshot snapshot = new BoatSnapshot();
+        BoatState state = randomState();
+        snapshot.encode(state, state, 10, 11);
+        // packet id, tick, size, then the flags and the baseline tick
+        assertEquals(1 + 2 + 1 + 3, encoder.encode(snapshot).getSize());
+        assertStateEquals(state, roundTrip(snapshot).decode(state, null));
+    }
+}
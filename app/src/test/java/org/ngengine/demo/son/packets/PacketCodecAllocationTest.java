@@ -0,0 +1,141 @@
+/**
+ * Copyright (c) 2025, Nostr Game Engine
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * Nostr Game Engine is a fork of the jMonkeyEngine, which is licensed under
+ * the BSD 3-Clause License. The original jMonkeyEngine license is as follows:
+ */
+package org.ngengine.demo.son.packets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import org.junit.Test;
+import org.ngengine.demo.son.perf.AllocationMeter;
+
+/**
+ * Encodes and decodes the packets sent every network tick and fails if the steady state allocates more than
+ * the bytes that are sent.
+ */
+public class PacketCodecAllocationTest {
+
+    private static final int WARMUP_OPS = 20000;
+    private static final int OPS = 20000;
+    // the average is rounded down, so allocations that do not happen on every packet are tolerated
+    private static final long MAX_BYTES_PER_OP = 0;
+    // headers of an encoded packet and of its byte array
+    private static final long MAX_OVERHEAD_PER_PACKET = 64;
+
+    private final BoatSnapshot snapshot = new BoatSnapshot();
+    private final ShotPacket shots;
+    private final AckPacket ack = new AckPacket((short) 90);
+    private final PacketEncoder encoder = new PacketEncoder();
+    private final PacketDecoder decoder = new PacketDecoder();
+    private EncodedPacket snapshotEncoded;
+    private EncodedPacket shotsEncoded;
+    private EncodedPacket ackEncoded;
+    private final BoatState decoded = new BoatState();
+    private long sink;
+
+    public PacketCodecAllocationTest() {
+        BoatState state = new BoatState()
+            .setPose(new Vector3f(121.5f, 0.8f, -338f), new Quaternion().fromAngles(0.02f, 0.1f, -0.01f))
+            .setVelocity(new Vector3f(4.2f, 0.1f, 5.9f))
+            .setAnim(0.2f, 0.7f, 0.5f);
+        snapshot.encode(state, null, 0, 100);
+        float[] data = new float[8 * ShotPacket.FLOATS_PER_SHOT];
+        for (int i = 0; i < data.length; i++) data[i] = i * 0.5f;
+        shots = new ShotPacket(data);
+    }
+
+    private void encode() {
+        snapshotEncoded = encoder.encode(snapshot);
+        shotsEncoded = encoder.encode(shots);
+        ackEncoded = encoder.encode(ack);
+    }
+
+    private void decode() {
+        sink += ((BoatSnapshot) decoder.decode(snapshotEncoded)).decode(null, decoded).getX();
+        sink += ((ShotPacket) decoder.decode(shotsEncoded)).getCount();
+        sink += ((AckPacket) decoder.decode(ackEncoded)).getTick();
+    }
+
+    @Test
+    public void encodingAllocatesOnlyTheSentBytes() throws Exception {
+        long perOp = AllocationMeter.bytesPerOp(WARMUP_OPS, OPS, this::encode);
+        long sent = snapshotEncoded.getSize() + shotsEncoded.getSize() + ackEncoded.getSize();
+        long max = sent + 3 * MAX_OVERHEAD_PER_PACKET;
+        assertTrue("Encoding allocates " + perOp + " bytes per op, max is " + max, perOp <= max);
+    }
+
+    @Test
+    public void encodedBytesAreNotModifiedByLaterEncodes() {
+        // a connection may serialize a packet after send returned, when the next ones are already encoded
+        EncodedPacket first = encoder.encode(snapshot);
+        byte[] sent = first.getData().clone();
+        BoatSnapshot other = new BoatSnapshot();
+        // the same state one tick later, so the bytes have the same length but differ
+        other.encode(snapshot.decode(null, null), null, 0, snapshot.getTick() + 1);
+        EncodedPacket second = encoder.encode(other);
+        assertEquals(sent.length, second.getSize());
+        assertArrayEquals(sent, first.getData());
+    }
+
+    @Test
+    public void decodingDoesNotAllocate() throws Exception {
+        encode();
+        long perOp = AllocationMeter.bytesPerOp(WARMUP_OPS, OPS, this::decode);
+        assertTrue(
+            "Decoding allocates " + perOp + " bytes per op, max is " + MAX_BYTES_PER_OP,
+            perOp <= MAX_BYTES_PER_OP
+        );
+    }
+
+    @Test
+    public void decoderReusesPacketsAndKeepsTheirContent() {
+        encode();
+        BoatSnapshot first = (BoatSnapshot) decoder.decode(snapshotEncoded);
+        assertTrue(first == decoder.decode(snapshotEncoded));
+        assertEquals(snapshot.getTick(), first.getTick());
+        assertEquals(snapshot.decode(null, null).getX(), first.decode(null, decoded).getX());
+
+        ShotPacket decodedShots = (ShotPacket) decoder.decode(shotsEncoded);
+        assertEquals(shots.getCount(), decodedShots.getCount());
+        Vector3f expected = new Vector3f();
+        Vector3f actual = new Vector3f();
+        for (int i = 0; i < shots.getCount(); i++) {
+            assertEquals(shots.getVelocity(i, expected), decodedShots.getVelocity(i, actual));
+        }
+
+        // a smaller batch reuses the array of the larger one
+        EncodedPacket oneShot = encoder.encode(new ShotPacket(new float[ShotPacket.FLOATS_PER_SHOT]));
+        assertEquals(1, ((ShotPacket) decoder.decode(oneShot)).getCount());
+    }
+}
@@ -0,0 +1,174 @@
+/**
+ * Copyright (c) 2025, Nostr Game Engine
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * Nostr Game Engine is a fork of the jMonkeyEngine, which is licensed under
+ * the BSD 3-Clause License. The original jMonkeyEngine license is as follows:
+ */
+package org.ngengine.demo.son.packets;
+
+import static org.junit.Assume.assumeTrue;
+
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import com.jme3.network.AbstractMessage;
+import com.jme3.network.serializing.Serializable;
+import com.jme3.network.serializing.Serializer;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.junit.Test;
+import org.ngengine.demo.son.perf.AllocationMeter;
+
+/**
+ * Compares the encode and decode throughput and allocation of the packet codecs with the jME
+ * {@link Serializer}, the generic path that serialized the packets field by field before the codecs.
+ * Encoding one boat snapshot and a batch of shots counts as one operation. The allocation of the codecs is
+ * checked on every build by {@link PacketCodecAllocationTest}.
+ *
+ * Run with -Dbenchmark=true, it is skipped otherwise.
+ */
+public class PacketCodecBenchmark {
+
+    private static final int WARMUP_OPS = 200000;
+    private static final int OPS = 200000;
+    private static final int SHOTS = 8;
+
+    private final BoatSnapshot snapshot = new BoatSnapshot();
+    private final ShotPacket shots;
+    private final PacketEncoder encoder = new PacketEncoder();
+    private final PacketDecoder decoder = new PacketDecoder();
+    private EncodedPacket snapshotEncoded;
+    private EncodedPacket shotsEncoded;
+    private final SerializedSnapshot serializedSnapshot = new SerializedSnapshot();
+    private final SerializedShots serializedShots = new SerializedShots();
+    private final ByteBuffer serializerBuffer = ByteBuffer.allocate(4096);
+    // keeps the results alive so the work is not optimized away
+    private long sink;
+
+    /**
+     * The fields of a snapshot, as a message serialized by the {@link Serializer}.
+     */
+    @Serializable
+    public static class SerializedSnapshot extends AbstractMessage {
+
+        short tick;
+        byte[] data;
+
+        public SerializedSnapshot() {}
+    }
+
+    /**
+     * The fields of a batch of shots, as a message serialized by the {@link Serializer}.
+     */
+    @Serializable
+    public static class SerializedShots extends AbstractMessage {
+
+        float[] shots;
+
+        public SerializedShots() {}
+    }
+
+    public PacketCodecBenchmark() {
+        BoatState baseline = new BoatState()
+            .setPose(new Vector3f(120f, 1f, -340f), new Quaternion())
+            .setVelocity(new Vector3f(4f, 0f, 6f))
+            .setAnim(0.2f, 0.8f, 0.5f);
+        BoatState state = new BoatState()
+            .setPose(new Vector3f(121.5f, 0.8f, -338f), new Quaternion().fromAngles(0.02f, 0.1f, -0.01f))
+            .setVelocity(new Vector3f(4.2f, 0.1f, 5.9f))
+            .setAnim(0.2f, 0.7f, 0.5f);
+        snapshot.encode(state, baseline, 90, 100);
+        float[] data = new float[SHOTS * ShotPacket.FLOATS_PER_SHOT];
+        for (int i = 0; i < data.length; i++) data[i] = i * 0.5f;
+        shots = new ShotPacket(data);
+
+        // the same payload the codecs send, with the framing of the codecs left out
+        snapshotEncoded = encoder.encode(snapshot);
+        byte[] encoded = snapshotEncoded.getData();
+        serializedSnapshot.tick = snapshot.getTick();
+        serializedSnapshot.data = Arrays.copyOfRange(encoded, 4, encoded.length);
+        serializedShots.shots = data;
+    }
+
+    @Test
+    public void codecsAgainstSerializer() throws Exception {
+        assumeTrue("Benchmark disabled, run with -Dbenchmark=true", Boolean.getBoolean("benchmark"));
+
+        Serializer.registerClass(SerializedSnapshot.class);
+        Serializer.registerClass(SerializedShots.class);
+
+        shotsEncoded = encoder.encode(shots);
+        int serializedBytes = serialize(serializedSnapshot) + serialize(serializedShots);
+        System.out.printf(
+            "bytes per op: codecs %d, serializer %d%n",
+            snapshotEncoded.getSize() + shotsEncoded.getSize(),
+            serializedBytes
+        );
+
+        long[] codecEncode = measure(() -> {
+            sink += encoder.encode(snapshot).getSize();
+            sink += encoder.encode(shots).getSize();
+        });
+        long[] codecDecode = measure(() -> {
+            sink += ((BoatSnapshot) decoder.decode(snapshotEncoded)).getTick();
+            sink += ((ShotPacket) decoder.decode(shotsEncoded)).getCount();
+        });
+        long[] serializerEncode = measure(() -> {
+            sink += serialize(serializedSnapshot);
+            sink += serialize(serializedShots);
+        });
+        serializerBuffer.clear();
+        Serializer.writeClassAndObject(serializerBuffer, serializedSnapshot);
+        Serializer.writeClassAndObject(serializerBuffer, serializedShots);
+        serializerBuffer.flip();
+        long[] serializerDecode = measure(() -> {
+            serializerBuffer.rewind();
+            sink += ((SerializedSnapshot) Serializer.readClassAndObject(serializerBuffer)).tick;
+            sink += ((SerializedShots) Serializer.readClassAndObject(serializerBuffer)).shots.length;
+        });
+
+        print("encode codecs", codecEncode);
+        print("encode serializer", serializerEncode);
+        print("decode codecs", codecDecode);
+        print("decode serializer", serializerDecode);
+        System.out.println("checksum " + sink);
+    }
+
+    private int serialize(Object message) throws Exception {
+        serializerBuffer.clear();
+        Serializer.writeClassAndObject(serializerBuffer, message);
+        return serializerBuffer.position();
+    }
+
+    private static long[] measure(AllocationMeter.Op op) throws Exception {
+        return AllocationMeter.measure(WARMUP_OPS, OPS, op);
+    }
+
+    private static void print(String name, long[] result) {
+        System.out.printf("%-18s %6d ns/op %6d B/op %10.0f ops/s%n", name, result[0], result[1], 1e9 / result[0]);
+    }
+}
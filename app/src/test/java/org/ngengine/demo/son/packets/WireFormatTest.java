@@ -0,0 +1,112 @@
+/**
+ * Copyright (c) 2025, Nostr Game Engine
+ * 
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ * 
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ * 
+ * 3. Neither the name of the copyright holder nor the names of its
+ *    contributors may be used to endorse or promote products derived from
+ *    this software without specific prior written permission.
+ * 
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+ * FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+ * DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+ * CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+ * OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+ * OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ * 
+ * Nostr Game Engine is a fork of the jMonkeyEngine, which is licensed under
+ * the BSD 3-Clause License. The original jMonkeyEngine license is as follows:
+ */
+package org.ngengine.demo.son.packets;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.jme3.math.FastMath;
+import com.jme3.math.Quaternion;
+import com.jme3.math.Vector3f;
+import java.util.Random;
+import org.junit.Test;
+
+public class WireFormatTest {
+
+    private final Random random = new Random(42);
+
+    @Test
+    public void positionsRoundTripWithinPrecision() {
+        Vector3f precision = WireFormat.getPositionPrecision(null);
+        float height = WireFormat.PLAY_AREA_MAX_Y - WireFormat.PLAY_AREA_MIN_Y;
+        Vector3f position = new Vector3f();
+        Vector3f unpacked = new Vector3f();
+        for (int i = 0; i < 10000; i++) {
+            position.set(
+                (random.nextFloat() * 2f - 1f) * WireFormat.PLAY_AREA_HALF_SIZE,
+                WireFormat.PLAY_AREA_MIN_Y + random.nextFloat() * height,
+                (random.nextFloat() * 2f - 1f) * WireFormat.PLAY_AREA_HALF_SIZE
+            );
+            WireFormat.unpackPosition(WireFormat.packPosition(position), unpacked);
+            assertEquals(position.x, unpacked.x, precision.x);
+            assertEquals(position.y, unpacked.y, precision.y);
+            assertEquals(position.z, unpacked.z, precision.z);
+
+            WireFormat.dequantizePosition(
+                WireFormat.quantizeX(position.x),
+                WireFormat.quantizeY(position.y),
+                WireFormat.quantizeZ(position.z),
+                unpacked
+            );
+            assertEquals(position.x, unpacked.x, precision.x);
+            assertEquals(position.y, unpacked.y, precision.y);
+            assertEquals(position.z, unpacked.z, precision.z);
+        }
+    }
+
+    @Test
+    public void positionsOutsideThePlayAreaAreClamped() {
+        float size = WireFormat.PLAY_AREA_HALF_SIZE;
+        Vector3f outside = new Vector3f(size * 3f, -10000f, -size * 2f);
+        Vector3f unpacked = WireFormat.unpackPosition(WireFormat.packPosition(outside), null);
+        assertEquals(WireFormat.PLAY_AREA_HALF_SIZE, unpacked.x, 0.01f);
+        assertEquals(WireFormat.PLAY_AREA_MIN_Y, unpacked.y, 0.01f);
+        assertEquals(-WireFormat.PLAY_AREA_HALF_SIZE, unpacked.z, 0.01f);
+    }
+
+    @Test
+    public void rotationsRoundTrip() {
+        Quaternion rotation = new Quaternion();
+        Quaternion unpacked = new Quaternion();
+        for (int i = 0; i < 10000; i++) {
+            rotation.fromAngles(
+                (random.nextFloat() * 2f - 1f) * FastMath.PI,
+                (random.nextFloat() * 2f - 1f) * FastMath.PI,
+                (random.nextFloat() * 2f - 1f) * FastMath.PI
+            );
+            WireFormat.unpackRotation(WireFormat.packRotation(rotation), unpacked);
+            // q and -q are the same rotation
+            float dot = Math.abs(rotation.dot(unpacked));
+            float angle = 2f * FastMath.acos(Math.min(1f, dot));
+            assertTrue("Rotation error of " + angle + " rad", angle < 0.01f);
+        }
+    }
+
+    @Test
+    public void velocitiesRoundTrip() {
+        for (int i = 0; i < 1000; i++) {
+            float v = (random.nextFloat() * 2f - 1f) * 100f;
+            float unpacked = WireFormat.dequantizeVelocity(WireFormat.quantizeVelocity(v));
+            assertEquals(v, unpacked, WireFormat.VELOCITY_PRECISION * 0.5f + 1e-4f);
+        }
+    }
+}